@@ -17,6 +17,7 @@ package com.googlesource.gerrit.plugins.its.base;
 import com.google.gerrit.extensions.annotations.Exports;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
 import com.google.gerrit.extensions.registration.DynamicMap;
 import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.gerrit.server.config.PluginConfigFactory;
@@ -27,7 +28,13 @@ import com.google.gerrit.server.git.validators.CommitValidationListener;
 import com.google.inject.Inject;
 import com.google.inject.Provides;
 import com.googlesource.gerrit.plugins.its.base.its.ItsConfig;
+import com.googlesource.gerrit.plugins.its.base.its.ItsEnablementCache;
 import com.googlesource.gerrit.plugins.its.base.its.ItsHookEnabledConfigEntry;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectCachesRefresher;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectConfigCache;
+import com.googlesource.gerrit.plugins.its.base.util.IssueAssociationCache;
+import com.googlesource.gerrit.plugins.its.base.util.IssueExtractionPool;
+import com.googlesource.gerrit.plugins.its.base.util.IssueExtractor;
 import com.googlesource.gerrit.plugins.its.base.validation.ItsValidateComment;
 import com.googlesource.gerrit.plugins.its.base.workflow.ActionController;
 import com.googlesource.gerrit.plugins.its.base.workflow.ActionRequest;
@@ -39,10 +46,16 @@ import com.googlesource.gerrit.plugins.its.base.workflow.Condition;
 import com.googlesource.gerrit.plugins.its.base.workflow.CreateVersionFromProperty;
 import com.googlesource.gerrit.plugins.its.base.workflow.CustomAction;
 import com.googlesource.gerrit.plugins.its.base.workflow.FireEventOnCommits;
+import com.googlesource.gerrit.plugins.its.base.workflow.FireEventOnCommitsCheckpoints;
 import com.googlesource.gerrit.plugins.its.base.workflow.ItsRulesProjectCacheImpl;
 import com.googlesource.gerrit.plugins.its.base.workflow.LogEvent;
+import com.googlesource.gerrit.plugins.its.base.workflow.PropertyProjectionCache;
 import com.googlesource.gerrit.plugins.its.base.workflow.Rule;
+import com.googlesource.gerrit.plugins.its.base.workflow.SoyTemplateCache;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.BetweenRevisionsCommitCollector;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.CommitCollector;
 import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.SinceLastTagCommitCollector;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.TaggedCommitIndex;
 import java.nio.file.Path;
 
 public class ItsHookModule extends FactoryModule {
@@ -80,8 +93,22 @@ public class ItsHookModule extends FactoryModule {
     factory(AddPropertyToField.Factory.class);
     DynamicMap.mapOf(binder(), CustomAction.class);
     install(ItsRulesProjectCacheImpl.module());
+    install(PropertyProjectionCache.module());
+    install(ItsEnablementCache.module());
+    install(ItsProjectConfigCache.module());
+    DynamicSet.bind(binder(), GitReferenceUpdatedListener.class)
+        .to(ItsProjectCachesRefresher.class);
+    install(IssueAssociationCache.module());
+    install(IssueExtractor.PatchSetDbImpl.module());
+    install(IssueExtractionPool.module());
     factory(FireEventOnCommits.Factory.class);
+    install(FireEventOnCommitsCheckpoints.module());
     factory(SinceLastTagCommitCollector.Factory.class);
+    factory(BetweenRevisionsCommitCollector.Factory.class);
+    DynamicMap.mapOf(binder(), CommitCollector.class);
+    install(TaggedCommitIndex.module());
+    install(SoyTemplateCache.cacheModule());
+    install(SoyTemplateCache.module());
   }
 
   @Provides
@@ -16,6 +16,7 @@ package com.googlesource.gerrit.plugins.its.base.its;
 
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.entities.AccessSection;
@@ -42,6 +43,8 @@ import com.google.gerrit.server.project.ProjectState;
 import com.google.gerrit.server.project.RefPatternMatcher;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.its.base.validation.ItsAssociationPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -57,11 +60,24 @@ public class ItsConfig {
   private final ProjectCache projectCache;
   private final PluginConfigFactory pluginCfgFactory;
   private final Config gerritConfig;
+  private final ItsEnablementCache enablementCache;
+  private final ItsProjectConfigCache projectConfigCache;
+  private final ImmutableList<RefPatternMatcher> refUpdatedIncludes;
+  private final ImmutableList<RefPatternMatcher> refUpdatedExcludes;
+  private final boolean inheritItsProject;
   private String instanceId;
 
   private static final ThreadLocal<Project.NameKey> currentProjectName =
       ThreadLocal.withInitial(() -> null);
 
+  /**
+   * Sets the project that the per-project getters resolve their settings for on this thread.
+   *
+   * <p>Event handling and commit validation set the project, so ITS plugins that still use the
+   * per-project getters get the project's settings. The project is lost as soon as work moves to
+   * another thread, so this plugin itself resolves the settings through {@link
+   * #getProjectConfig(Project.NameKey)}.
+   */
   public static void setCurrentProjectName(Project.NameKey projectName) {
     currentProjectName.set(projectName);
   }
@@ -72,12 +88,20 @@ public class ItsConfig {
       ProjectCache projectCache,
       PluginConfigFactory pluginCfgFactory,
       @GerritServerConfig Config gerritConfig,
+      ItsEnablementCache enablementCache,
+      ItsProjectConfigCache projectConfigCache,
       @Nullable @GerritInstanceId String instanceId) {
     this.pluginName = pluginName;
     this.projectCache = projectCache;
     this.pluginCfgFactory = pluginCfgFactory;
     this.gerritConfig = gerritConfig;
+    this.enablementCache = enablementCache;
+    this.projectConfigCache = projectConfigCache;
     this.instanceId = instanceId;
+    this.refUpdatedIncludes = getRefPatternMatchers("refUpdatedInclude");
+    this.refUpdatedExcludes = getRefPatternMatchers("refUpdatedExclude");
+    this.inheritItsProject =
+        gerritConfig.getBoolean(PLUGIN, pluginName, "inheritItsProject", false);
   }
 
   // Plugin enablement --------------------------------------------------------
@@ -90,6 +114,11 @@ public class ItsConfig {
       return false;
     }
 
+    if (event instanceof RefUpdatedEvent && !isHandledRefUpdate(event.getRefName())) {
+      logger.atFine().log("Updates of ref %s are filtered out", event.getRefName());
+      return false;
+    }
+
     if (event instanceof PatchSetCreatedEvent
         || event instanceof CommentAddedEvent
         || event instanceof ChangeMergedEvent
@@ -105,80 +134,140 @@ public class ItsConfig {
   }
 
   public boolean isEnabled(Project.NameKey projectNK, String refName) {
-    Optional<ProjectState> projectState = projectCache.get(projectNK);
-    if (!projectState.isPresent()) {
+    Optional<ItsEnablement> enablement = enablementCache.get(projectNK);
+    if (!enablement.isPresent()) {
       logger.atSevere().log(
           "Failed to check if %s is enabled for project %s: Project not found",
           pluginName, projectNK.get());
       return false;
     }
-    return isEnforcedByAnyParentProject(refName, projectState.get())
-        || (isEnabledForProject(projectState.get())
-            && isEnabledForBranch(projectState.get(), refName));
-  }
-
-  private boolean isEnforcedByAnyParentProject(String refName, ProjectState projectState) {
-    for (ProjectState parentState : projectState.treeInOrder()) {
-      PluginConfig parentCfg = pluginCfgFactory.getFromProjectConfig(parentState, pluginName);
-      if ("enforced".equals(parentCfg.getString("enabled", "false"))
-          && isEnabledForBranch(parentState, refName)) {
-        return true;
-      }
-    }
-    return false;
+    return enablement.get().isEnabled(refName);
   }
 
-  private boolean isEnabledForProject(ProjectState projectState) {
-    return !"false"
-        .equals(
-            pluginCfgFactory
-                .getFromProjectConfigWithInheritance(projectState, pluginName)
-                .getString("enabled", "false"));
+  /**
+   * Checks whether updates of a ref are handled at all.
+   *
+   * <p>Sites can limit the handled ref updates through {@code refUpdatedInclude} and {@code
+   * refUpdatedExclude} in the plugin's section of {@code gerrit.config}. This allows to drop
+   * updates of refs like {@code refs/changes/*} before the repository gets opened to read commit
+   * messages.
+   *
+   * @param refName The name of the updated ref.
+   * @return True, if the ref is included (or no includes are configured) and not excluded.
+   */
+  public boolean isHandledRefUpdate(String refName) {
+    return (refUpdatedIncludes.isEmpty() || matchesAny(refName, refUpdatedIncludes))
+        && !matchesAny(refName, refUpdatedExcludes);
   }
 
-  private boolean isEnabledForBranch(ProjectState project, String refName) {
-    String[] refPatterns =
-        pluginCfgFactory
-            .getFromProjectConfigWithInheritance(project, pluginName)
-            .getStringList("branch");
-    if (refPatterns.length == 0) {
-      return true;
-    }
-    for (String refPattern : refPatterns) {
-      if (AccessSection.isValidRefSectionName(refPattern) && match(refName, refPattern)) {
+  private static boolean matchesAny(String refName, List<RefPatternMatcher> matchers) {
+    for (RefPatternMatcher matcher : matchers) {
+      if (matcher.match(refName, null)) {
         return true;
       }
     }
     return false;
   }
 
-  private boolean match(String refName, String refPattern) {
-    return RefPatternMatcher.getMatcher(refPattern).match(refName, null);
+  /** Compiles the ref patterns of a setting in the plugin's section of {@code gerrit.config}. */
+  private ImmutableList<RefPatternMatcher> getRefPatternMatchers(String key) {
+    ImmutableList.Builder<RefPatternMatcher> matchers = ImmutableList.builder();
+    for (String refPattern : gerritConfig.getStringList(PLUGIN, pluginName, key)) {
+      if (AccessSection.isValidRefSectionName(refPattern)) {
+        matchers.add(RefPatternMatcher.getMatcher(refPattern));
+      } else {
+        logger.atWarning().log(
+            "Ignoring invalid ref pattern %s of %s.%s.%s", refPattern, PLUGIN, pluginName, key);
+      }
+    }
+    return matchers.build();
   }
 
   // Project association
+
+  /**
+   * Gets the ITS project that a project is associated with.
+   *
+   * <p>The association is read from the project's own {@code its-project} setting, or, if {@code
+   * inheritItsProject} is set in the plugin's section of {@code gerrit.config}, also from its
+   * parents.
+   *
+   * @param projectNK The project to get the ITS project of.
+   * @return The ITS project, or empty, if the project does not exist or is not associated.
+   */
   public Optional<String> getItsProjectName(Project.NameKey projectNK) {
+    if (!projectCache.get(projectNK).isPresent()) {
+      return Optional.empty();
+    }
+    return getProjectConfig(projectNK).getItsProjectName();
+  }
+
+  private Optional<String> loadItsProjectName(Project.NameKey projectNK) {
     Optional<ProjectState> projectState = projectCache.get(projectNK);
     if (!projectState.isPresent()) {
       return Optional.empty();
     }
-    return Optional.ofNullable(
-        pluginCfgFactory
-            .getFromProjectConfig(projectState.get(), pluginName)
-            .getString("its-project"));
+    PluginConfig cfg =
+        inheritItsProject
+            ? pluginCfgFactory.getFromProjectConfigWithInheritance(projectState.get(), pluginName)
+            : pluginCfgFactory.getFromProjectConfig(projectState.get(), pluginName);
+    return Optional.ofNullable(cfg.getString("its-project"));
+  }
+
+  // Project snapshot ---------------------------------------------------------
+
+  /**
+   * Gets the settings for a project.
+   *
+   * <p>The settings are cached until the configuration of the project or one of its parents
+   * changes.
+   *
+   * @param projectName The project to get the settings for.
+   * @return The project's settings.
+   */
+  public ItsProjectConfig getProjectConfig(Project.NameKey projectName) {
+    return projectConfigCache.get(projectName);
+  }
+
+  /** Resolves the settings for a project from its configuration. */
+  ItsProjectConfig loadProjectConfig(Project.NameKey projectName) {
+    PluginConfig cfg = getPluginConfig(projectName);
+    List<Pattern> patterns = getIssuePatterns(cfg, projectName);
+    int[] groupIndexes = new int[patterns.size()];
+    for (int i = 0; i < patterns.size(); i++) {
+      groupIndexes[i] = getIssuePatternGroupIndex(cfg, patterns.get(i));
+    }
+    return new ItsProjectConfig(
+        projectName,
+        getCommentLinkName(cfg),
+        patterns,
+        groupIndexes,
+        getItsAssociationPolicy(cfg),
+        getDummyIssuePattern(cfg),
+        loadItsProjectName(projectName));
   }
 
   // Issue association --------------------------------------------------------
+  //
+  // These getters resolve the settings for the project set through setCurrentProjectName. They
+  // are kept for other ITS plugins. Prefer getProjectConfig.
 
   /**
    * Gets the name of the comment link that should be used
    *
+   * <p>If several comment links are configured, this is one of them. {@link
+   * #getCommentLinkNames()} gets all of them.
+   *
    * @return name of the comment link that should be used
    */
   public String getCommentLinkName() {
+    return getCommentLinkName(getCurrentPluginConfig());
+  }
+
+  private String getCommentLinkName(PluginConfig cfg) {
     String ret;
 
-    ret = getPluginConfigString("commentlink");
+    ret = getPluginConfigString(cfg, "commentlink");
     if (ret == null) {
       ret = pluginName;
     }
@@ -186,6 +275,25 @@ public class ItsConfig {
     return ret;
   }
 
+  /**
+   * Gets the names of the comment links that should be used
+   *
+   * <p>Sites with several issue key schemes may configure {@code commentlink} several times.
+   *
+   * @return names of the comment links that should be used, in configuration order
+   */
+  public List<String> getCommentLinkNames() {
+    return getCommentLinkNames(getCurrentPluginConfig());
+  }
+
+  private List<String> getCommentLinkNames(PluginConfig cfg) {
+    String[] names = getPluginConfigStringList(cfg, "commentlink");
+    if (names.length <= 1) {
+      return Collections.singletonList(getCommentLinkName(cfg));
+    }
+    return Arrays.stream(names).distinct().collect(toList());
+  }
+
   /**
    * Gets the regular expression used to identify issue ids.
    *
@@ -194,13 +302,42 @@ public class ItsConfig {
    * @return the regular expression, or {@code null}, if there is no pattern to match issue ids.
    */
   public Pattern getIssuePattern() {
+    return getIssuePattern(getCommentLinkName(), currentProjectName.get());
+  }
+
+  /**
+   * Gets the regular expressions used to identify issue ids.
+   *
+   * <p>There is one regular expression for each comment link (see {@link #getCommentLinkNames()})
+   * that has a pattern. The index of the group that holds the issue id is {@link
+   * #getIssuePatternGroupIndex(Pattern)}.
+   *
+   * @return the regular expressions. The list is empty, if there is no pattern to match issue ids.
+   */
+  public List<Pattern> getIssuePatterns() {
+    return getIssuePatterns(getCurrentPluginConfig(), currentProjectName.get());
+  }
+
+  private List<Pattern> getIssuePatterns(PluginConfig cfg, @Nullable NameKey projectName) {
+    List<String> names = getCommentLinkNames(cfg);
+    List<Pattern> patterns = new ArrayList<>(names.size());
+    for (String name : names) {
+      Pattern pattern = getIssuePattern(name, projectName);
+      if (pattern != null) {
+        patterns.add(pattern);
+      }
+    }
+    return patterns;
+  }
+
+  private Pattern getIssuePattern(String commentLinkName, @Nullable NameKey projectName) {
     Optional<String> match =
-        getCommentLinkInfo(getCommentLinkName()).stream()
+        getCommentLinkInfo(commentLinkName, projectName).stream()
             .filter(input -> input.match != null && !input.match.trim().isEmpty())
             .map(input -> input.match)
             .reduce((a, b) -> b);
 
-    String defPattern = gerritConfig.getString("commentlink", getCommentLinkName(), "match");
+    String defPattern = gerritConfig.getString("commentlink", commentLinkName, "match");
 
     if (!match.isPresent() && defPattern == null) {
       return null;
@@ -218,9 +355,23 @@ public class ItsConfig {
    *     is guaranteed to be a valid group index.
    */
   public int getIssuePatternGroupIndex() {
-    Pattern pattern = getIssuePattern();
+    return getIssuePatternGroupIndex(getIssuePattern());
+  }
+
+  /**
+   * Gets the index of the group in an issue pattern that holds the issue id.
+   *
+   * @param pattern One of the patterns of {@link #getIssuePatterns()}.
+   * @return the group index for {@code pattern} that holds the issue id. The group index is
+   *     guaranteed to be a valid group index.
+   */
+  public int getIssuePatternGroupIndex(Pattern pattern) {
+    return getIssuePatternGroupIndex(getCurrentPluginConfig(), pattern);
+  }
+
+  private int getIssuePatternGroupIndex(PluginConfig cfg, Pattern pattern) {
     int groupCount = pattern.matcher("").groupCount();
-    int index = getPluginConfigInt("commentlinkGroupIndex", 1);
+    int index = getPluginConfigInt(cfg, "commentlinkGroupIndex", 1);
     if (index < 0 || index > groupCount) {
       index = (groupCount == 0 ? 0 : 1);
     }
@@ -234,7 +385,12 @@ public class ItsConfig {
    * <p>When no pattern is specified, it will return a pattern which never matches.
    */
   public Optional<Pattern> getDummyIssuePattern() {
-    return Optional.ofNullable(getPluginConfigString("dummyIssuePattern")).map(Pattern::compile);
+    return getDummyIssuePattern(getCurrentPluginConfig());
+  }
+
+  private Optional<Pattern> getDummyIssuePattern(PluginConfig cfg) {
+    return Optional.ofNullable(getPluginConfigString(cfg, "dummyIssuePattern"))
+        .map(Pattern::compile);
   }
 
   /**
@@ -243,29 +399,42 @@ public class ItsConfig {
    * @return policy on how necessary association with issues is
    */
   public ItsAssociationPolicy getItsAssociationPolicy() {
+    return getItsAssociationPolicy(getCurrentPluginConfig());
+  }
+
+  private ItsAssociationPolicy getItsAssociationPolicy(PluginConfig cfg) {
     ItsAssociationPolicy legacyItsAssociationPolicy =
         gerritConfig.getEnum(
-            "commentlink", getCommentLinkName(), "association", ItsAssociationPolicy.OPTIONAL);
+            "commentlink", getCommentLinkName(cfg), "association", ItsAssociationPolicy.OPTIONAL);
 
-    return getPluginConfigEnum("association", legacyItsAssociationPolicy);
+    return getPluginConfigEnum(cfg, "association", legacyItsAssociationPolicy);
   }
 
-  private String getPluginConfigString(String key) {
-    return getCurrentPluginConfig().getString(key, gerritConfig.getString(PLUGIN, pluginName, key));
+  private String getPluginConfigString(PluginConfig cfg, String key) {
+    return cfg.getString(key, gerritConfig.getString(PLUGIN, pluginName, key));
   }
 
-  private int getPluginConfigInt(String key, int defaultValue) {
-    return getCurrentPluginConfig()
-        .getInt(key, gerritConfig.getInt(PLUGIN, pluginName, key, defaultValue));
+  private String[] getPluginConfigStringList(PluginConfig cfg, String key) {
+    String[] values = cfg.getStringList(key);
+    if (values.length == 0) {
+      values = gerritConfig.getStringList(PLUGIN, pluginName, key);
+    }
+    return values;
+  }
+
+  private int getPluginConfigInt(PluginConfig cfg, String key, int defaultValue) {
+    return cfg.getInt(key, gerritConfig.getInt(PLUGIN, pluginName, key, defaultValue));
   }
 
-  private <T extends Enum<?>> T getPluginConfigEnum(String key, T defaultValue) {
-    return getCurrentPluginConfig()
-        .getEnum(key, gerritConfig.getEnum(PLUGIN, pluginName, key, defaultValue));
+  private <T extends Enum<?>> T getPluginConfigEnum(PluginConfig cfg, String key, T defaultValue) {
+    return cfg.getEnum(key, gerritConfig.getEnum(PLUGIN, pluginName, key, defaultValue));
   }
 
   private PluginConfig getCurrentPluginConfig() {
-    NameKey projectName = currentProjectName.get();
+    return getPluginConfig(currentProjectName.get());
+  }
+
+  private PluginConfig getPluginConfig(@Nullable NameKey projectName) {
     if (projectName != null) {
       try {
         return pluginCfgFactory.getFromProjectConfigWithInheritance(projectName, pluginName);
@@ -277,8 +446,8 @@ public class ItsConfig {
     return PluginConfig.create(pluginName, new Config(), null);
   }
 
-  private List<CommentLinkInfo> getCommentLinkInfo(final String commentlinkName) {
-    NameKey projectName = currentProjectName.get();
+  private List<CommentLinkInfo> getCommentLinkInfo(
+      final String commentlinkName, @Nullable NameKey projectName) {
     if (projectName != null) {
       List<CommentLinkInfo> commentlinks = projectCache.get(projectName).get().getCommentLinks();
       return commentlinks.stream()
@@ -0,0 +1,132 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.its;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.AccessSection;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gerrit.server.config.PluginConfigFactory;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.gerrit.server.project.RefPatternMatcher;
+
+/**
+ * Whether the plugin is enabled for the refs of a project.
+ *
+ * <p>This is the project's enablement configuration resolved against its parents, with the branch
+ * patterns already compiled. So checking a ref needs no further configuration lookups.
+ */
+class ItsEnablement {
+  /** Branches of ancestors (or the project itself) that enforce the plugin. */
+  private final ImmutableList<Branches> enforcedBranches;
+
+  private final boolean enabled;
+  private final Branches branches;
+
+  private ItsEnablement(
+      ImmutableList<Branches> enforcedBranches, boolean enabled, Branches branches) {
+    this.enforcedBranches = enforcedBranches;
+    this.enabled = enabled;
+    this.branches = branches;
+  }
+
+  /**
+   * Resolves the enablement of a project.
+   *
+   * @param projectState The project to resolve the enablement of.
+   * @param pluginCfgFactory Factory for the plugin's project configuration.
+   * @param pluginName The name of the plugin.
+   * @return The project's enablement.
+   */
+  static ItsEnablement create(
+      ProjectState projectState, PluginConfigFactory pluginCfgFactory, String pluginName) {
+    ImmutableList.Builder<Branches> enforcedBranches = ImmutableList.builder();
+    for (ProjectState parentState : projectState.treeInOrder()) {
+      PluginConfig parentCfg = pluginCfgFactory.getFromProjectConfig(parentState, pluginName);
+      if ("enforced".equals(parentCfg.getString("enabled", "false"))) {
+        enforcedBranches.add(Branches.of(parentState, pluginCfgFactory, pluginName));
+      }
+    }
+    PluginConfig cfg =
+        pluginCfgFactory.getFromProjectConfigWithInheritance(projectState, pluginName);
+    return new ItsEnablement(
+        enforcedBranches.build(),
+        !"false".equals(cfg.getString("enabled", "false")),
+        Branches.of(cfg.getStringList("branch")));
+  }
+
+  /**
+   * Checks whether the plugin is enabled for a ref of the project.
+   *
+   * @param refName The ref to check.
+   * @return True, if the plugin is enabled for the ref.
+   */
+  boolean isEnabled(String refName) {
+    for (Branches enforced : enforcedBranches) {
+      if (enforced.match(refName)) {
+        return true;
+      }
+    }
+    return enabled && branches.match(refName);
+  }
+
+  /** The compiled {@code branch} patterns of a project. */
+  private static class Branches {
+    private static final Branches ALL = new Branches(true, ImmutableList.of());
+
+    /** Whether all branches match, as no pattern is configured. */
+    private final boolean all;
+
+    /** The matchers of the valid patterns. */
+    private final ImmutableList<RefPatternMatcher> matchers;
+
+    private Branches(boolean all, ImmutableList<RefPatternMatcher> matchers) {
+      this.all = all;
+      this.matchers = matchers;
+    }
+
+    static Branches of(
+        ProjectState projectState, PluginConfigFactory pluginCfgFactory, String pluginName) {
+      return of(
+          pluginCfgFactory
+              .getFromProjectConfigWithInheritance(projectState, pluginName)
+              .getStringList("branch"));
+    }
+
+    static Branches of(String[] refPatterns) {
+      if (refPatterns.length == 0) {
+        return ALL;
+      }
+      ImmutableList.Builder<RefPatternMatcher> matchers = ImmutableList.builder();
+      for (String refPattern : refPatterns) {
+        if (AccessSection.isValidRefSectionName(refPattern)) {
+          matchers.add(RefPatternMatcher.getMatcher(refPattern));
+        }
+      }
+      return new Branches(false, matchers.build());
+    }
+
+    boolean match(String refName) {
+      if (all) {
+        return true;
+      }
+      for (RefPatternMatcher matcher : matchers) {
+        if (matcher.match(refName, null)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
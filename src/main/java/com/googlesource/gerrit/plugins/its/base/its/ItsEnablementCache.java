@@ -0,0 +1,105 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.its;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.config.PluginConfigFactory;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Named;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+/** Cache of the resolved enablement of projects. */
+@Singleton
+public class ItsEnablementCache {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  static final String CACHE_NAME = "its_enablement";
+
+  private final LoadingCache<Project.NameKey, Optional<ItsEnablement>> cache;
+
+  @Inject
+  ItsEnablementCache(
+      @Named(CACHE_NAME) LoadingCache<Project.NameKey, Optional<ItsEnablement>> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the enablement of a project.
+   *
+   * @param projectName The project to get the enablement of.
+   * @return The project's enablement, or empty, if the project does not exist.
+   */
+  Optional<ItsEnablement> get(Project.NameKey projectName) {
+    try {
+      return cache.get(projectName);
+    } catch (ExecutionException e) {
+      logger.atWarning().withCause(e).log("Cannot get enablement of project %s", projectName);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Invalidates the enablement of a project.
+   *
+   * @param projectName The project to invalidate the enablement of.
+   */
+  public void evict(Project.NameKey projectName) {
+    cache.invalidate(projectName);
+  }
+
+  public static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Project.NameKey.class, new TypeLiteral<Optional<ItsEnablement>>() {})
+            .loader(Loader.class);
+
+        bind(ItsEnablementCache.class);
+      }
+    };
+  }
+
+  static class Loader extends CacheLoader<Project.NameKey, Optional<ItsEnablement>> {
+    private final String pluginName;
+    private final ProjectCache projectCache;
+    private final PluginConfigFactory pluginCfgFactory;
+
+    @Inject
+    Loader(
+        @PluginName String pluginName,
+        ProjectCache projectCache,
+        PluginConfigFactory pluginCfgFactory) {
+      this.pluginName = pluginName;
+      this.projectCache = projectCache;
+      this.pluginCfgFactory = pluginCfgFactory;
+    }
+
+    @Override
+    public Optional<ItsEnablement> load(Project.NameKey projectName) {
+      return projectCache
+          .get(projectName)
+          .map(projectState -> ItsEnablement.create(projectState, pluginCfgFactory, pluginName));
+    }
+  }
+}
@@ -0,0 +1,84 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.its;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.extensions.api.GerritApi;
+import com.google.gerrit.extensions.common.ProjectInfo;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.its.base.workflow.ItsRulesProjectCache;
+import com.googlesource.gerrit.plugins.its.base.workflow.PropertyProjectionCache;
+
+/**
+ * Invalidates the cached per-project settings upon configuration changes.
+ *
+ * <p>Rules, enablement, and the other settings of a project may be inherited from any of its
+ * ancestors, not only from its parent. For example, a project without rules of its own uses the
+ * rules of its nearest ancestor that has some. So besides the updated project, all of its
+ * descendants get evicted. Listing them is one query per {@code refs/meta/config} update, which are
+ * rare compared to the events that read the caches.
+ */
+public class ItsProjectCachesRefresher implements GitReferenceUpdatedListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final GerritApi gApi;
+  private final ItsRulesProjectCache rulesProjectCache;
+  private final ItsEnablementCache enablementCache;
+  private final ItsProjectConfigCache projectConfigCache;
+  private final PropertyProjectionCache propertyProjectionCache;
+
+  @Inject
+  ItsProjectCachesRefresher(
+      GerritApi gApi,
+      ItsRulesProjectCache rulesProjectCache,
+      ItsEnablementCache enablementCache,
+      ItsProjectConfigCache projectConfigCache,
+      PropertyProjectionCache propertyProjectionCache) {
+    this.gApi = gApi;
+    this.rulesProjectCache = rulesProjectCache;
+    this.enablementCache = enablementCache;
+    this.projectConfigCache = projectConfigCache;
+    this.propertyProjectionCache = propertyProjectionCache;
+  }
+
+  @Override
+  public void onGitReferenceUpdated(Event event) {
+    if (!event.getRefName().equals(RefNames.REFS_CONFIG)) {
+      return;
+    }
+    String projectName = event.getProjectName();
+    evict(projectName);
+    try {
+      for (ProjectInfo descendant : gApi.projects().name(projectName).children(true)) {
+        evict(descendant.name);
+      }
+    } catch (RestApiException e) {
+      logger.atWarning().withCause(e).log(
+          "Unable to evict ITS caches of children of %s", projectName);
+    }
+  }
+
+  private void evict(String projectName) {
+    rulesProjectCache.evict(projectName);
+    propertyProjectionCache.evict(projectName);
+    Project.NameKey projectNameKey = Project.nameKey(projectName);
+    enablementCache.evict(projectNameKey);
+    projectConfigCache.evict(projectNameKey);
+  }
+}
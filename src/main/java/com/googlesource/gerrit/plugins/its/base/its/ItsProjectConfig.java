@@ -0,0 +1,116 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.its;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Project;
+import com.googlesource.gerrit.plugins.its.base.validation.ItsAssociationPolicy;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * The plugin's settings for a project, as resolved at a given point in time.
+ *
+ * <p>Unlike the per-project getters of {@link ItsConfig}, a snapshot does not depend on the
+ * thread it is used on, and reads the project's configuration only once. It gets resolved through
+ * {@link ItsConfig#getProjectConfig(Project.NameKey)}.
+ */
+public class ItsProjectConfig {
+  private final Project.NameKey projectName;
+  private final String commentLinkName;
+  private final ImmutableList<Pattern> issuePatterns;
+  private final int[] issuePatternGroupIndexes;
+  private final ItsAssociationPolicy associationPolicy;
+  private final Optional<Pattern> dummyIssuePattern;
+  private final Optional<String> itsProjectName;
+
+  /**
+   * Constructs a snapshot.
+   *
+   * @param projectName The project the settings are for.
+   * @param commentLinkName The name of the comment link that should be used.
+   * @param issuePatterns The regular expressions used to identify issue ids.
+   * @param issuePatternGroupIndexes For each of the {@code issuePatterns}, the index of the group
+   *     that holds the issue id.
+   * @param associationPolicy How necessary it is to associate commits with issues.
+   * @param dummyIssuePattern Pattern to skip the mandatory check for an issue.
+   * @param itsProjectName The ITS project the project is associated with.
+   */
+  public ItsProjectConfig(
+      Project.NameKey projectName,
+      String commentLinkName,
+      List<Pattern> issuePatterns,
+      int[] issuePatternGroupIndexes,
+      ItsAssociationPolicy associationPolicy,
+      Optional<Pattern> dummyIssuePattern,
+      Optional<String> itsProjectName) {
+    if (issuePatterns.size() != issuePatternGroupIndexes.length) {
+      throw new IllegalArgumentException("Each issue pattern needs a group index");
+    }
+    this.projectName = projectName;
+    this.commentLinkName = commentLinkName;
+    this.issuePatterns = ImmutableList.copyOf(issuePatterns);
+    this.issuePatternGroupIndexes = issuePatternGroupIndexes.clone();
+    this.associationPolicy = associationPolicy;
+    this.dummyIssuePattern = dummyIssuePattern;
+    this.itsProjectName = itsProjectName;
+  }
+
+  /** @return The project the settings are for. */
+  public Project.NameKey getProjectName() {
+    return projectName;
+  }
+
+  /** @return The name of the comment link that should be used. */
+  public String getCommentLinkName() {
+    return commentLinkName;
+  }
+
+  /**
+   * Gets the regular expressions used to identify issue ids.
+   *
+   * @return the regular expressions. The list is empty, if there is no pattern to match issue ids.
+   */
+  public List<Pattern> getIssuePatterns() {
+    return issuePatterns;
+  }
+
+  /**
+   * Gets the index of the group in an issue pattern that holds the issue id.
+   *
+   * @param patternIndex The index of the pattern in {@link #getIssuePatterns()}.
+   * @return the group index that holds the issue id. The group index is guaranteed to be a valid
+   *     group index.
+   */
+  public int getIssuePatternGroupIndex(int patternIndex) {
+    return issuePatternGroupIndexes[patternIndex];
+  }
+
+  /** @return How necessary it is to associate commits with issues. */
+  public ItsAssociationPolicy getItsAssociationPolicy() {
+    return associationPolicy;
+  }
+
+  /** @return Pattern to skip the mandatory check for an issue, if configured. */
+  public Optional<Pattern> getDummyIssuePattern() {
+    return dummyIssuePattern;
+  }
+
+  /** @return The ITS project the project is associated with, if configured. */
+  public Optional<String> getItsProjectName() {
+    return itsProjectName;
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.its;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/** Cache of the resolved settings of projects. */
+@Singleton
+public class ItsProjectConfigCache {
+  static final String CACHE_NAME = "its_project_configs";
+
+  private final LoadingCache<Project.NameKey, ItsProjectConfig> cache;
+
+  @Inject
+  ItsProjectConfigCache(@Named(CACHE_NAME) LoadingCache<Project.NameKey, ItsProjectConfig> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the settings of a project.
+   *
+   * @param projectName The project to get the settings of.
+   * @return The project's settings.
+   */
+  ItsProjectConfig get(Project.NameKey projectName) {
+    try {
+      return cache.getUnchecked(projectName);
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Invalidates the settings of a project.
+   *
+   * @param projectName The project to invalidate the settings of.
+   */
+  public void evict(Project.NameKey projectName) {
+    cache.invalidate(projectName);
+  }
+
+  public static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Project.NameKey.class, ItsProjectConfig.class).loader(Loader.class);
+
+        bind(ItsProjectConfigCache.class);
+      }
+    };
+  }
+
+  static class Loader extends CacheLoader<Project.NameKey, ItsProjectConfig> {
+    private final Provider<ItsConfig> itsConfig;
+
+    @Inject
+    Loader(Provider<ItsConfig> itsConfig) {
+      this.itsConfig = itsConfig;
+    }
+
+    @Override
+    public ItsProjectConfig load(Project.NameKey projectName) {
+      return itsConfig.get().loadProjectConfig(projectName);
+    }
+  }
+}
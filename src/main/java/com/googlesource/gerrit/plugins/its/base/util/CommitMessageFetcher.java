@@ -2,53 +2,267 @@ package com.googlesource.gerrit.plugins.its.base.util;
 
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.inject.Inject;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectStream;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevObject;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.RawParseUtils;
 
 public class CommitMessageFetcher {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  private static final int INITIAL_BUFFER_SIZE = 8192;
+
   private final GitRepositoryManager repoManager;
 
+  /** Maximum number of bytes to read of a commit message, or 0, to read them fully. */
+  private final int maxMessageSize;
+
   @Inject
-  CommitMessageFetcher(GitRepositoryManager repoManager) {
+  CommitMessageFetcher(
+      GitRepositoryManager repoManager,
+      @PluginName String pluginName,
+      @GerritServerConfig Config gerritConfig) {
     this.repoManager = repoManager;
+    this.maxMessageSize =
+        Math.max(0, gerritConfig.getInt("plugin", pluginName, "maxCommitMessageSize", 0));
   }
 
   public String fetch(String projectName, String objectId) throws IOException {
-    try (Repository repo = repoManager.openRepository(Project.nameKey(projectName))) {
-      try (RevWalk revWalk = new RevWalk(repo)) {
-        RevObject obj = revWalk.peel(revWalk.parseAny(ObjectId.fromString(objectId)));
-        if (obj instanceof RevCommit) {
-          return ((RevCommit) obj).getFullMessage();
+    try (Session session = openSession(projectName)) {
+      return session.fetch(objectId);
+    }
+  }
+
+  public String fetchGuarded(String projectName, String objectId) {
+    try (Session session = openSession(projectName)) {
+      return session.fetchGuarded(objectId);
+    }
+  }
+
+  /**
+   * Opens a session to fetch the commit messages of several commits of a project.
+   *
+   * <p>The session opens the repository upon the first fetch and keeps it, and a single {@link
+   * RevWalk} on it, open until the session gets closed.
+   *
+   * @param projectName The project to fetch commit messages from.
+   * @return The session. Callers have to close it.
+   */
+  public Session openSession(String projectName) {
+    return new RepositorySession(projectName);
+  }
+
+  /** Fetches commit messages of a single project. */
+  public interface Session extends AutoCloseable {
+    /** @return The name of the project this session fetches commit messages from. */
+    String getProjectName();
+
+    /**
+     * Fetches the commit message of an object.
+     *
+     * @param objectId The object to fetch the commit message of.
+     * @return The commit message, or the empty string, if the object is not a commit.
+     */
+    String fetch(String objectId) throws IOException;
+
+    /**
+     * Fetches the commit message of an object, logging failures.
+     *
+     * @param objectId The object to fetch the commit message of.
+     * @return The commit message, or the empty string, if the object is not a commit or the commit
+     *     message could not be fetched.
+     */
+    String fetchGuarded(String objectId);
+
+    @Override
+    void close();
+  }
+
+  private class RepositorySession implements Session {
+    private final String projectName;
+    private Repository repo;
+    private RevWalk revWalk;
+
+    /** Buffer for reading bounded commit messages, reused across the session's commits. */
+    private byte[] buffer;
+
+    RepositorySession(String projectName) {
+      this.projectName = projectName;
+    }
+
+    @Override
+    public String getProjectName() {
+      return projectName;
+    }
+
+    @Override
+    public String fetch(String objectId) throws IOException {
+      if (revWalk == null) {
+        repo = repoManager.openRepository(Project.nameKey(projectName));
+        revWalk = new RevWalk(repo);
+      }
+      if (maxMessageSize > 0) {
+        return fetchBounded(ObjectId.fromString(objectId));
+      }
+      RevObject obj = revWalk.peel(revWalk.parseAny(ObjectId.fromString(objectId)));
+      if (obj instanceof RevCommit) {
+        RevCommit commit = (RevCommit) obj;
+        String message = commit.getFullMessage();
+        // Sessions may walk many commits, so we do not hold on to their raw bodies.
+        commit.disposeBody();
+        return message;
+      }
+      // objectId was found, but it's not a commit.
+      // Since the objectId was found, it's nothing to worry about and we do not need to alert the
+      // user. We silently return the empty string as blobs, trees, ... do not have a proper
+      // commit message.
+      //
+      // Parsing a non-commit objectId (and reaching this point) will happen for example on NoteDB
+      // sites when Gerrit updates `refs/sequences/changes` (which does not point at a commit, but
+      // a blob) on All-Projects and the corresponding RefUpdatedEvent gets processed.
+      return "";
+    }
+
+    /**
+     * Fetches at most {@code maxMessageSize} bytes of a commit message.
+     *
+     * <p>Parsing a commit through the {@link RevWalk} would load the whole commit into memory.
+     * Instead, the commit gets streamed from its object loader into the session's buffer, and
+     * reading stops once the message is long enough.
+     */
+    private String fetchBounded(ObjectId id) throws IOException {
+      ObjectReader reader = revWalk.getObjectReader();
+      ObjectLoader loader = reader.open(id);
+      int type = loader.getType();
+      if (type == Constants.OBJ_TAG) {
+        // Tags are small, so they can get parsed as usual.
+        RevObject target = revWalk.peel(revWalk.parseAny(id));
+        if (!(target instanceof RevCommit)) {
+          return "";
         }
-        // objectId was found, but it's not a commit.
-        // Since the objectId was found, it's nothing to worry about and we do not need to alert the
-        // user. We silently return the empty string as blobs, trees, ... do not have a proper
-        // commit message.
-        //
-        // Parsing a non-commit objectId (and reaching this point) will happen for example on NoteDB
-        // sites when Gerrit updates `refs/sequences/changes` (which does not point at a commit, but
-        // a blob) on All-Projects and the corresponding RefUpdatedEvent gets processed.
+        loader = reader.open(target);
+        type = loader.getType();
+      }
+      if (type != Constants.OBJ_COMMIT) {
+        // See fetch for why non-commits get silently ignored.
         return "";
       }
+      return readMessage(loader, id);
     }
-  }
 
-  public String fetchGuarded(String projectName, String objectId) {
-    String ret = "";
-    try {
-      ret = fetch(projectName, objectId);
-    } catch (IOException e) {
-      logger.atSevere().withCause(e).log(
-          "Could not fetch commit message for commit %s of project %s", objectId, projectName);
-    }
-    return ret;
+    private String readMessage(ObjectLoader loader, ObjectId id) throws IOException {
+      if (buffer == null) {
+        buffer = new byte[INITIAL_BUFFER_SIZE];
+      }
+      int length = 0;
+      int messageStart = -1;
+      boolean truncated = false;
+      try (ObjectStream in = loader.openStream()) {
+        while (true) {
+          int limit = messageStart < 0 ? Integer.MAX_VALUE : messageLimit(messageStart);
+          if (length >= limit) {
+            truncated = length > limit || in.read() >= 0;
+            break;
+          }
+          if (length == buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(limit, 2L * buffer.length));
+          }
+          int read = in.read(buffer, length, Math.min(buffer.length, limit) - length);
+          if (read < 0) {
+            break;
+          }
+          if (messageStart < 0) {
+            messageStart = findMessageStart(Math.max(0, length - 1), length + read);
+          }
+          length += read;
+        }
+      }
+      if (messageStart < 0) {
+        return "";
+      }
+      int end = Math.min(length, messageLimit(messageStart));
+      if (truncated) {
+        // Only scan complete lines, so issue ids do not get cut in half.
+        int lastLineEnd = end;
+        while (lastLineEnd > messageStart && buffer[lastLineEnd - 1] != '\n') {
+          lastLineEnd--;
+        }
+        if (lastLineEnd > messageStart) {
+          end = lastLineEnd;
+        }
+        logger.atFine().log(
+            "Commit message of %s in project %s exceeds %d bytes and got truncated",
+            id.name(), projectName, maxMessageSize);
+      }
+      return RawParseUtils.decode(getEncoding(), buffer, messageStart, end);
+    }
+
+    private int messageLimit(int messageStart) {
+      return (int) Math.min(Integer.MAX_VALUE, (long) messageStart + maxMessageSize);
+    }
+
+    /**
+     * Finds the start of the commit message in the buffer.
+     *
+     * @return the offset after the blank line that ends the commit's headers, or -1, if the
+     *     headers do not end within {@code from} and {@code to}.
+     */
+    private int findMessageStart(int from, int to) {
+      for (int i = from; i + 1 < to; i++) {
+        if (buffer[i] == '\n' && buffer[i + 1] == '\n') {
+          return i + 2;
+        }
+      }
+      return -1;
+    }
+
+    private Charset getEncoding() {
+      try {
+        return RawParseUtils.parseEncoding(buffer);
+      } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+        return StandardCharsets.UTF_8;
+      }
+    }
+
+    @Override
+    public String fetchGuarded(String objectId) {
+      String ret = "";
+      try {
+        ret = fetch(objectId);
+      } catch (IOException e) {
+        logger.atSevere().withCause(e).log(
+            "Could not fetch commit message for commit %s of project %s", objectId, projectName);
+      }
+      return ret;
+    }
+
+    @Override
+    public void close() {
+      if (revWalk != null) {
+        revWalk.close();
+        revWalk = null;
+      }
+      if (repo != null) {
+        repo.close();
+        repo = null;
+      }
+    }
   }
 }
@@ -0,0 +1,174 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.PatchSet;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Named;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cache of the issue associations found in commit messages.
+ *
+ * <p>Commit messages never change, so the associations of a commit only depend on the commit and
+ * on the pattern used to find issue ids in it. The same holds for the "added@" occurrences of a
+ * patch set, as patch sets never change either.
+ */
+@Singleton
+public class IssueAssociationCache {
+  static final String CACHE_NAME = "its_issue_associations";
+
+  private final Cache<Key, ImmutableMap<String, ImmutableSet<String>>> cache;
+
+  @Inject
+  IssueAssociationCache(
+      @Named(CACHE_NAME) Cache<Key, ImmutableMap<String, ImmutableSet<String>>> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the cached associations for a key.
+   *
+   * @param key The key to get the associations for.
+   * @return A mutable copy of the cached associations, so callers may amend it freely. {@code
+   *     null}, if no associations are cached for the key.
+   */
+  @Nullable
+  public Map<String, Set<String>> getIfPresent(Key key) {
+    ImmutableMap<String, ImmutableSet<String>> associations = cache.getIfPresent(key);
+    return associations != null ? thaw(associations) : null;
+  }
+
+  /**
+   * Caches the associations for a key.
+   *
+   * @param key The key to cache the associations for.
+   * @param associations The associations to cache. Later modifications of this map do not affect
+   *     the cached associations.
+   */
+  public void put(Key key, Map<String, Set<String>> associations) {
+    cache.put(key, freeze(associations));
+  }
+
+  private static ImmutableMap<String, ImmutableSet<String>> freeze(
+      Map<String, Set<String>> associations) {
+    ImmutableMap.Builder<String, ImmutableSet<String>> builder = ImmutableMap.builder();
+    for (Map.Entry<String, Set<String>> entry : associations.entrySet()) {
+      builder.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+    }
+    return builder.build();
+  }
+
+  private static Map<String, Set<String>> thaw(
+      ImmutableMap<String, ImmutableSet<String>> associations) {
+    Map<String, Set<String>> ret = Maps.newHashMap();
+    for (Map.Entry<String, ImmutableSet<String>> entry : associations.entrySet()) {
+      ret.put(entry.getKey(), Sets.newLinkedHashSet(entry.getValue()));
+    }
+    return ret;
+  }
+
+  public static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(
+                CACHE_NAME,
+                Key.class,
+                new TypeLiteral<ImmutableMap<String, ImmutableSet<String>>>() {})
+            .maximumWeight(4096);
+
+        bind(IssueAssociationCache.class);
+      }
+    };
+  }
+
+  /**
+   * Identifies the associations of a commit for a given issue pattern.
+   *
+   * <p>If a patch set is given, the associations also hold the occurrences that got added compared
+   * to the previous patch set.
+   */
+  public static class Key {
+    private final String projectName;
+    private final String commitId;
+    @Nullable private final PatchSet.Id patchSetId;
+    private final String patternFingerprint;
+
+    /**
+     * @param projectName The project the commit belongs to.
+     * @param commitId The commit to get the associations of.
+     * @param patchSetId The patch set of the commit, if "added@" occurrences are included. {@code
+     *     null} otherwise.
+     * @param patternFingerprint Identifies the issue pattern and group index used to find issue
+     *     ids.
+     */
+    public Key(
+        String projectName,
+        String commitId,
+        @Nullable PatchSet.Id patchSetId,
+        String patternFingerprint) {
+      this.projectName = projectName;
+      this.commitId = commitId;
+      this.patchSetId = patchSetId;
+      this.patternFingerprint = patternFingerprint;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return projectName.equals(other.projectName)
+          && commitId.equals(other.commitId)
+          && Objects.equals(patchSetId, other.patchSetId)
+          && patternFingerprint.equals(other.patternFingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(projectName, commitId, patchSetId, patternFingerprint);
+    }
+
+    @Override
+    public String toString() {
+      return "["
+          + projectName
+          + ", "
+          + commitId
+          + ", "
+          + patchSetId
+          + ", "
+          + patternFingerprint
+          + "]";
+    }
+  }
+}
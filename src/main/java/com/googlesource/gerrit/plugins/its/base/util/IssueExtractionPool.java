@@ -0,0 +1,113 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.util;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.base.Throwables;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.lifecycle.LifecycleModule;
+import com.google.gerrit.server.config.GerritServerConfig;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import org.eclipse.jgit.lib.Config;
+
+/**
+ * Bounded pool to match many commit messages against the issue patterns in parallel.
+ *
+ * <p>Actions like {@code fire-event-on-commits} may process thousands of commits. Reading their
+ * commit messages is cheap compared to matching them, so only the matching gets spread over the
+ * pool. The pool's size is {@code plugin.<name>.issueExtractionThreads} in {@code gerrit.config}
+ * and defaults to the number of available processors. With a size of 1, or while the plugin is not
+ * started, all work happens on the calling thread.
+ */
+@Singleton
+public class IssueExtractionPool implements LifecycleListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final int parallelism;
+  private volatile ForkJoinPool pool;
+
+  @Inject
+  IssueExtractionPool(@PluginName String pluginName, @GerritServerConfig Config gerritConfig) {
+    this(
+        gerritConfig.getInt(
+            "plugin",
+            pluginName,
+            "issueExtractionThreads",
+            Runtime.getRuntime().availableProcessors()));
+  }
+
+  IssueExtractionPool(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  public void start() {
+    if (parallelism > 1) {
+      pool = new ForkJoinPool(parallelism);
+      logger.atFine().log("Started issue extraction pool with %d threads", parallelism);
+    }
+  }
+
+  @Override
+  public void stop() {
+    ForkJoinPool current = pool;
+    pool = null;
+    if (current != null) {
+      current.shutdownNow();
+    }
+  }
+
+  /**
+   * Applies a function to each input, in parallel if possible.
+   *
+   * @param inputs The inputs to apply the function to.
+   * @param function The function to apply. It has to be safe to call from several threads.
+   * @return The function's results, in the order of the inputs.
+   */
+  public <T, R> List<R> map(List<T> inputs, Function<? super T, ? extends R> function) {
+    ForkJoinPool current = pool;
+    if (current == null || inputs.size() < 2) {
+      return inputs.stream().map(function).collect(toList());
+    }
+    try {
+      // Parallel streams run on the pool that they get started from.
+      return current.submit(() -> inputs.parallelStream().map(function).collect(toList())).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while extracting issues", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException("Cannot extract issues", e.getCause());
+    }
+  }
+
+  public static Module module() {
+    return new LifecycleModule() {
+      @Override
+      protected void configure() {
+        listener().to(IssueExtractionPool.class);
+      }
+    };
+  }
+}
@@ -2,97 +2,187 @@ package com.googlesource.gerrit.plugins.its.base.util;
 
 import static java.util.Arrays.copyOfRange;
 
-import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.entities.PatchSet;
-import com.google.gerrit.extensions.api.GerritApi;
-import com.google.gerrit.extensions.client.ListChangesOption;
-import com.google.gerrit.extensions.common.ChangeInfo;
-import com.google.gerrit.extensions.common.RevisionInfo;
-import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.inject.ImplementedBy;
 import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.its.base.its.ItsConfig;
-import java.util.EnumSet;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectConfig;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 
 public class IssueExtractor {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final int MAX_CACHED_MATCHERS = 64;
 
   private final CommitMessageFetcher commitMessageFetcher;
   private final PatchSetDb db;
   private final ItsConfig itsConfig;
+  private final IssueAssociationCache associationCache;
+  private final IssueExtractionPool extractionPool;
+  /**
+   * The matchers of the recently used issue patterns, by fingerprint. Projects mostly share the
+   * patterns of a few comment links, so few matchers get compiled.
+   */
+  private final Cache<String, IssueMatcher> issueMatchers =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_MATCHERS).build();
 
   @ImplementedBy(PatchSetDbImpl.class)
   public interface PatchSetDb {
-    public String getRevision(PatchSet.Id patchSetId);
+    public String getRevision(Project.NameKey projectName, PatchSet.Id patchSetId);
   }
 
   public static class PatchSetDbImpl implements PatchSetDb {
-    private final GerritApi gApi;
+    static final String CACHE_NAME = "its_patch_set_revisions";
+
+    private final GitRepositoryManager repoManager;
+    private final Cache<PatchSet.Id, String> revisions;
 
     @Inject
-    public PatchSetDbImpl(GerritApi gApi) {
-      this.gApi = gApi;
+    public PatchSetDbImpl(
+        GitRepositoryManager repoManager,
+        @Named(CACHE_NAME) Cache<PatchSet.Id, String> revisions) {
+      this.repoManager = repoManager;
+      this.revisions = revisions;
     }
 
     @Override
-    public String getRevision(PatchSet.Id patchSetId) {
-      try {
-        ChangeInfo info =
-            gApi.changes()
-                .id(patchSetId.changeId().get())
-                .get(EnumSet.of(ListChangesOption.ALL_REVISIONS));
-        for (Map.Entry<String, RevisionInfo> e : info.revisions.entrySet()) {
-          if (e.getValue()._number == patchSetId.get()) {
-            return e.getKey();
+    public String getRevision(Project.NameKey projectName, PatchSet.Id patchSetId) {
+      // Patch set refs never get rewritten, so once found, a revision stays valid.
+      String revision = revisions.getIfPresent(patchSetId);
+      if (revision == null) {
+        try (Repository repo = repoManager.openRepository(projectName)) {
+          Ref ref = repo.exactRef(patchSetId.toRefName());
+          if (ref != null && ref.getObjectId() != null) {
+            revision = ref.getObjectId().name();
+            revisions.put(patchSetId, revision);
           }
+        } catch (IOException e) {
+          // revision is still null to indicate that there was no previous
+          // accessible patch set. We treat every occurrence as added.
+          logger.atFine().withCause(e).log(
+              "Cannot resolve %s in project %s", patchSetId.toRefName(), projectName);
         }
-        return null;
-      } catch (RestApiException e) {
-        // previous is still empty to indicate that there was no previous
-        // accessible patch set. We treat every occurrence as added.
       }
-      return null;
+      return revision;
+    }
+
+    public static Module module() {
+      return new CacheModule() {
+        @Override
+        protected void configure() {
+          cache(CACHE_NAME, PatchSet.Id.class, String.class).maximumWeight(4096);
+        }
+      };
     }
   }
 
   @Inject
-  IssueExtractor(ItsConfig itsConfig, CommitMessageFetcher commitMessageFetcher, PatchSetDb db) {
+  IssueExtractor(
+      ItsConfig itsConfig,
+      CommitMessageFetcher commitMessageFetcher,
+      PatchSetDb db,
+      IssueAssociationCache associationCache,
+      IssueExtractionPool extractionPool) {
     this.commitMessageFetcher = commitMessageFetcher;
     this.db = db;
     this.itsConfig = itsConfig;
+    this.associationCache = associationCache;
+    this.extractionPool = extractionPool;
   }
 
   /**
    * Gets issue ids from a string.
    *
+   * <p>The issue patterns get resolved for the project set through {@link
+   * ItsConfig#setCurrentProjectName}. Prefer {@link #getIssueIds(ItsProjectConfig, String)}.
+   *
    * @param haystack String to extract issue ids from
    * @return array of {@link String}. Each String being a found issue id.
    */
   public String[] getIssueIds(String haystack) {
-    Pattern pattern = itsConfig.getIssuePattern();
-    if (pattern == null) return new String[] {};
+    return toArray(findIssueIds(getCurrentProjectIssueMatcher(), haystack));
+  }
 
-    logger.atFine().log("Matching '%s' against '%s'", haystack, pattern.pattern());
+  /**
+   * Gets issue ids from a string.
+   *
+   * @param projectConfig The settings of the project the string belongs to.
+   * @param haystack String to extract issue ids from
+   * @return array of {@link String}. Each String being a found issue id.
+   */
+  public String[] getIssueIds(ItsProjectConfig projectConfig, String haystack) {
+    return toArray(findIssueIds(getIssueMatcher(projectConfig), haystack));
+  }
 
-    Set<String> issues = Sets.newHashSet();
-    Matcher matcher = pattern.matcher(haystack);
+  private static String[] toArray(Set<String> issues) {
+    return issues.toArray(new String[issues.size()]);
+  }
 
-    int groupIdx = itsConfig.getIssuePatternGroupIndex();
-    while (matcher.find()) {
-      String issueId = matcher.group(groupIdx);
-      if (!Strings.isNullOrEmpty(issueId)) {
-        issues.add(issueId);
-      }
+  private Set<String> findIssueIds(@Nullable IssueMatcher matcher, String haystack) {
+    if (matcher == null) {
+      return Collections.emptySet();
     }
 
-    return issues.toArray(new String[issues.size()]);
+    logger.atFine().log("Matching '%s' against %s", haystack, matcher);
+
+    return matcher.findIssueIds(haystack);
+  }
+
+  /**
+   * @return The matcher for the issue patterns of the project set through {@link
+   *     ItsConfig#setCurrentProjectName}, or null, if there are none.
+   */
+  @Nullable
+  private IssueMatcher getCurrentProjectIssueMatcher() {
+    List<Pattern> patterns = itsConfig.getIssuePatterns();
+    int[] groupIndexes = new int[patterns.size()];
+    for (int i = 0; i < patterns.size(); i++) {
+      groupIndexes[i] = itsConfig.getIssuePatternGroupIndex(patterns.get(i));
+    }
+    return getIssueMatcher(patterns, groupIndexes);
+  }
+
+  /** @return The matcher for the project's issue patterns, or null, if there are none. */
+  @Nullable
+  private IssueMatcher getIssueMatcher(ItsProjectConfig projectConfig) {
+    List<Pattern> patterns = projectConfig.getIssuePatterns();
+    int[] groupIndexes = new int[patterns.size()];
+    for (int i = 0; i < patterns.size(); i++) {
+      groupIndexes[i] = projectConfig.getIssuePatternGroupIndex(i);
+    }
+    return getIssueMatcher(patterns, groupIndexes);
+  }
+
+  @Nullable
+  private IssueMatcher getIssueMatcher(List<Pattern> patterns, int[] groupIndexes) {
+    if (patterns.isEmpty()) {
+      return null;
+    }
+    String fingerprint = IssueMatcher.fingerprint(patterns, groupIndexes);
+    IssueMatcher matcher = issueMatchers.getIfPresent(fingerprint);
+    if (matcher == null) {
+      matcher = IssueMatcher.create(patterns, groupIndexes);
+      issueMatchers.put(fingerprint, matcher);
+    }
+    return matcher;
   }
 
   /**
@@ -101,12 +191,14 @@ public class IssueExtractor {
    * <p>Adds a text's issues for a given occurrence to the map returned by {@link
    * #getIssueIds(String, String)}.
    *
+   * @param matcher The matcher for the issue patterns.
    * @param text The text to extract issues from.
    * @param occurrence The occurrence the issues get added at in {@code map}.
    * @param map The map that the issues should get added to.
    */
-  private void addIssuesOccurrence(String text, String occurrence, Map<String, Set<String>> map) {
-    for (String issue : getIssueIds(text)) {
+  private void addIssuesOccurrence(
+      IssueMatcher matcher, String text, String occurrence, Map<String, Set<String>> map) {
+    for (String issue : findIssueIds(matcher, text)) {
       Set<String> occurrences = map.computeIfAbsent(issue, k -> Sets.newLinkedHashSet());
       occurrences.add(occurrence);
     }
@@ -124,14 +216,126 @@ public class IssueExtractor {
    */
   public Map<String, Set<String>> getIssueIds(String projectName, String commitId) {
     Map<String, Set<String>> ret = Maps.newHashMap();
-    String commitMessage = commitMessageFetcher.fetchGuarded(projectName, commitId);
-    addIssueIdsFromCommitMessage(ret, commitMessage);
+    IssueMatcher matcher = getIssueMatcher(getProjectConfig(projectName));
+    if (matcher != null) {
+      try (CommitMessageFetcher.Session session = commitMessageFetcher.openSession(projectName)) {
+        addIssueIdsFromCommit(ret, session, commitId, matcher);
+      }
+    }
     return ret;
   }
 
+  /**
+   * Gets issues for several commits of a project.
+   *
+   * <p>All commit messages get fetched through a single repository session. Matching them against
+   * the issue patterns happens in parallel on the {@link IssueExtractionPool}.
+   *
+   * @param projectName The project to fetch {@code commitIds} from.
+   * @param commitIds The commit ids to fetch issues for.
+   * @return For each of the {@code commitIds} (in the same order) the issues of the commit as
+   *     described in {@link #getIssueIds(String, String)}.
+   */
+  public List<Map<String, Set<String>>> getIssueIdsFromCommits(
+      String projectName, List<String> commitIds) {
+    IssueMatcher matcher = getIssueMatcher(getProjectConfig(projectName));
+    if (matcher == null) {
+      List<Map<String, Set<String>>> ret = new ArrayList<>(commitIds.size());
+      for (int i = 0; i < commitIds.size(); i++) {
+        ret.add(Maps.newHashMap());
+      }
+      return ret;
+    }
+
+    // Object readers are not thread-safe, so the commit messages get fetched on this thread.
+    List<FetchedCommit> commits = new ArrayList<>(commitIds.size());
+    try (CommitMessageFetcher.Session session = commitMessageFetcher.openSession(projectName)) {
+      for (String commitId : commitIds) {
+        commits.add(fetchCommit(session, commitId, matcher));
+      }
+    }
+    return extractionPool.map(commits, commit -> getIssueIds(commit, matcher));
+  }
+
+  /** Looks up the cached issues of a commit, and fetches its message if they are not cached. */
+  private FetchedCommit fetchCommit(
+      CommitMessageFetcher.Session session, String commitId, IssueMatcher matcher) {
+    // Commit messages are immutable, so the associations of a commit only change if the patterns
+    // do.
+    IssueAssociationCache.Key key =
+        new IssueAssociationCache.Key(
+            session.getProjectName(), commitId, null, matcher.getFingerprint());
+    Map<String, Set<String>> cached = associationCache.getIfPresent(key);
+    if (cached != null) {
+      return new FetchedCommit(key, cached, null);
+    }
+    return new FetchedCommit(key, null, session.fetchGuarded(commitId));
+  }
+
+  /** Gets the issues of a fetched commit, and caches them if they can be relied upon. */
+  private Map<String, Set<String>> getIssueIds(FetchedCommit commit, IssueMatcher matcher) {
+    if (commit.cached != null) {
+      return commit.cached;
+    }
+    Map<String, Set<String>> ret = Maps.newHashMap();
+    addIssueIdsFromCommitMessage(ret, commit.commitMessage, matcher);
+    if (commit.isReliable()) {
+      associationCache.put(commit.key, ret);
+    }
+    return ret;
+  }
+
+  /** A commit whose issues are either cached, or have to be extracted from its message. */
+  private static class FetchedCommit {
+    final IssueAssociationCache.Key key;
+    @Nullable final Map<String, Set<String>> cached;
+    @Nullable final String commitMessage;
+
+    FetchedCommit(
+        IssueAssociationCache.Key key,
+        @Nullable Map<String, Set<String>> cached,
+        @Nullable String commitMessage) {
+      this.key = key;
+      this.cached = cached;
+      this.commitMessage = commitMessage;
+    }
+
+    /**
+     * @return True, if the issues are cached or the commit message got fetched properly. An empty
+     *     message may stem from a failed fetch, so only issues of proper messages get cached.
+     */
+    boolean isReliable() {
+      return cached != null || !commitMessage.isEmpty();
+    }
+  }
+
+  private ItsProjectConfig getProjectConfig(String projectName) {
+    return itsConfig.getProjectConfig(Project.nameKey(projectName));
+  }
+
+  /**
+   * Adds the issues of a commit to a map of associations.
+   *
+   * @return true, if the added issues can be relied upon and got cached. False, if the commit
+   *     message could not be fetched.
+   */
+  private boolean addIssueIdsFromCommit(
+      Map<String, Set<String>> ret,
+      CommitMessageFetcher.Session session,
+      String commitId,
+      IssueMatcher matcher) {
+    FetchedCommit commit = fetchCommit(session, commitId, matcher);
+    ret.putAll(getIssueIds(commit, matcher));
+    return commit.isReliable();
+  }
+
   /**
    * Gets issues from a commit message.
    *
+   * <p>The issue patterns get resolved for the project set through {@link
+   * ItsConfig#setCurrentProjectName}. Prefer {@link
+   * #getIssueIdsFromCommitMessage(ItsProjectConfig, String)}.
+   *
    * @param commitMessage The commit message string.
    * @return A mapping, whose keys are issue ids and whose values is a set of places where the issue
    *     occurs. Each issue occurs at least in "somewhere". Issues from the first line get tagged
@@ -139,18 +343,52 @@ public class IssueExtractor {
    *     occurring between "subject" and "footer" get tagged with "body".
    */
   public Map<String, Set<String>> getIssueIdsFromCommitMessage(String commitMessage) {
+    return getIssueIdsFromCommitMessage(getCurrentProjectIssueMatcher(), commitMessage);
+  }
+
+  /**
+   * Gets issues from a commit message.
+   *
+   * @param projectConfig The settings of the project the commit belongs to.
+   * @param commitMessage The commit message string.
+   * @return A mapping, whose keys are issue ids and whose values is a set of places where the issue
+   *     occurs. See {@link #getIssueIdsFromCommitMessage(String)}.
+   */
+  public Map<String, Set<String>> getIssueIdsFromCommitMessage(
+      ItsProjectConfig projectConfig, String commitMessage) {
+    return getIssueIdsFromCommitMessage(getIssueMatcher(projectConfig), commitMessage);
+  }
+
+  /**
+   * Gets issues from a commit message.
+   *
+   * @param projectName The project the commit belongs to.
+   * @param commitMessage The commit message string.
+   * @return A mapping, whose keys are issue ids and whose values is a set of places where the issue
+   *     occurs. See {@link #getIssueIdsFromCommitMessage(String)}.
+   */
+  public Map<String, Set<String>> getIssueIdsFromCommitMessage(
+      String projectName, String commitMessage) {
+    return getIssueIdsFromCommitMessage(getProjectConfig(projectName), commitMessage);
+  }
+
+  private Map<String, Set<String>> getIssueIdsFromCommitMessage(
+      @Nullable IssueMatcher matcher, String commitMessage) {
     Map<String, Set<String>> ret = Maps.newHashMap();
-    addIssueIdsFromCommitMessage(ret, commitMessage);
+    if (matcher != null) {
+      addIssueIdsFromCommitMessage(ret, commitMessage, matcher);
+    }
     return ret;
   }
 
-  private void addIssueIdsFromCommitMessage(Map<String, Set<String>> ret, String commitMessage) {
-    addIssuesOccurrence(commitMessage, "somewhere", ret);
+  private void addIssueIdsFromCommitMessage(
+      Map<String, Set<String>> ret, String commitMessage, IssueMatcher matcher) {
+    addIssuesOccurrence(matcher, commitMessage, "somewhere", ret);
 
     String[] lines = commitMessage.split("\n");
     if (lines.length > 0) {
       // Parsing for "subject"
-      addIssuesOccurrence(lines[0], "subject", ret);
+      addIssuesOccurrence(matcher, lines[0], "subject", ret);
 
       // Determining footer line numbers
       int currentLine = lines.length - 1;
@@ -190,7 +428,7 @@ public class IssueExtractor {
           if (colonIdx > 0) {
             // tag of length at least 1
             String tag = line.substring(0, colonIdx);
-            addIssuesOccurrence(line, "footer-" + tag, ret);
+            addIssuesOccurrence(matcher, line, "footer-" + tag, ret);
           }
 
           // Putting back together the footer to a single String
@@ -202,10 +440,10 @@ public class IssueExtractor {
         footer = String.join("\n", copyOfRange(lines, footerStart, footerEnd));
       }
       if (body != null) {
-        addIssuesOccurrence(body, "body", ret);
+        addIssuesOccurrence(matcher, body, "body", ret);
       }
       if (footer != null) {
-        addIssuesOccurrence(footer, "footer", ret);
+        addIssuesOccurrence(matcher, footer, "footer", ret);
       }
     }
   }
@@ -230,31 +468,64 @@ public class IssueExtractor {
    */
   public Map<String, Set<String>> getIssueIds(
       String projectName, String commitId, PatchSet.Id patchSetId) {
-    Map<String, Set<String>> current = getIssueIds(projectName, commitId);
-    if (patchSetId != null) {
-      Map<String, Set<String>> previous = Maps.newHashMap();
-      if (patchSetId.get() != 1) {
-        PatchSet.Id previousPatchSetId = PatchSet.id(patchSetId.changeId(), patchSetId.get() - 1);
-        String previousPatchSet = db.getRevision(previousPatchSetId);
-        if (previousPatchSet != null) {
-          previous = getIssueIds(projectName, previousPatchSet);
-        }
+    if (patchSetId == null) {
+      return getIssueIds(projectName, commitId);
+    }
+
+    IssueMatcher matcher = getIssueMatcher(getProjectConfig(projectName));
+    if (matcher == null) {
+      return Maps.newHashMap();
+    }
+
+    try (CommitMessageFetcher.Session session = commitMessageFetcher.openSession(projectName)) {
+      return getIssueIdsWAdded(session, commitId, patchSetId, matcher);
+    }
+  }
+
+  private Map<String, Set<String>> getIssueIdsWAdded(
+      CommitMessageFetcher.Session session,
+      String commitId,
+      PatchSet.Id patchSetId,
+      IssueMatcher matcher) {
+    String projectName = session.getProjectName();
+    // The result for a patch set never changes, so comments on a patch set need not redo the diff.
+    IssueAssociationCache.Key key =
+        new IssueAssociationCache.Key(projectName, commitId, patchSetId, matcher.getFingerprint());
+    Map<String, Set<String>> cached = associationCache.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    Map<String, Set<String>> current = Maps.newHashMap();
+    boolean cacheable = addIssueIdsFromCommit(current, session, commitId, matcher);
+    Map<String, Set<String>> previous = Maps.newHashMap();
+    if (patchSetId.get() != 1) {
+      PatchSet.Id previousPatchSetId = PatchSet.id(patchSetId.changeId(), patchSetId.get() - 1);
+      String previousPatchSet = db.getRevision(Project.nameKey(projectName), previousPatchSetId);
+      if (previousPatchSet != null) {
+        cacheable &= addIssueIdsFromCommit(previous, session, previousPatchSet, matcher);
+      } else {
+        cacheable = false;
       }
+    }
 
-      for (String issue : current.keySet()) {
-        Set<String> currentOccurrences = current.get(issue);
-        Set<String> previousOccurrences = previous.get(issue);
-        Set<String> newOccurrences;
-        if (previousOccurrences == null || previousOccurrences.isEmpty()) {
-          newOccurrences = Sets.newHashSet(currentOccurrences);
-        } else {
-          newOccurrences = Sets.newHashSet(currentOccurrences);
-          newOccurrences.removeAll(previousOccurrences);
-        }
-        for (String occurrence : newOccurrences) {
-          currentOccurrences.add("added@" + occurrence);
-        }
+    for (String issue : current.keySet()) {
+      Set<String> currentOccurrences = current.get(issue);
+      Set<String> previousOccurrences = previous.get(issue);
+      Set<String> newOccurrences;
+      if (previousOccurrences == null || previousOccurrences.isEmpty()) {
+        newOccurrences = Sets.newHashSet(currentOccurrences);
+      } else {
+        newOccurrences = Sets.newHashSet(currentOccurrences);
+        newOccurrences.removeAll(previousOccurrences);
       }
+      for (String occurrence : newOccurrences) {
+        currentOccurrences.add("added@" + occurrence);
+      }
+    }
+
+    if (cacheable) {
+      associationCache.put(key, current);
     }
     return current;
   }
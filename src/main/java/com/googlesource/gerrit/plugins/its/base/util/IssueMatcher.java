@@ -0,0 +1,293 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.util;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the issue ids of several issue patterns.
+ *
+ * <p>Sites may configure several comment links, one for each issue key scheme. Instead of running
+ * each pattern over a text, the matcher first scans the text once for the required literals of all
+ * patterns (see {@link IssuePatternPrefilter}) using an Aho-Corasick automaton. Only patterns whose
+ * literals occur in the text (and patterns without required literals) then get run to verify the
+ * matches and extract the issue ids. So the time to scan texts without issue ids stays flat as
+ * patterns get added.
+ */
+class IssueMatcher {
+  private final ImmutableList<Pattern> patterns;
+  private final int[] groupIndexes;
+
+  /** Prefilter of the single pattern, or {@code null}, if there are several patterns. */
+  private final IssuePatternPrefilter prefilter;
+
+  /** The patterns that have no required literals, and hence always have to be run. */
+  private final BitSet unfiltered;
+
+  private final LiteralAutomaton automaton;
+
+  /** Identifies the patterns and group indexes, see {@link #getFingerprint()}. */
+  private final String fingerprint;
+
+  private IssueMatcher(List<Pattern> patterns, int[] groupIndexes) {
+    this.patterns = ImmutableList.copyOf(patterns);
+    this.groupIndexes = groupIndexes.clone();
+    this.fingerprint = fingerprint(this.patterns, this.groupIndexes);
+    this.unfiltered = new BitSet(patterns.size());
+    this.automaton = new LiteralAutomaton();
+
+    List<IssuePatternPrefilter> prefilters = new ArrayList<>(patterns.size());
+    for (int i = 0; i < patterns.size(); i++) {
+      IssuePatternPrefilter patternPrefilter = IssuePatternPrefilter.of(patterns.get(i));
+      prefilters.add(patternPrefilter);
+      if (patternPrefilter.isSelective()) {
+        for (String literal : patternPrefilter.getLiterals()) {
+          automaton.add(literal, i);
+        }
+      } else {
+        unfiltered.set(i);
+      }
+    }
+    automaton.build();
+    // For a single pattern, searching its literals directly is cheaper than the automaton.
+    this.prefilter = patterns.size() == 1 ? prefilters.get(0) : null;
+  }
+
+  /**
+   * Creates a matcher for issue patterns.
+   *
+   * @param patterns The issue patterns.
+   * @param groupIndexes For each pattern, the index of the group that holds the issue id.
+   * @return The matcher.
+   */
+  static IssueMatcher create(List<Pattern> patterns, int[] groupIndexes) {
+    return new IssueMatcher(patterns, groupIndexes);
+  }
+
+  /**
+   * Gets a fingerprint of the patterns and group indexes.
+   *
+   * <p>Matchers with equal fingerprints find the same issue ids in any text.
+   *
+   * @return The fingerprint.
+   */
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Computes the fingerprint of a matcher for issue patterns, without creating the matcher.
+   *
+   * @param patterns The issue patterns.
+   * @param groupIndexes For each pattern, the index of the group that holds the issue id.
+   * @return The fingerprint, see {@link #getFingerprint()}.
+   */
+  static String fingerprint(List<Pattern> patterns, int[] groupIndexes) {
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; i < patterns.size(); i++) {
+      if (i > 0) {
+        ret.append('\n');
+      }
+      Pattern pattern = patterns.get(i);
+      ret.append(pattern.pattern())
+          .append('/')
+          .append(pattern.flags())
+          .append('/')
+          .append(groupIndexes[i]);
+    }
+    return ret.toString();
+  }
+
+  /**
+   * Finds the issue ids in a text.
+   *
+   * @param text The text to find issue ids in.
+   * @return The found issue ids.
+   */
+  Set<String> findIssueIds(String text) {
+    Set<String> issues = new HashSet<>();
+    if (prefilter != null) {
+      if (prefilter.mayMatch(text)) {
+        addIssueIds(0, text, issues);
+      }
+      return issues;
+    }
+
+    BitSet candidates = (BitSet) unfiltered.clone();
+    automaton.scan(text, candidates);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      addIssueIds(i, text, issues);
+    }
+    return issues;
+  }
+
+  private void addIssueIds(int patternIndex, String text, Set<String> issues) {
+    Matcher matcher = patterns.get(patternIndex).matcher(text);
+    while (matcher.find()) {
+      String issueId = matcher.group(groupIndexes[patternIndex]);
+      if (!Strings.isNullOrEmpty(issueId)) {
+        issues.add(issueId);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return patterns.toString();
+  }
+
+  /**
+   * Aho-Corasick automaton that finds the patterns whose literals occur in a text.
+   *
+   * <p>Literals are matched ignoring case. This may report patterns whose literals only occur in
+   * a different case, but these patterns get verified by running them anyway.
+   *
+   * <p>The transitions of a state are kept in a sorted array of characters and a parallel array of
+   * targets, so scanning a text neither boxes nor hashes its characters.
+   */
+  private static class LiteralAutomaton {
+    private static final char[] NO_LABELS = new char[0];
+    private static final int[] NO_TARGETS = new int[0];
+
+    /** For each state, the sorted characters that it has transitions for. */
+    private char[][] labels = new char[8][];
+
+    /** For each state, the targets of its transitions, in the order of {@link #labels}. */
+    private int[][] targets = new int[8][];
+
+    private BitSet[] outputs = new BitSet[8];
+    private int stateCount;
+    private int[] failures;
+
+    LiteralAutomaton() {
+      addState();
+    }
+
+    private int addState() {
+      if (stateCount == labels.length) {
+        labels = Arrays.copyOf(labels, stateCount * 2);
+        targets = Arrays.copyOf(targets, stateCount * 2);
+        outputs = Arrays.copyOf(outputs, stateCount * 2);
+      }
+      labels[stateCount] = NO_LABELS;
+      targets[stateCount] = NO_TARGETS;
+      outputs[stateCount] = new BitSet();
+      return stateCount++;
+    }
+
+    /** @return The target of the transition of {@code state} for {@code c}, or -1, if none. */
+    private int next(int state, char c) {
+      int index = Arrays.binarySearch(labels[state], c);
+      return index >= 0 ? targets[state][index] : -1;
+    }
+
+    void add(String literal, int patternIndex) {
+      int state = 0;
+      for (int i = 0; i < literal.length(); i++) {
+        char c = fold(literal.charAt(i));
+        int index = Arrays.binarySearch(labels[state], c);
+        if (index >= 0) {
+          state = targets[state][index];
+        } else {
+          int target = addState();
+          insertTransition(state, -(index + 1), c, target);
+          state = target;
+        }
+      }
+      outputs[state].set(patternIndex);
+    }
+
+    private void insertTransition(int state, int index, char c, int target) {
+      char[] stateLabels = labels[state];
+      int[] stateTargets = targets[state];
+      char[] newLabels = new char[stateLabels.length + 1];
+      int[] newTargets = new int[stateTargets.length + 1];
+      System.arraycopy(stateLabels, 0, newLabels, 0, index);
+      System.arraycopy(stateTargets, 0, newTargets, 0, index);
+      newLabels[index] = c;
+      newTargets[index] = target;
+      System.arraycopy(stateLabels, index, newLabels, index + 1, stateLabels.length - index);
+      System.arraycopy(stateTargets, index, newTargets, index + 1, stateTargets.length - index);
+      labels[state] = newLabels;
+      targets[state] = newTargets;
+    }
+
+    /** Computes the failure links, once all literals got added. */
+    void build() {
+      labels = Arrays.copyOf(labels, stateCount);
+      targets = Arrays.copyOf(targets, stateCount);
+      outputs = Arrays.copyOf(outputs, stateCount);
+      failures = new int[stateCount];
+
+      // Breadth-first, so the failure links of shallower states are known. Each state but the
+      // root gets queued exactly once.
+      int[] queue = new int[stateCount];
+      int head = 0;
+      int tail = 0;
+      for (int child : targets[0]) {
+        queue[tail++] = child;
+      }
+      while (head < tail) {
+        int state = queue[head++];
+        for (int i = 0; i < labels[state].length; i++) {
+          char c = labels[state][i];
+          int child = targets[state][i];
+          int failure = failures[state];
+          int target;
+          while ((target = next(failure, c)) < 0 && failure != 0) {
+            failure = failures[failure];
+          }
+          failures[child] = Math.max(target, 0);
+          outputs[child].or(outputs[failures[child]]);
+          queue[tail++] = child;
+        }
+      }
+    }
+
+    /** Adds the patterns whose literals occur in {@code text} to {@code found}. */
+    void scan(String text, BitSet found) {
+      if (labels[0].length == 0) {
+        return;
+      }
+      int state = 0;
+      for (int i = 0; i < text.length(); i++) {
+        char c = fold(text.charAt(i));
+        int target;
+        while ((target = next(state, c)) < 0 && state != 0) {
+          state = failures[state];
+        }
+        state = Math.max(target, 0);
+        BitSet output = outputs[state];
+        if (!output.isEmpty()) {
+          found.or(output);
+        }
+      }
+    }
+
+    /** Folds the case of a character, like case insensitive {@link String#regionMatches}. */
+    private static char fold(char c) {
+      return Character.toLowerCase(Character.toUpperCase(c));
+    }
+  }
+}
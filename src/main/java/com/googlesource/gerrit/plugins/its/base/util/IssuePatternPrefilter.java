@@ -0,0 +1,487 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.util;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Cheap check whether a text may contain a match of an issue pattern.
+ *
+ * <p>The check is derived from the literals that every match of the pattern has to contain. For
+ * example, each match of {@code (bug|issue)\s*#(\d+)} contains {@code #}, and each match of {@code
+ * [Bb][Uu][Gg][ ]*([1-9][0-9]*)} contains {@code bug}, ignoring case. If a text contains none of
+ * the literals, the pattern cannot match it, and we can skip running the regular expression.
+ *
+ * <p>Deriving the literals is conservative. If the pattern uses constructs that we do not fully
+ * understand, or a match need not contain any literal, the prefilter accepts every text.
+ */
+class IssuePatternPrefilter {
+  private static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+
+  /** Literals one of which each match contains. If empty, each text may contain a match. */
+  private final ImmutableList<Literal> literals;
+
+  private IssuePatternPrefilter(ImmutableList<Literal> literals) {
+    this.literals = literals;
+  }
+
+  /**
+   * Creates the prefilter for a pattern.
+   *
+   * @param pattern The pattern to create the prefilter for.
+   * @return The prefilter.
+   */
+  static IssuePatternPrefilter of(Pattern pattern) {
+    List<Literal> literals = null;
+    if ((pattern.flags() & ~SUPPORTED_FLAGS) == 0 && !pattern.pattern().contains("\\Q")) {
+      boolean ignoreCase = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+      literals = new Parser(pattern.pattern(), ignoreCase).parse();
+    }
+    return new IssuePatternPrefilter(
+        literals != null ? ImmutableList.copyOf(literals) : ImmutableList.of());
+  }
+
+  /** @return The literals one of which each match contains. Empty, if there are none. */
+  ImmutableList<String> getLiterals() {
+    return literals.stream().map(literal -> literal.text).collect(toImmutableList());
+  }
+
+  /** @return True, if this prefilter may skip texts. */
+  boolean isSelective() {
+    return !literals.isEmpty();
+  }
+
+  /**
+   * Checks whether a text may contain a match of the pattern.
+   *
+   * @param text The text to check.
+   * @return False, if the pattern cannot match {@code text}. True otherwise.
+   */
+  boolean mayMatch(String text) {
+    if (literals.isEmpty()) {
+      return true;
+    }
+    for (Literal literal : literals) {
+      if (literal.isContainedIn(text)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return literals.toString();
+  }
+
+  private static class Literal {
+    private final String text;
+    private final boolean ignoreCase;
+
+    Literal(String text, boolean ignoreCase) {
+      this.text = text;
+      this.ignoreCase = ignoreCase;
+    }
+
+    int length() {
+      return text.length();
+    }
+
+    boolean isContainedIn(String haystack) {
+      if (!ignoreCase) {
+        // String.indexOf is an intrinsic that gets vectorized by the JIT.
+        return haystack.indexOf(text) >= 0;
+      }
+      char lower = Character.toLowerCase(text.charAt(0));
+      char upper = Character.toUpperCase(text.charAt(0));
+      int last = haystack.length() - text.length();
+      for (int i = 0; i <= last; i++) {
+        char c = haystack.charAt(i);
+        if ((c == lower || c == upper || Character.toLowerCase(c) == lower)
+            && haystack.regionMatches(true, i, text, 0, text.length())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Literal)) {
+        return false;
+      }
+      Literal other = (Literal) o;
+      return text.equals(other.text) && ignoreCase == other.ignoreCase;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(text, ignoreCase);
+    }
+
+    @Override
+    public String toString() {
+      return ignoreCase ? "(?i)" + text : text;
+    }
+  }
+
+  /** Signals regular expression constructs that the parser does not support. */
+  private static class UnsupportedSyntaxException extends Exception {
+    private static final long serialVersionUID = 1L;
+  }
+
+  /**
+   * Derives the required literals of a regular expression.
+   *
+   * <p>For each branch of an alternation, we pick the longest run of mandatory literal characters,
+   * or the literals of a mandatory group. Any match of the expression contains at least one of the
+   * branches' literals.
+   */
+  private static class Parser {
+    private final String regex;
+    private boolean ignoreCase;
+    private int pos;
+
+    /** Minimum number of repetitions of the last parsed quantifier. */
+    private int quantifierMin;
+
+    /** Whether the last parsed quantifier allows more than a single repetition. */
+    private boolean quantifierRepeats;
+
+    Parser(String regex, boolean ignoreCase) {
+      this.regex = regex;
+      this.ignoreCase = ignoreCase;
+    }
+
+    /** @return The required literals, or {@code null}, if there are none or they are unknown. */
+    List<Literal> parse() {
+      try {
+        List<Literal> literals = parseAlternation();
+        if (literals == null || pos != regex.length()) {
+          return null;
+        }
+        if (ignoreCase) {
+          // Inline flags may have turned on case insensitive matching anywhere.
+          List<Literal> caseless = new ArrayList<>(literals.size());
+          for (Literal literal : literals) {
+            caseless.add(new Literal(literal.text, true));
+          }
+          return caseless;
+        }
+        return literals;
+      } catch (UnsupportedSyntaxException | IndexOutOfBoundsException e) {
+        return null;
+      }
+    }
+
+    private List<Literal> parseAlternation() throws UnsupportedSyntaxException {
+      List<Literal> literals = new ArrayList<>();
+      boolean known = true;
+      while (true) {
+        Literal[] branch = parseBranch();
+        if (branch == null) {
+          known = false;
+        } else {
+          for (Literal literal : branch) {
+            if (!literals.contains(literal)) {
+              literals.add(literal);
+            }
+          }
+        }
+        if (pos < regex.length() && regex.charAt(pos) == '|') {
+          pos++;
+        } else {
+          return known ? literals : null;
+        }
+      }
+    }
+
+    private Literal[] parseBranch() throws UnsupportedSyntaxException {
+      Literal[] best = null;
+      StringBuilder run = new StringBuilder();
+      boolean runIgnoresCase = false;
+      while (pos < regex.length()) {
+        char c = regex.charAt(pos);
+        if (c == '|' || c == ')') {
+          break;
+        }
+        Character literal = null;
+        boolean literalIgnoresCase = false;
+        List<Literal> groupLiterals = null;
+        switch (c) {
+          case '(':
+            groupLiterals = parseGroup();
+            break;
+          case '[':
+            literal = parseCharacterClass();
+            literalIgnoresCase = literal != null;
+            break;
+          case '\\':
+            literal = parseEscape();
+            break;
+          case '.':
+          case '^':
+          case '$':
+            pos++;
+            break;
+          case '*':
+          case '+':
+          case '?':
+          case '{':
+            throw new UnsupportedSyntaxException();
+          default:
+            literal = c;
+            pos++;
+        }
+        parseQuantifier();
+
+        if (literal != null && quantifierMin > 0) {
+          run.append(literal);
+          runIgnoresCase |= literalIgnoresCase;
+          if (!quantifierRepeats) {
+            continue;
+          }
+        }
+        best = better(best, run, runIgnoresCase);
+        run.setLength(0);
+        runIgnoresCase = false;
+        if (groupLiterals != null && quantifierMin > 0) {
+          best = better(best, groupLiterals.toArray(new Literal[0]));
+        }
+      }
+      return better(best, run, runIgnoresCase);
+    }
+
+    /** @return The group's required literals, or {@code null}, if it need not match. */
+    private List<Literal> parseGroup() throws UnsupportedSyntaxException {
+      pos++;
+      boolean required = true;
+      if (regex.charAt(pos) == '?') {
+        pos++;
+        char kind = regex.charAt(pos);
+        if (kind == ':' || kind == '>') {
+          pos++;
+        } else if (kind == '=' || kind == '!') {
+          required = false;
+          pos++;
+        } else if (kind == '<') {
+          char next = regex.charAt(pos + 1);
+          if (next == '=' || next == '!') {
+            required = false;
+            pos += 2;
+          } else {
+            pos = regex.indexOf('>', pos) + 1;
+            if (pos == 0) {
+              throw new UnsupportedSyntaxException();
+            }
+          }
+        } else {
+          parseInlineFlags();
+          if (regex.charAt(pos) == ')') {
+            pos++;
+            return null;
+          }
+          pos++;
+        }
+      }
+      List<Literal> literals = parseAlternation();
+      if (pos >= regex.length() || regex.charAt(pos) != ')') {
+        throw new UnsupportedSyntaxException();
+      }
+      pos++;
+      return required ? literals : null;
+    }
+
+    /** Parses flags like {@code i} or {@code -i} of an inline flag group. */
+    private void parseInlineFlags() throws UnsupportedSyntaxException {
+      while (regex.charAt(pos) != ')' && regex.charAt(pos) != ':') {
+        char flag = regex.charAt(pos);
+        if (flag == 'i') {
+          // Treating the whole expression as case insensitive only widens the prefilter.
+          ignoreCase = true;
+        } else if (flag != 'u' && flag != '-') {
+          throw new UnsupportedSyntaxException();
+        }
+        pos++;
+      }
+    }
+
+    /**
+     * Parses a character class.
+     *
+     * @return The character, if the class only holds the lower and upper case variant of a single
+     *     letter, like {@code [Bb]}. {@code null} otherwise.
+     */
+    private Character parseCharacterClass() throws UnsupportedSyntaxException {
+      int start = ++pos;
+      if (regex.charAt(pos) == '^') {
+        pos++;
+      }
+      if (regex.charAt(pos) == ']') {
+        pos++;
+      }
+      int depth = 1;
+      while (depth > 0) {
+        char c = regex.charAt(pos++);
+        if (c == '\\') {
+          pos++;
+        } else if (c == '[') {
+          depth++;
+        } else if (c == ']') {
+          depth--;
+        }
+      }
+      String content = regex.substring(start, pos - 1);
+      if (content.length() == 2) {
+        char a = content.charAt(0);
+        char b = content.charAt(1);
+        if (Character.isLetter(a)
+            && a != b
+            && Character.toLowerCase(a) == Character.toLowerCase(b)) {
+          return Character.toLowerCase(a);
+        }
+      }
+      return null;
+    }
+
+    /** @return The escaped character, or {@code null}, if the escape is no literal. */
+    private Character parseEscape() throws UnsupportedSyntaxException {
+      pos++;
+      char escaped = regex.charAt(pos++);
+      if (!Character.isLetterOrDigit(escaped)) {
+        return escaped;
+      }
+      switch (escaped) {
+        case 't':
+          return '\t';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 'f':
+          return '\f';
+        case 'p':
+        case 'P':
+        case 'x':
+        case 'N':
+          if (regex.charAt(pos) == '{') {
+            skipPast('}');
+          } else {
+            pos += escaped == 'x' ? 2 : 1;
+          }
+          return null;
+        case 'u':
+          pos += 4;
+          return null;
+        case 'c':
+          pos++;
+          return null;
+        case 'k':
+          skipPast('>');
+          return null;
+        case '0':
+          while (pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '7') {
+            pos++;
+          }
+          return null;
+        default:
+          // Character classes, boundaries, and back references
+          return null;
+      }
+    }
+
+    private void parseQuantifier() throws UnsupportedSyntaxException {
+      quantifierMin = 1;
+      quantifierRepeats = false;
+      if (pos >= regex.length()) {
+        return;
+      }
+      switch (regex.charAt(pos)) {
+        case '?':
+        case '*':
+          quantifierMin = 0;
+          quantifierRepeats = true;
+          pos++;
+          break;
+        case '+':
+          quantifierRepeats = true;
+          pos++;
+          break;
+        case '{':
+          parseBounds();
+          break;
+        default:
+          return;
+      }
+      if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+        // Lazy and possessive quantifiers match the same texts.
+        pos++;
+      }
+    }
+
+    /** Parses bounds like {@code {2}}, {@code {2,}}, or {@code {2,5}}. */
+    private void parseBounds() throws UnsupportedSyntaxException {
+      int end = regex.indexOf('}', pos);
+      if (end < 0) {
+        throw new UnsupportedSyntaxException();
+      }
+      String[] bounds = regex.substring(pos + 1, end).split(",", -1);
+      try {
+        quantifierMin = Integer.parseInt(bounds[0].trim());
+      } catch (NumberFormatException e) {
+        throw new UnsupportedSyntaxException();
+      }
+      quantifierRepeats = !(bounds.length == 1 && quantifierMin == 1);
+      pos = end + 1;
+    }
+
+    private void skipPast(char c) throws UnsupportedSyntaxException {
+      int index = regex.indexOf(c, pos);
+      if (index < 0) {
+        throw new UnsupportedSyntaxException();
+      }
+      pos = index + 1;
+    }
+
+    private static Literal[] better(Literal[] best, CharSequence run, boolean ignoreCase) {
+      if (run.length() == 0) {
+        return best;
+      }
+      return better(best, new Literal[] {new Literal(run.toString(), ignoreCase)});
+    }
+
+    /** @return The alternatives whose shortest literal is longer, as these are more selective. */
+    private static Literal[] better(Literal[] a, Literal[] b) {
+      if (a == null || score(b) > score(a)) {
+        return b;
+      }
+      return a;
+    }
+
+    private static int score(Literal[] literals) {
+      int min = literals.length == 0 ? 0 : Integer.MAX_VALUE;
+      for (Literal literal : literals) {
+        min = Math.min(min, literal.length());
+      }
+      return min;
+    }
+  }
+}
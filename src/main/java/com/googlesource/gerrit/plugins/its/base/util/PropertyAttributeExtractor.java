@@ -23,6 +23,8 @@ import com.google.gerrit.server.data.PatchSetAttribute;
 import com.google.gerrit.server.data.RefUpdateAttribute;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacade;
+import com.googlesource.gerrit.plugins.its.base.workflow.EventProperties;
+import com.googlesource.gerrit.plugins.its.base.workflow.EventProperty;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.lang3.StringEscapeUtils;
@@ -53,23 +55,28 @@ class PropertyAttributeExtractor {
   }
 
   Map<String, String> extractFrom(ChangeAttribute changeAttribute) {
-    return ImmutableMap.<String, String>builder()
-        .put("branch", changeAttribute.branch)
-        .put("topic", changeAttribute.topic != null ? changeAttribute.topic : "")
-        .put("subject", changeAttribute.subject)
-        .put("escapedSubject", StringEscapeUtils.escapeJava(changeAttribute.subject))
-        .put("commitMessage", changeAttribute.commitMessage)
-        .put("changeId", changeAttribute.id)
-        .put("changeNumber", String.valueOf(changeAttribute.number))
-        .put("changeUrl", changeAttribute.url)
-        .put("formatChangeUrl", its.createLinkForWebui(changeAttribute.url, changeAttribute.url))
-        .put("status", changeAttribute.status != null ? changeAttribute.status.toString() : "")
-        .put(
-            "private",
-            changeAttribute.isPrivate != null ? changeAttribute.isPrivate.toString() : "false")
-        .put("wip", changeAttribute.wip != null ? changeAttribute.wip.toString() : "false")
-        .putAll(extractFrom(changeAttribute.owner, "owner"))
-        .build();
+    EventProperties properties = new EventProperties();
+    properties.put(EventProperty.BRANCH, changeAttribute.branch);
+    properties.put("topic", changeAttribute.topic != null ? changeAttribute.topic : "");
+    properties.put(EventProperty.SUBJECT, changeAttribute.subject);
+    // Escaping the subject and formatting links is costly and only few rules need it.
+    properties.putLazy(
+        "escapedSubject", () -> StringEscapeUtils.escapeJava(changeAttribute.subject));
+    properties.put(EventProperty.COMMIT_MESSAGE, changeAttribute.commitMessage);
+    properties.put(EventProperty.CHANGE_ID, changeAttribute.id);
+    properties.put(EventProperty.CHANGE_NUMBER, String.valueOf(changeAttribute.number));
+    properties.put("changeUrl", changeAttribute.url);
+    properties.putLazy(
+        "formatChangeUrl", () -> its.createLinkForWebui(changeAttribute.url, changeAttribute.url));
+    properties.put(
+        EventProperty.STATUS,
+        changeAttribute.status != null ? changeAttribute.status.toString() : "");
+    properties.put(
+        "private",
+        changeAttribute.isPrivate != null ? changeAttribute.isPrivate.toString() : "false");
+    properties.put("wip", changeAttribute.wip != null ? changeAttribute.wip.toString() : "false");
+    properties.putAll(extractFrom(changeAttribute.owner, "owner"));
+    return properties;
   }
 
   Map<String, String> extractFrom(PatchSetAttribute patchSetAttribute) {
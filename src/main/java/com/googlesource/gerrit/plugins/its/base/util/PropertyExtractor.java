@@ -14,9 +14,11 @@
 
 package com.googlesource.gerrit.plugins.its.base.util;
 
+import com.google.common.base.Supplier;
 import com.google.gerrit.entities.Change;
 import com.google.gerrit.entities.PatchSet;
 import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.server.data.AccountAttribute;
 import com.google.gerrit.server.data.ApprovalAttribute;
 import com.google.gerrit.server.data.ChangeAttribute;
 import com.google.gerrit.server.data.PatchSetAttribute;
@@ -33,10 +35,13 @@ import com.google.gerrit.server.events.RefEvent;
 import com.google.gerrit.server.events.RefUpdatedEvent;
 import com.google.gerrit.server.events.WorkInProgressStateChangedEvent;
 import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.its.base.workflow.EventProperties;
+import com.googlesource.gerrit.plugins.its.base.workflow.EventProperty;
+import com.googlesource.gerrit.plugins.its.base.workflow.PropertyProjection;
 import com.googlesource.gerrit.plugins.its.base.workflow.RefEventProperties;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -77,7 +82,7 @@ public class PropertyExtractor {
     }
   }
 
-  private Map<String, Set<String>> extractMapFrom(PatchSetEvent event, Map<String, String> common) {
+  private Map<String, Set<String>> extractMapFrom(PatchSetEvent event, EventProperties common) {
     ChangeAttribute change = event.change.get();
     PatchSetAttribute patchSet = event.patchSet.get();
     common.putAll(propertyAttributeExtractor.extractFrom(change));
@@ -87,29 +92,26 @@ public class PropertyExtractor {
     return issueExtractor.getIssueIds(change.project, patchSet.revision, patchSetId);
   }
 
-  private Map<String, Set<String>> extractFrom(
-      ChangeAbandonedEvent event, Map<String, String> common) {
-    common.putAll(propertyAttributeExtractor.extractFrom(event.abandoner.get(), "abandoner"));
+  private Map<String, Set<String>> extractFrom(ChangeAbandonedEvent event, EventProperties common) {
+    putAccount(common, event.abandoner, "abandoner");
     common.put("reason", event.reason);
     return extractMapFrom(event, common);
   }
 
-  private Map<String, Set<String>> extractFrom(
-      ChangeMergedEvent event, Map<String, String> common) {
-    common.putAll(propertyAttributeExtractor.extractFrom(event.submitter.get(), "submitter"));
+  private Map<String, Set<String>> extractFrom(ChangeMergedEvent event, EventProperties common) {
+    putAccount(common, event.submitter, "submitter");
     return extractMapFrom(event, common);
   }
 
-  private Map<String, Set<String>> extractFrom(
-      ChangeRestoredEvent event, Map<String, String> common) {
-    common.putAll(propertyAttributeExtractor.extractFrom(event.restorer.get(), "restorer"));
+  private Map<String, Set<String>> extractFrom(ChangeRestoredEvent event, EventProperties common) {
+    putAccount(common, event.restorer, "restorer");
     common.put("reason", event.reason);
     return extractMapFrom(event, common);
   }
 
-  private Map<String, Set<String>> extractFrom(RefUpdatedEvent event, Map<String, String> common) {
+  private Map<String, Set<String>> extractFrom(RefUpdatedEvent event, EventProperties common) {
     if (event.submitter != null) {
-      common.putAll(propertyAttributeExtractor.extractFrom(event.submitter.get(), "submitter"));
+      putAccount(common, event.submitter, "submitter");
     }
     common.putAll(propertyAttributeExtractor.extractFrom(event.refUpdate.get()));
     RefUpdateAttribute refUpdateEvent = event.refUpdate.get();
@@ -120,17 +122,17 @@ public class PropertyExtractor {
     return issueExtractor.getIssueIds(event.getProjectNameKey().get(), commitId);
   }
 
-  private Map<String, Set<String>> extractFrom(
-      PatchSetCreatedEvent event, Map<String, String> common) {
-    common.putAll(propertyAttributeExtractor.extractFrom(event.uploader.get(), "uploader"));
+  private Map<String, Set<String>> extractFrom(PatchSetCreatedEvent event, EventProperties common) {
+    putAccount(common, event.uploader, "uploader");
     return extractMapFrom(event, common);
   }
 
-  private Map<String, Set<String>> extractFrom(
-      CommentAddedEvent event, Map<String, String> common) {
-    common.putAll(propertyAttributeExtractor.extractFrom(event.author.get(), "commenter"));
+  private Map<String, Set<String>> extractFrom(CommentAddedEvent event, EventProperties common) {
+    putAccount(common, event.author, "commenter");
     common.put("comment", event.comment);
-    ApprovalAttribute[] approvals = event.approvals.get();
+    // Approvals get computed upon request, so we only ask for them if a rule may use them.
+    ApprovalAttribute[] approvals =
+        common.getProjection().includesPrefix("approval") ? event.approvals.get() : null;
     if (approvals != null) {
       for (ApprovalAttribute approvalAttribute : approvals) {
         common.putAll(propertyAttributeExtractor.extractFrom(approvalAttribute));
@@ -140,25 +142,37 @@ public class PropertyExtractor {
   }
 
   private Map<String, Set<String>> extractFrom(
-      WorkInProgressStateChangedEvent event, Map<String, String> common) {
-    common.putAll(propertyAttributeExtractor.extractFrom(event.changer.get(), "changer"));
+      WorkInProgressStateChangedEvent event, EventProperties common) {
+    putAccount(common, event.changer, "changer");
     return extractFrom((ChangeEvent) event, common);
   }
 
   private Map<String, Set<String>> extractFrom(
-      PrivateStateChangedEvent event, Map<String, String> common) {
-    common.putAll(propertyAttributeExtractor.extractFrom(event.changer.get(), "changer"));
+      PrivateStateChangedEvent event, EventProperties common) {
+    putAccount(common, event.changer, "changer");
     return extractFrom((ChangeEvent) event, common);
   }
 
-  private Map<String, Set<String>> extractFrom(ChangeEvent event, Map<String, String> common) {
-    common.put("event-type", event.type);
+  /**
+   * Adds the properties of an account to the common properties.
+   *
+   * <p>Gerrit computes account attributes upon request, so we skip them if no rule uses them.
+   */
+  private void putAccount(
+      EventProperties common, Supplier<AccountAttribute> account, String prefix) {
+    if (common.getProjection().includesPrefix(prefix)) {
+      common.putAll(propertyAttributeExtractor.extractFrom(account.get(), prefix));
+    }
+  }
+
+  private Map<String, Set<String>> extractFrom(ChangeEvent event, EventProperties common) {
+    common.put(EventProperty.EVENT_TYPE, event.type);
     ChangeAttribute change = event.change.get();
     common.putAll(propertyAttributeExtractor.extractFrom(change));
     common.put("refName", event.refName);
 
     // Got no patch set information, extract from commit message.
-    return issueExtractor.getIssueIdsFromCommitMessage(change.commitMessage);
+    return issueExtractor.getIssueIdsFromCommitMessage(change.project, change.commitMessage);
   }
 
   /**
@@ -201,18 +215,31 @@ public class PropertyExtractor {
    * @return set of property maps extracted from the event.
    */
   public RefEventProperties extractFrom(RefEvent event) {
+    return extractFrom(event, PropertyProjection.ALL);
+  }
+
+  /**
+   * Extracts the properties of an event that are part of a projection.
+   *
+   * <p>Like {@link #extractFrom(RefEvent)}, but skips properties that no rule uses.
+   *
+   * @param event The event to extract property maps from.
+   * @param projection The projection onto the properties to extract.
+   * @return set of property maps extracted from the event.
+   */
+  public RefEventProperties extractFrom(RefEvent event, PropertyProjection projection) {
     Map<String, Set<String>> associations = null;
-    Map<String, String> common = new HashMap<>();
-    common.put("event", event.getClass().getName());
+    EventProperties common = new EventProperties(projection);
+    common.put(EventProperty.EVENT, event.getClass().getName());
     String project = event.getProjectNameKey().get();
-    common.put("event-type", event.type);
-    common.put("project", project);
+    common.put(EventProperty.EVENT_TYPE, event.type);
+    common.put(EventProperty.PROJECT, project);
 
     itsProjectExtractor
         .getItsProject(project)
-        .ifPresent(itsProject -> common.put("its-project", itsProject));
-    common.put("ref", event.getRefName());
-    common.put("itsName", pluginName);
+        .ifPresent(itsProject -> common.put(EventProperty.ITS_PROJECT, itsProject));
+    common.put(EventProperty.REF, event.getRefName());
+    common.put(EventProperty.ITS_NAME, pluginName);
 
     if (event instanceof ChangeAbandonedEvent) {
       associations = extractFrom((ChangeAbandonedEvent) event, common);
@@ -232,30 +259,43 @@ public class PropertyExtractor {
       associations = extractFrom((WorkInProgressStateChangedEvent) event, common);
     }
 
-    Set<Map<String, String>> issuesProperties = extractIssuesProperties(common, associations);
+    List<Map<String, String>> issuesProperties = extractIssuesProperties(common, associations);
 
-    Map<String, String> projectProperties = new HashMap<>(common);
-    projectProperties.put("source", "gerrit");
+    EventProperties projectProperties = new EventProperties(common);
+    projectProperties.put(EventProperty.SOURCE, "gerrit");
     return new RefEventProperties(projectProperties, issuesProperties);
   }
 
-  public Set<Map<String, String>> extractIssuesProperties(
+  /**
+   * Extracts the properties of each issue of an event.
+   *
+   * @param commonProperties The properties shared by all issues.
+   * @param associations The issues and their associations, as provided by {@link IssueExtractor}.
+   * @return The properties of each issue. As issues are unique in {@code associations}, so are
+   *     the issue properties.
+   */
+  public List<Map<String, String>> extractIssuesProperties(
       Map<String, String> commonProperties, Map<String, Set<String>> associations) {
     if (associations == null) {
-      return Collections.emptySet();
+      return Collections.emptyList();
     }
 
-    Set<Map<String, String>> issuesProperties = new HashSet<>();
-    Map<String, String> completedCommonProperties = new HashMap<>(commonProperties);
-    if (!completedCommonProperties.containsKey("source")) {
-      completedCommonProperties.put("source", "its");
+    List<Map<String, String>> issuesProperties = new ArrayList<>(associations.size());
+    EventProperties completedCommonProperties = new EventProperties(commonProperties);
+    if (!completedCommonProperties.containsKey(EventProperty.SOURCE)) {
+      completedCommonProperties.put(EventProperty.SOURCE, "its");
     }
 
+    // All issues share the common properties, so each issue only stores its own ones.
     for (Entry<String, Set<String>> assoc : associations.entrySet()) {
-      Map<String, String> properties = new HashMap<>();
-      properties.put("issue", assoc.getKey());
-      properties.put("association", String.join(" ", assoc.getValue()));
-      properties.putAll(completedCommonProperties);
+      EventProperties properties = EventProperties.overlay(completedCommonProperties);
+      // Common properties take precedence over the issue's own ones.
+      if (!properties.containsKey(EventProperty.ISSUE)) {
+        properties.put(EventProperty.ISSUE, assoc.getKey());
+      }
+      if (!properties.containsKey(EventProperty.ASSOCIATION)) {
+        properties.put(EventProperty.ASSOCIATION, String.join(" ", assoc.getValue()));
+      }
       issuesProperties.add(properties);
     }
 
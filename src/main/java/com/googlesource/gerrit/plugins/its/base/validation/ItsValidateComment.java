@@ -26,10 +26,13 @@ import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.its.base.its.ItsConfig;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacade;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacadeFactory;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectConfig;
 import com.googlesource.gerrit.plugins.its.base.util.IssueExtractor;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 public class ItsValidateComment implements CommitValidationListener {
@@ -52,21 +55,21 @@ public class ItsValidateComment implements CommitValidationListener {
     CONNECTIVITY_FAILURE
   }
 
-  private List<CommitValidationMessage> validCommit(Project.NameKey project, RevCommit commit)
-      throws CommitValidationException {
+  private List<CommitValidationMessage> validCommit(
+      ItsProjectConfig projectConfig, RevCommit commit) throws CommitValidationException {
     List<CommitValidationMessage> ret = Lists.newArrayList();
-    ItsAssociationPolicy associationPolicy = itsConfig.getItsAssociationPolicy();
+    ItsAssociationPolicy associationPolicy = projectConfig.getItsAssociationPolicy();
 
     switch (associationPolicy) {
       case MANDATORY:
       case SUGGESTED:
         String commitMessage = commit.getFullMessage();
-        String[] issueIds = issueExtractor.getIssueIds(commitMessage);
+        String[] issueIds = issueExtractor.getIssueIds(projectConfig, commitMessage);
         String synopsis = null;
         String details = null;
         if (issueIds.length > 0) {
           List<String> nonExistingIssueIds = Lists.newArrayList();
-          client = itsFacadeFactory.getFacade(project);
+          client = itsFacadeFactory.getFacade(projectConfig.getProjectName());
           for (String issueId : issueIds) {
             ItsExistenceCheckResult existenceCheckResult;
             try {
@@ -82,7 +85,8 @@ public class ItsValidateComment implements CommitValidationListener {
               logger.atWarning().withCause(e).log("%s", synopsis);
               details = e.toString();
               existenceCheckResult = ItsExistenceCheckResult.CONNECTIVITY_FAILURE;
-              ret.add(commitValidationFailure(synopsis, details, existenceCheckResult));
+              ret.add(
+                  commitValidationFailure(projectConfig, synopsis, details, existenceCheckResult));
             }
             if (existenceCheckResult == ItsExistenceCheckResult.DOESNT_EXIST) {
               nonExistingIssueIds.add(issueId);
@@ -108,9 +112,10 @@ public class ItsValidateComment implements CommitValidationListener {
             details = sb.toString();
 
             ret.add(
-                commitValidationFailure(synopsis, details, ItsExistenceCheckResult.DOESNT_EXIST));
+                commitValidationFailure(
+                    projectConfig, synopsis, details, ItsExistenceCheckResult.DOESNT_EXIST));
           }
-        } else if (!itsConfig
+        } else if (!projectConfig
             .getDummyIssuePattern()
             .map(p -> p.matcher(commitMessage).find())
             .orElse(false)) {
@@ -124,14 +129,19 @@ public class ItsValidateComment implements CommitValidationListener {
           sb.append("Hint: insert one or more issue-id anywhere in the ");
           sb.append("commit message.\n");
           sb.append("      Issue-ids are strings matching ");
-          sb.append(itsConfig.getIssuePattern().pattern());
+          sb.append(
+              projectConfig.getIssuePatterns().stream()
+                  .map(Pattern::pattern)
+                  .collect(Collectors.joining(" or ")));
           sb.append("\n");
           sb.append("      and are pointing to existing tickets on ");
           sb.append(pluginName);
           sb.append(" Issue-Tracker");
           details = sb.toString();
 
-          ret.add(commitValidationFailure(synopsis, details, ItsExistenceCheckResult.DOESNT_EXIST));
+          ret.add(
+              commitValidationFailure(
+                  projectConfig, synopsis, details, ItsExistenceCheckResult.DOESNT_EXIST));
         }
         break;
       case OPTIONAL:
@@ -142,10 +152,13 @@ public class ItsValidateComment implements CommitValidationListener {
   }
 
   private CommitValidationMessage commitValidationFailure(
-      String synopsis, String details, ItsExistenceCheckResult existenceCheck)
+      ItsProjectConfig projectConfig,
+      String synopsis,
+      String details,
+      ItsExistenceCheckResult existenceCheck)
       throws CommitValidationException {
     CommitValidationMessage ret = new CommitValidationMessage(synopsis + "\n" + details, false);
-    if (itsConfig.getItsAssociationPolicy() == ItsAssociationPolicy.MANDATORY
+    if (projectConfig.getItsAssociationPolicy() == ItsAssociationPolicy.MANDATORY
         && existenceCheck != ItsExistenceCheckResult.CONNECTIVITY_FAILURE) {
       throw new CommitValidationException(synopsis, Collections.singletonList(ret));
     }
@@ -156,10 +169,11 @@ public class ItsValidateComment implements CommitValidationListener {
   public List<CommitValidationMessage> onCommitReceived(CommitReceivedEvent receiveEvent)
       throws CommitValidationException {
     Project.NameKey projectName = receiveEvent.getProjectNameKey();
+    // ITS plugins may still resolve the project's settings through the current project.
     ItsConfig.setCurrentProjectName(projectName);
 
     if (itsConfig.isEnabled(projectName, receiveEvent.getRefName())) {
-      return validCommit(projectName, receiveEvent.commit);
+      return validCommit(itsConfig.getProjectConfig(projectName), receiveEvent.commit);
     }
 
     return Collections.emptyList();
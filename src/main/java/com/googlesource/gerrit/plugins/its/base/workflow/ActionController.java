@@ -18,12 +18,14 @@ import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.server.events.Event;
 import com.google.gerrit.server.events.EventListener;
 import com.google.gerrit.server.events.RefEvent;
+import com.google.gerrit.server.events.RefUpdatedEvent;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.its.base.its.ItsConfig;
 import com.googlesource.gerrit.plugins.its.base.util.PropertyExtractor;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Controller that takes actions according to {@code ChangeEvents@}.
@@ -56,21 +58,48 @@ public class ActionController implements EventListener {
   public void onEvent(Event event) {
     if (event instanceof RefEvent) {
       RefEvent refEvent = (RefEvent) event;
+      // ITS plugins may still resolve the project's settings through the current project.
       ItsConfig.setCurrentProjectName(refEvent.getProjectNameKey());
       if (itsConfig.isEnabled(refEvent)) {
+        if (!ruleBase.mayMatch(getKnownProperties(refEvent))) {
+          logger.atFine().log(
+              "No rule may match %s event on %s of project %s",
+              refEvent.type, refEvent.getRefName(), refEvent.getProjectNameKey().get());
+          return;
+        }
         handleEvent(refEvent);
       }
     }
   }
 
+  /**
+   * Gets the properties of an event that are known without extracting them.
+   *
+   * <p>Only properties that the extraction does not override are included. For example, the ref of
+   * change events gets overridden by the patch set's ref.
+   */
+  private static Map<String, String> getKnownProperties(RefEvent refEvent) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put(EventProperty.EVENT.getKey(), refEvent.getClass().getName());
+    properties.put(EventProperty.EVENT_TYPE.getKey(), refEvent.type);
+    properties.put(EventProperty.PROJECT.getKey(), refEvent.getProjectNameKey().get());
+    if (refEvent instanceof RefUpdatedEvent) {
+      properties.put(EventProperty.REF.getKey(), refEvent.getRefName());
+    }
+    return properties;
+  }
+
   private void handleEvent(RefEvent refEvent) {
-    RefEventProperties refEventProperties = propertyExtractor.extractFrom(refEvent);
+    // Properties that no rule uses need not get extracted in the first place.
+    PropertyProjection projection =
+        ruleBase.getPropertyProjection(refEvent.getProjectNameKey().get());
+    RefEventProperties refEventProperties = propertyExtractor.extractFrom(refEvent, projection);
 
     handleIssuesEvent(refEventProperties.getIssuesProperties());
     handleProjectEvent(refEventProperties.getProjectProperties());
   }
 
-  private void handleIssuesEvent(Set<Map<String, String>> issuesProperties) {
+  private void handleIssuesEvent(List<Map<String, String>> issuesProperties) {
     for (Map<String, String> issueProperties : issuesProperties) {
       Collection<ActionRequest> actions = ruleBase.actionRequestsFor(issueProperties);
       if (!actions.isEmpty()) {
@@ -84,7 +84,8 @@ public class ActionExecutor {
   private void execute(
       Action action, String target, ActionRequest actionRequest, Map<String, String> properties)
       throws IOException {
-    ItsFacade its = itsFactory.getFacade(Project.nameKey(properties.get("project")));
+    ItsFacade its =
+        itsFactory.getFacade(Project.nameKey(EventProperty.PROJECT.getFrom(properties)));
     action.execute(its, target, actionRequest, properties);
   }
 
@@ -93,7 +94,8 @@ public class ActionExecutor {
     try {
       Action action = getAction(actionRequest.getName());
       if (action == null) {
-        ItsFacade its = itsFactory.getFacade(Project.nameKey(properties.get("project")));
+        ItsFacade its =
+            itsFactory.getFacade(Project.nameKey(EventProperty.PROJECT.getFrom(properties)));
         its.performAction(issue, actionRequest.getUnparsed());
       } else if (action.getType() == ActionType.ISSUE) {
         execute(action, issue, actionRequest, properties);
@@ -105,7 +107,7 @@ public class ActionExecutor {
 
   public void executeOnIssue(Iterable<ActionRequest> actions, Map<String, String> properties) {
     for (ActionRequest actionRequest : actions) {
-      executeOnIssue(properties.get("issue"), actionRequest, properties);
+      executeOnIssue(EventProperty.ISSUE.getFrom(properties), actionRequest, properties);
     }
   }
 
@@ -129,7 +131,7 @@ public class ActionExecutor {
 
   public void executeOnProject(Iterable<ActionRequest> actions, Map<String, String> properties) {
     for (ActionRequest actionRequest : actions) {
-      executeOnProject(properties.get("its-project"), actionRequest, properties);
+      executeOnProject(EventProperty.ITS_PROJECT.getFrom(properties), actionRequest, properties);
     }
   }
 }
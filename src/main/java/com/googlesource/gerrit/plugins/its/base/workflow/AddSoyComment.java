@@ -16,17 +16,10 @@ package com.googlesource.gerrit.plugins.its.base.workflow;
 
 import com.google.common.base.Strings;
 import com.google.common.flogger.FluentLogger;
-import com.google.common.io.CharStreams;
 import com.google.inject.Inject;
-import com.google.inject.ProvisionException;
-import com.google.template.soy.SoyFileSet;
 import com.google.template.soy.jbcsrc.api.SoySauce.Renderer;
-import com.googlesource.gerrit.plugins.its.base.ItsPath;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacade;
 import java.io.IOException;
-import java.io.Reader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
@@ -43,36 +36,27 @@ public class AddSoyComment extends IssueAction {
     AddSoyComment create();
   }
 
-  private final Path templateDir;
+  private final SoyTemplateCache templates;
   protected HashMap<String, Object> soyContext;
 
   @Inject
-  public AddSoyComment(@ItsPath Path itsPath) {
-    this.templateDir = itsPath.resolve("templates");
+  public AddSoyComment(SoyTemplateCache templates) {
+    this.templates = templates;
   }
 
-  private String soyTextTemplate(
-      SoyFileSet.Builder builder, String template, Map<String, String> properties) {
-
-    Path templatePath = templateDir.resolve(template + ".soy");
-    String content;
-
-    try (Reader r = Files.newBufferedReader(templatePath, StandardCharsets.UTF_8)) {
-      content = CharStreams.toString(r);
-    } catch (IOException err) {
-      throw new ProvisionException(
-          "Failed to read template file " + templatePath.toAbsolutePath().toString(), err);
-    }
+  /** @return The directory holding the soy templates. */
+  static Path getTemplateDir(Path itsPath) {
+    return itsPath.resolve("templates");
+  }
 
-    builder.add(content, templatePath.toAbsolutePath().toString());
+  private String soyTextTemplate(String template, Map<String, String> properties) {
     Renderer renderer =
-        builder
-            .build()
-            .compileTemplates()
+        templates
+            .get(template)
             .renderTemplate("etc.its.templates." + template)
             .setData(properties);
     String rendered = renderer.renderText().get();
-    logger.atFinest().log("Rendered template %s to:\n%s", templatePath, rendered);
+    logger.atFinest().log("Rendered template %s to:\n%s", template, rendered);
     return rendered;
   }
 
@@ -89,7 +73,7 @@ public class AddSoyComment extends IssueAction {
   private String buildComment(ActionRequest actionRequest, Map<String, String> properties) {
     String template = actionRequest.getParameter(1);
     if (!Strings.isNullOrEmpty(template)) {
-      return soyTextTemplate(SoyFileSet.builder(), template, properties);
+      return soyTextTemplate(template, properties);
     }
     logger.atSevere().log("No template name given in %s", actionRequest);
     return "";
@@ -40,6 +40,9 @@ import java.util.Set;
  */
 public class Condition {
   private final String key;
+  /** The well-known property for the key, or {@code null}, if the key is not well-known. */
+  private final EventProperty property;
+
   private final Set<String> values;
   private final boolean negated;
 
@@ -58,6 +61,7 @@ public class Condition {
   @Inject
   public Condition(@Assisted("key") String key, @Nullable @Assisted("values") String values) {
     this.key = key;
+    this.property = EventProperty.forKey(key);
     Set<String> modifyableValues;
     boolean modifyableNegated = false;
     if (values == null) {
@@ -88,8 +92,8 @@ public class Condition {
    *     and whose value matches at least one of the rule's value.
    */
   public boolean isMetBy(Map<String, String> properties) {
-    String property = properties.get(key);
-    String[] propertyValues = property != null ? property.split(" ") : new String[] {};
+    String value = property != null ? property.getFrom(properties) : properties.get(key);
+    String[] propertyValues = value != null ? value.split(" ") : new String[] {};
     for (String p : propertyValues) {
       if (values.contains(p.trim())) {
         return !negated;
@@ -0,0 +1,644 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import com.google.common.base.Suppliers;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Properties of an event, whose costly values may get computed lazily.
+ *
+ * <p>Besides plain values, this map can hold values that get computed only once a condition, an
+ * action, or a template actually reads them (see {@link #putLazy(String, Supplier)}). Copying
+ * properties from one {@code EventProperties} to another (through {@link #putAll(Map)} or {@link
+ * #EventProperties(Map)}) keeps such values lazy, and both maps share the computed value.
+ *
+ * <p>If created for a {@link PropertyProjection}, the map silently drops properties that are not
+ * part of the projection.
+ *
+ * <p>An overlay (see {@link #overlay(Map)}) stores only its own modifications and reads all other
+ * properties from a shared base, so many maps can share common properties without copying them.
+ *
+ * <p>Well-known properties (see {@link EventProperty}) live in fixed slots, all other properties in
+ * an overflow map. Reading well-known properties through {@link #get(EventProperty)} avoids hashing
+ * their keys.
+ *
+ * <p>Apart from that, this map behaves like a {@link HashMap}.
+ */
+public class EventProperties extends AbstractMap<String, String> {
+  /** Marks properties that got removed from an overlay. */
+  private static final Object REMOVED = new Object();
+
+  /** Stands for {@code null} values, as empty slots are {@code null}. */
+  private static final Object NULL = new Object();
+
+  private static final EventProperty[] WELL_KNOWN = EventProperty.values();
+
+  /*
+   * Raw values are either a {@code String}, a memoizing {@code Supplier<String>}, {@link #NULL}, or
+   * {@link #REMOVED}.
+   */
+
+  /** Raw values of the well-known properties, indexed by their ordinal. */
+  private final Object[] slots = new Object[WELL_KNOWN.length];
+
+  /** Number of non-empty slots. */
+  private int slotCount;
+
+  /** Raw values of all other properties. */
+  private final Map<String, Object> overflow;
+
+  private final PropertyProjection projection;
+
+  /** The properties this map is an overlay of, or {@code null}, if it is no overlay. */
+  private final EventProperties base;
+
+  private Set<Map.Entry<String, String>> entrySet;
+
+  public EventProperties() {
+    this(PropertyProjection.ALL);
+  }
+
+  /**
+   * Creates properties that only hold the properties of a projection.
+   *
+   * @param projection The projection onto the properties to hold.
+   */
+  public EventProperties(PropertyProjection projection) {
+    this.overflow = new HashMap<>();
+    this.projection = projection;
+    this.base = null;
+  }
+
+  /**
+   * Creates a copy of properties.
+   *
+   * @param properties The properties to copy. If these are {@code EventProperties}, lazy values
+   *     stay lazy.
+   */
+  public EventProperties(Map<String, String> properties) {
+    this.overflow = new HashMap<>(Math.max(16, properties.size() * 2));
+    this.projection = PropertyProjection.ALL;
+    this.base = null;
+    putAll(properties);
+  }
+
+  private EventProperties(EventProperties base) {
+    this.overflow = new HashMap<>();
+    this.projection = PropertyProjection.ALL;
+    this.base = base;
+  }
+
+  /**
+   * Creates an overlay of properties.
+   *
+   * <p>The overlay initially holds the same properties as {@code base}, but modifications of the
+   * overlay do not affect {@code base}. Only the modifications get stored in the overlay.
+   *
+   * @param base The properties to create an overlay of. They must not get modified while the
+   *     overlay is in use.
+   * @return The overlay.
+   */
+  public static EventProperties overlay(Map<String, String> base) {
+    EventProperties baseProperties =
+        base instanceof EventProperties ? (EventProperties) base : new EventProperties(base);
+    return new EventProperties(baseProperties);
+  }
+
+  /** @return The projection onto the properties this map holds. */
+  public PropertyProjection getProjection() {
+    return projection;
+  }
+
+  /**
+   * Gets the value of a well-known property.
+   *
+   * @param property The property to get the value of.
+   * @return The value, or {@code null}, if the property is not set.
+   */
+  public String get(EventProperty property) {
+    return get(property, property.getKey());
+  }
+
+  /**
+   * Sets the value of a well-known property.
+   *
+   * @param property The property to set.
+   * @param value The value to set.
+   * @return The previous value, or {@code null}, if the property was not set.
+   */
+  public String put(EventProperty property, String value) {
+    return put(property, property.getKey(), value);
+  }
+
+  /**
+   * Checks whether a well-known property is set.
+   *
+   * @param property The property to check.
+   * @return True, if the property is set.
+   */
+  public boolean containsKey(EventProperty property) {
+    return containsKey(property, property.getKey());
+  }
+
+  /**
+   * Associates a lazily computed value to a key.
+   *
+   * @param key The key to associate the value to.
+   * @param supplier Computes the value upon first read. It gets called at most once.
+   */
+  public void putLazy(String key, Supplier<String> supplier) {
+    putRaw(EventProperty.forKey(key), key, Suppliers.memoize(supplier::get));
+  }
+
+  @Override
+  public String get(Object key) {
+    // Finding the slot and then looking up the overflow probes two hash tables, but computes the
+    // key's hash only once, as strings cache their hash code. Callers that know the property read
+    // it through get(EventProperty) instead, which does not hash at all.
+    return get(EventProperty.forKey(key), key);
+  }
+
+  private String get(EventProperty property, Object key) {
+    Object raw = getOwn(property, key);
+    if (raw == null && base != null) {
+      return base.get(property, key);
+    }
+    return resolve(raw);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return containsKey(EventProperty.forKey(key), key);
+  }
+
+  private boolean containsKey(EventProperty property, Object key) {
+    Object raw = getOwn(property, key);
+    if (raw != null) {
+      return raw != REMOVED;
+    }
+    return base != null && base.containsKey(property, key);
+  }
+
+  @Override
+  public String put(String key, String value) {
+    return put(EventProperty.forKey(key), key, value);
+  }
+
+  private String put(EventProperty property, String key, String value) {
+    if (!projection.includes(key)) {
+      return null;
+    }
+    Object old = putOwn(property, key, value != null ? value : NULL);
+    if (old == null && base != null) {
+      return base.get(property, key);
+    }
+    return resolve(old);
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ? extends String> map) {
+    if (map instanceof EventProperties) {
+      ((EventProperties) map).copyInto(this);
+    } else {
+      for (Map.Entry<? extends String, ? extends String> entry : map.entrySet()) {
+        String key = entry.getKey();
+        String value = entry.getValue();
+        putRaw(EventProperty.forKey(key), key, value != null ? value : NULL);
+      }
+    }
+  }
+
+  /** Puts this map's properties into {@code target}, keeping lazy values lazy. */
+  private void copyInto(EventProperties target) {
+    if (base != null) {
+      base.copyInto(target);
+    }
+    for (int i = 0; i < slots.length; i++) {
+      if (slots[i] != null) {
+        copyInto(target, WELL_KNOWN[i], WELL_KNOWN[i].getKey(), slots[i]);
+      }
+    }
+    for (Map.Entry<String, Object> entry : overflow.entrySet()) {
+      copyInto(target, null, entry.getKey(), entry.getValue());
+    }
+  }
+
+  private static void copyInto(
+      EventProperties target, EventProperty property, String key, Object raw) {
+    if (raw == REMOVED) {
+      target.remove(property, key);
+    } else {
+      target.putRaw(property, key, raw);
+    }
+  }
+
+  private void putRaw(EventProperty property, String key, Object raw) {
+    if (projection.includes(key)) {
+      putOwn(property, key, raw);
+    }
+  }
+
+  @Override
+  public String remove(Object key) {
+    return remove(EventProperty.forKey(key), key);
+  }
+
+  private String remove(EventProperty property, Object key) {
+    if (base != null && base.containsKey(property, key)) {
+      String old = get(property, key);
+      putOwn(property, (String) key, REMOVED);
+      return old;
+    }
+    return resolve(removeOwn(property, key));
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(slots, null);
+    slotCount = 0;
+    overflow.clear();
+    if (base != null) {
+      for (String key : base.keySet()) {
+        putOwn(EventProperty.forKey(key), key, REMOVED);
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    if (base == null) {
+      return slotCount + overflow.size();
+    }
+    int size = base.size();
+    for (OwnIterator iterator = new OwnIterator(); iterator.hasNext(); ) {
+      RawEntry entry = iterator.next();
+      boolean inBase = base.containsKey(entry.getProperty(), entry.getKey());
+      if (entry.getRaw() == REMOVED) {
+        if (inBase) {
+          size--;
+        }
+      } else if (!inBase) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  /** @return The raw value this map itself holds for a key, or {@code null}, if it holds none. */
+  private Object getOwn(EventProperty property, Object key) {
+    return property != null ? slots[property.ordinal()] : overflow.get(key);
+  }
+
+  private Object putOwn(EventProperty property, String key, Object raw) {
+    return property != null ? setSlot(property.ordinal(), raw) : overflow.put(key, raw);
+  }
+
+  private Object removeOwn(EventProperty property, Object key) {
+    return property != null ? setSlot(property.ordinal(), null) : overflow.remove(key);
+  }
+
+  private Object setSlot(int index, Object raw) {
+    Object old = slots[index];
+    slots[index] = raw;
+    if (old == null && raw != null) {
+      slotCount++;
+    } else if (old != null && raw == null) {
+      slotCount--;
+    }
+    return old;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String resolve(Object raw) {
+    if (raw instanceof Supplier) {
+      return ((Supplier<String>) raw).get();
+    }
+    return raw == REMOVED || raw == NULL ? null : (String) raw;
+  }
+
+  private class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+      return base == null ? new PlainIterator() : new OverlayIterator();
+    }
+
+    @Override
+    public int size() {
+      return EventProperties.this.size();
+    }
+
+    @Override
+    public void clear() {
+      EventProperties.this.clear();
+    }
+  }
+
+  /** A raw value this map itself holds. */
+  private abstract static class RawEntry {
+    abstract EventProperty getProperty();
+
+    abstract String getKey();
+
+    abstract Object getRaw();
+
+    abstract Object setRaw(Object raw);
+  }
+
+  private class SlotEntry extends RawEntry {
+    private final int index;
+
+    SlotEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    EventProperty getProperty() {
+      return WELL_KNOWN[index];
+    }
+
+    @Override
+    String getKey() {
+      return WELL_KNOWN[index].getKey();
+    }
+
+    @Override
+    Object getRaw() {
+      return slots[index];
+    }
+
+    @Override
+    Object setRaw(Object raw) {
+      return setSlot(index, raw);
+    }
+  }
+
+  private static class OverflowEntry extends RawEntry {
+    private final Map.Entry<String, Object> entry;
+
+    OverflowEntry(Map.Entry<String, Object> entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    EventProperty getProperty() {
+      return null;
+    }
+
+    @Override
+    String getKey() {
+      return entry.getKey();
+    }
+
+    @Override
+    Object getRaw() {
+      return entry.getValue();
+    }
+
+    @Override
+    Object setRaw(Object raw) {
+      return entry.setValue(raw);
+    }
+  }
+
+  /** Iterates over the raw values this map itself holds, first the slots, then the overflow. */
+  private class OwnIterator implements Iterator<RawEntry> {
+    private int nextSlot = nextSlot(0);
+    private Iterator<Map.Entry<String, Object>> overflowIterator;
+    private RawEntry current;
+
+    private int nextSlot(int from) {
+      int index = from;
+      while (index < slots.length && slots[index] == null) {
+        index++;
+      }
+      return index;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextSlot < slots.length) {
+        return true;
+      }
+      if (overflowIterator == null) {
+        overflowIterator = overflow.entrySet().iterator();
+      }
+      return overflowIterator.hasNext();
+    }
+
+    @Override
+    public RawEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (nextSlot < slots.length) {
+        current = new SlotEntry(nextSlot);
+        nextSlot = nextSlot(nextSlot + 1);
+      } else {
+        current = new OverflowEntry(overflowIterator.next());
+      }
+      return current;
+    }
+
+    @Override
+    public void remove() {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      if (current instanceof SlotEntry) {
+        current.setRaw(null);
+      } else {
+        overflowIterator.remove();
+      }
+      current = null;
+    }
+  }
+
+  /** Iterates over the properties of a map that is no overlay. */
+  private class PlainIterator implements Iterator<Map.Entry<String, String>> {
+    private final OwnIterator iterator = new OwnIterator();
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public Map.Entry<String, String> next() {
+      return new LazyEntry(iterator.next());
+    }
+
+    @Override
+    public void remove() {
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Iterates over the properties of an overlay.
+   *
+   * <p>First come the overlay's own properties, then the base's properties that the overlay does
+   * not shadow. Removing properties only marks them as removed, so iterating stays valid.
+   */
+  private class OverlayIterator implements Iterator<Map.Entry<String, String>> {
+    private final OwnIterator ownIterator = new OwnIterator();
+    private Iterator<Map.Entry<String, String>> baseIterator;
+    private Map.Entry<String, String> next;
+    private Map.Entry<String, String> current;
+
+    @Override
+    public boolean hasNext() {
+      while (next == null) {
+        if (ownIterator.hasNext()) {
+          RawEntry entry = ownIterator.next();
+          if (entry.getRaw() != REMOVED) {
+            next = new LazyEntry(entry);
+          }
+        } else {
+          if (baseIterator == null) {
+            baseIterator = base.entrySet().iterator();
+          }
+          if (!baseIterator.hasNext()) {
+            return false;
+          }
+          Map.Entry<String, String> entry = baseIterator.next();
+          String key = entry.getKey();
+          if (getOwn(EventProperty.forKey(key), key) == null) {
+            next = new BaseEntry(key, entry);
+          }
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public Map.Entry<String, String> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = next;
+      next = null;
+      return current;
+    }
+
+    @Override
+    public void remove() {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      if (current instanceof LazyEntry) {
+        ((LazyEntry) current).entry.setRaw(REMOVED);
+      } else {
+        String key = current.getKey();
+        putOwn(EventProperty.forKey(key), key, REMOVED);
+      }
+      current = null;
+    }
+  }
+
+  /** Entry that computes its value only when it gets read. */
+  private static class LazyEntry extends PropertyEntry {
+    private final RawEntry entry;
+
+    LazyEntry(RawEntry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public String getKey() {
+      return entry.getKey();
+    }
+
+    @Override
+    public String getValue() {
+      return resolve(entry.getRaw());
+    }
+
+    @Override
+    public String setValue(String value) {
+      return resolve(entry.setRaw(value != null ? value : NULL));
+    }
+  }
+
+  /** Entry of a base property, whose modification only affects the overlay. */
+  private class BaseEntry extends PropertyEntry {
+    private final String key;
+    private final EventProperty property;
+    private final Map.Entry<String, String> baseEntry;
+
+    BaseEntry(String key, Map.Entry<String, String> baseEntry) {
+      this.key = key;
+      this.property = EventProperty.forKey(key);
+      this.baseEntry = baseEntry;
+    }
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public String getValue() {
+      Object raw = getOwn(property, key);
+      return raw != null ? resolve(raw) : baseEntry.getValue();
+    }
+
+    @Override
+    public String setValue(String value) {
+      String old = getValue();
+      putOwn(property, key, value != null ? value : NULL);
+      return old;
+    }
+  }
+
+  private abstract static class PropertyEntry implements Map.Entry<String, String> {
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      return Objects.equals(getKey(), other.getKey())
+          && Objects.equals(getValue(), other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
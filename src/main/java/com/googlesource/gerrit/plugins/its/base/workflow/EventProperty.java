@@ -0,0 +1,88 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+
+/**
+ * Well-known event properties.
+ *
+ * <p>{@link EventProperties} stores these properties in fixed slots, so reading them through
+ * {@link EventProperties#get(EventProperty)} needs no hashing of their key.
+ */
+public enum EventProperty {
+  ASSOCIATION("association"),
+  BRANCH("branch"),
+  CHANGE_ID("changeId"),
+  CHANGE_NUMBER("changeNumber"),
+  COMMIT_MESSAGE("commitMessage"),
+  EVENT("event"),
+  EVENT_TYPE("event-type"),
+  ISSUE("issue"),
+  ITS_NAME("itsName"),
+  ITS_PROJECT("its-project"),
+  PATCH_SET_NUMBER("patchSetNumber"),
+  PROJECT("project"),
+  REF("ref"),
+  REVISION("revision"),
+  SOURCE("source"),
+  STATUS("status"),
+  SUBJECT("subject");
+
+  private static final ImmutableMap<String, EventProperty> BY_KEY;
+
+  static {
+    ImmutableMap.Builder<String, EventProperty> byKey = ImmutableMap.builder();
+    for (EventProperty property : values()) {
+      byKey.put(property.key, property);
+    }
+    BY_KEY = byKey.build();
+  }
+
+  private final String key;
+
+  EventProperty(String key) {
+    this.key = key;
+  }
+
+  /** @return The key of the property, as used in rules and templates. */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * Reads this property from a map of properties.
+   *
+   * @param properties The properties to read from.
+   * @return The property's value, or {@code null}, if it is not set.
+   */
+  public String getFrom(Map<String, String> properties) {
+    if (properties instanceof EventProperties) {
+      return ((EventProperties) properties).get(this);
+    }
+    return properties.get(key);
+  }
+
+  /**
+   * Finds the well-known property for a key.
+   *
+   * @param key The key to find the property for.
+   * @return The property, or {@code null}, if the key is not well-known.
+   */
+  public static EventProperty forKey(Object key) {
+    return BY_KEY.get(key);
+  }
+}
@@ -14,21 +14,64 @@
 
 package com.googlesource.gerrit.plugins.its.base.workflow;
 
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.metrics.Timer0;
+import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacade;
+import com.googlesource.gerrit.plugins.its.base.util.CommitMessageFetcher;
 import com.googlesource.gerrit.plugins.its.base.util.IssueExtractor;
 import com.googlesource.gerrit.plugins.its.base.util.PropertyExtractor;
+import com.googlesource.gerrit.plugins.its.base.workflow.FireEventOnCommitsCheckpoints.Checkpoint;
 import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.CommitCollector;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.CommitIterator;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
 
-/** Fires the triggering event on collected past commits */
+/**
+ * Fires the triggering event on collected past commits
+ *
+ * <p>Issues get extracted from batches of commits while the collector walks them, so long walks
+ * need not hold all commit ids at once. The walk stops after {@code
+ * plugin.<name>.fireEventOnCommitsMaxCommits} commits or once {@code
+ * plugin.<name>.fireEventOnCommitsTimeout} passed, whichever comes first.
+ *
+ * <p>A checkpoint records the progress of long runs (see {@link FireEventOnCommitsCheckpoints}),
+ * so a run for the same range of commits does not handle issues again.
+ *
+ * <p>In aggregate mode, the event gets fired once per issue. The properties {@code commits} and
+ * {@code commitSubjects} then list the issue's commits and their subjects.
+ */
 public class FireEventOnCommits extends ProjectAction {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** Number of commits to extract issues from at once. */
+  static final int BATCH_SIZE = 256;
+
+  /** Number of commits between progress logs. */
+  private static final int PROGRESS_INTERVAL = 10_000;
+
+  /** Property of aggregated issues that lists their commits, separated by spaces. */
+  static final String COMMITS = "commits";
+
+  /** Property of aggregated issues that lists the subjects of their commits, one per line. */
+  static final String COMMIT_SUBJECTS = "commitSubjects";
 
   public interface Factory {
     FireEventOnCommits create();
@@ -36,22 +79,39 @@ public class FireEventOnCommits extends ProjectAction {
 
   private final PropertyExtractor propertyExtractor;
   private final IssueExtractor issueExtractor;
+  private final CommitMessageFetcher commitMessageFetcher;
   private final RuleBase ruleBase;
   private final ActionExecutor actionExecutor;
   private final FireEventOnCommitsParametersExtractor parametersExtractor;
+  private final FireEventOnCommitsMetrics metrics;
+  private final FireEventOnCommitsCheckpoints checkpoints;
+  private final int maxCommits;
+  private final long timeoutMs;
 
   @Inject
   public FireEventOnCommits(
       PropertyExtractor propertyExtractor,
       IssueExtractor issueExtractor,
+      CommitMessageFetcher commitMessageFetcher,
       RuleBase ruleBase,
       ActionExecutor actionExecutor,
-      FireEventOnCommitsParametersExtractor parametersExtractor) {
+      FireEventOnCommitsParametersExtractor parametersExtractor,
+      FireEventOnCommitsMetrics metrics,
+      FireEventOnCommitsCheckpoints checkpoints,
+      @PluginName String pluginName,
+      @GerritServerConfig Config gerritConfig) {
     this.propertyExtractor = propertyExtractor;
     this.issueExtractor = issueExtractor;
+    this.commitMessageFetcher = commitMessageFetcher;
     this.ruleBase = ruleBase;
     this.actionExecutor = actionExecutor;
     this.parametersExtractor = parametersExtractor;
+    this.metrics = metrics;
+    this.checkpoints = checkpoints;
+    this.maxCommits = gerritConfig.getInt("plugin", pluginName, "fireEventOnCommitsMaxCommits", 0);
+    this.timeoutMs =
+        gerritConfig.getTimeUnit(
+            "plugin", pluginName, "fireEventOnCommitsTimeout", 0, TimeUnit.MILLISECONDS);
   }
 
   @Override
@@ -67,16 +127,158 @@ public class FireEventOnCommits extends ProjectAction {
     CommitCollector commitCollector = extractedParameters.get().getCommitCollector();
     String projectName = extractedParameters.get().getProjectName();
 
-    Set<Map<String, String>> issuesProperties =
-        commitCollector.collect(properties).stream()
-            .map(commitId -> issueExtractor.getIssueIds(projectName, commitId))
-            .flatMap(Stream::of)
-            .map(
-                associations -> propertyExtractor.extractIssuesProperties(properties, associations))
-            .flatMap(Collection::stream)
-            .collect(Collectors.toSet());
+    Optional<Checkpoint> openedCheckpoint =
+        checkpoints.tryOpen(getRange(actionRequest, properties));
+    if (!openedCheckpoint.isPresent()) {
+      return;
+    }
+    try (Checkpoint checkpoint = openedCheckpoint.get()) {
+      CollectedIssues issues =
+          extractedParameters.get().isAggregate()
+              ? new AggregatedIssues(projectName, properties, checkpoint)
+              : new CollectedIssues(properties, checkpoint);
+      if (walk(commitCollector, projectName, properties, issues, checkpoint.getLastCommit())) {
+        checkpoint.complete();
+      }
+    }
+  }
 
-    issuesProperties.forEach(this::doExecute);
+  /**
+   * Identifies the range of commits of a run, so a run for the same range can resume from its
+   * checkpoint.
+   */
+  private static String getRange(ActionRequest actionRequest, Map<String, String> properties) {
+    return String.join(
+        " ",
+        EventProperty.PROJECT.getFrom(properties),
+        Arrays.toString(actionRequest.getParameters()),
+        EventProperty.REF.getFrom(properties),
+        properties.get("revisionOld"),
+        EventProperty.REVISION.getFrom(properties));
+  }
+
+  /** How a walk of the collected commits ended. */
+  private enum WalkEnd {
+    /** The walk went past the commit of the checkpoint, or there was no checkpoint. */
+    DONE,
+    /** The walk stopped at a limit before reaching the commit of the checkpoint. */
+    STOPPED_BEFORE_CHECKPOINT,
+    /** All commits got walked, but the commit of the checkpoint was not among them. */
+    CHECKPOINT_MISSED
+  }
+
+  /**
+   * Walks the collected commits and fires the event on their issues.
+   *
+   * @param resumeAfter The commit up to which a previous run handled all issues, or {@code null}.
+   * @return False, if the walk stopped at a limit before reaching {@code resumeAfter}. The
+   *     checkpoint then has to be kept, as the issues after it did not get handled.
+   */
+  private boolean walk(
+      CommitCollector commitCollector,
+      String projectName,
+      Map<String, String> properties,
+      CollectedIssues issues,
+      @Nullable String resumeAfter)
+      throws IOException {
+    WalkEnd end = walkFrom(commitCollector, projectName, properties, issues, resumeAfter);
+    if (end == WalkEnd.CHECKPOINT_MISSED) {
+      // The range changed since the checkpoint got written, e.g. as a new tag got pushed. So we
+      // walk all commits again, but still leave out the issues that got handled already.
+      logger.atWarning().log(
+          "Commit %s of the checkpoint was not walked in project %s, walking all commits again",
+          resumeAfter, projectName);
+      end = walkFrom(commitCollector, projectName, properties, issues, null);
+    } else if (end == WalkEnd.STOPPED_BEFORE_CHECKPOINT) {
+      logger.atWarning().log(
+          "Keeping the checkpoint after commit %s in project %s", resumeAfter, projectName);
+    }
+    return end != WalkEnd.STOPPED_BEFORE_CHECKPOINT;
+  }
+
+  /**
+   * Walks the collected commits and fires the event on the issues of the commits after {@code
+   * resumeAfter}.
+   *
+   * @param resumeAfter The commit up to which a previous run handled all issues, or {@code null}.
+   */
+  private WalkEnd walkFrom(
+      CommitCollector commitCollector,
+      String projectName,
+      Map<String, String> properties,
+      CollectedIssues issues,
+      @Nullable String resumeAfter)
+      throws IOException {
+    boolean skipping = resumeAfter != null;
+    try (CommitIterator commits = commitCollector.iterate(properties);
+        Timer0.Context ignored = metrics.latency.start()) {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+      List<String> batch = new ArrayList<>(BATCH_SIZE);
+      int walked = 0;
+      boolean stopped = false;
+      while (commits.hasNext()) {
+        if (maxCommits > 0 && walked >= maxCommits) {
+          stopWalk(projectName, walked, "the maximum commit count of " + maxCommits);
+          stopped = true;
+          break;
+        }
+        if (timeoutMs > 0 && System.nanoTime() - deadline > 0) {
+          stopWalk(projectName, walked, "the timeout of " + timeoutMs + " ms");
+          stopped = true;
+          break;
+        }
+        String commitId = commits.next();
+        walked++;
+        if (skipping) {
+          // The issues of the commits up to the checkpoint got handled already.
+          skipping = !commitId.equals(resumeAfter);
+        } else {
+          batch.add(commitId);
+          if (batch.size() == BATCH_SIZE) {
+            addIssues(projectName, batch, issues);
+            batch = new ArrayList<>(BATCH_SIZE);
+            if (commits.hasNext()) {
+              // The run goes past its first batch, so it is worth resuming if interrupted.
+              issues.checkpoint.persist();
+            }
+          }
+        }
+        if (walked % PROGRESS_INTERVAL == 0) {
+          logger.atInfo().log("Walked %d commits of project %s so far", walked, projectName);
+        }
+      }
+      if (skipping) {
+        return stopped ? WalkEnd.STOPPED_BEFORE_CHECKPOINT : WalkEnd.CHECKPOINT_MISSED;
+      }
+      addIssues(projectName, batch, issues);
+      issues.walkDone();
+      logger.atFine().log(
+          "Walked %d commits of project %s, found %d issues", walked, projectName, issues.size());
+      return WalkEnd.DONE;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void stopWalk(String projectName, int walked, String limit) {
+    logger.atWarning().log(
+        "Stopped walking commits of project %s after %d commits at %s. Issues of older commits"
+            + " are not handled.",
+        projectName, walked, limit);
+    metrics.truncatedRuns.increment();
+  }
+
+  private void addIssues(String projectName, List<String> commits, CollectedIssues issues) {
+    if (commits.isEmpty()) {
+      return;
+    }
+    metrics.commits.incrementBy(commits.size());
+    List<Map<String, Set<String>>> commitsAssociations =
+        issueExtractor.getIssueIdsFromCommits(projectName, commits);
+    for (int i = 0; i < commits.size(); i++) {
+      issues.add(commits.get(i), commitsAssociations.get(i));
+    }
+    issues.batchDone(commits.get(commits.size() - 1));
   }
 
   private void doExecute(Map<String, String> issueProperties) {
@@ -86,4 +288,132 @@ public class FireEventOnCommits extends ProjectAction {
     }
     actionExecutor.executeOnIssue(actions, issueProperties);
   }
+
+  /**
+   * The issues of the walked commits, with one event per issue and association.
+   *
+   * <p>The event gets fired on the issues of each batch of commits right away, so a checkpoint can
+   * record how far the run got.
+   */
+  private class CollectedIssues {
+    final Map<String, String> properties;
+    final Checkpoint checkpoint;
+
+    /** Keys of the issues found so far, see {@link #issueKey(Map)}. */
+    private final Set<String> found = new HashSet<>();
+
+    private final List<Map<String, String>> pending = new ArrayList<>();
+
+    CollectedIssues(Map<String, String> properties, Checkpoint checkpoint) {
+      this.properties = properties;
+      this.checkpoint = checkpoint;
+    }
+
+    void add(String commitId, Map<String, Set<String>> associations) {
+      for (Map<String, String> issueProperties :
+          propertyExtractor.extractIssuesProperties(properties, associations)) {
+        if (found.add(issueKey(issueProperties))) {
+          pending.add(issueProperties);
+        }
+      }
+    }
+
+    /** Fires the event on the issues of a batch of commits. */
+    void batchDone(String lastCommitId) {
+      pending.forEach(this::fire);
+      pending.clear();
+      checkpoint.commitsHandled(lastCommitId);
+    }
+
+    /** Gets called once all commits got walked. */
+    void walkDone() {}
+
+    int size() {
+      return found.size();
+    }
+
+    void fire(Map<String, String> issueProperties) {
+      String key = issueKey(issueProperties);
+      if (!checkpoint.isHandled(key)) {
+        doExecute(issueProperties);
+        checkpoint.issueHandled(key);
+      }
+    }
+
+    // All issue properties share the same common properties, so issue and association identify
+    // them. This avoids hashing whole property maps when dropping duplicates across commits.
+    String issueKey(Map<String, String> issueProperties) {
+      return EventProperty.ISSUE.getFrom(issueProperties)
+          + '\t'
+          + EventProperty.ASSOCIATION.getFrom(issueProperties);
+    }
+  }
+
+  /**
+   * The issues of the walked commits, with one event per issue for all of its commits.
+   *
+   * <p>The event can only get fired once all commits got walked.
+   */
+  private class AggregatedIssues extends CollectedIssues {
+    private final String projectName;
+    private final Map<String, Set<String>> associations = new LinkedHashMap<>();
+    private final Map<String, List<String>> commits = new HashMap<>();
+
+    AggregatedIssues(String projectName, Map<String, String> properties, Checkpoint checkpoint) {
+      super(properties, checkpoint);
+      this.projectName = projectName;
+    }
+
+    @Override
+    void add(String commitId, Map<String, Set<String>> commitAssociations) {
+      for (Map.Entry<String, Set<String>> association : commitAssociations.entrySet()) {
+        String issue = association.getKey();
+        associations
+            .computeIfAbsent(issue, k -> new LinkedHashSet<>())
+            .addAll(association.getValue());
+        commits.computeIfAbsent(issue, k -> new ArrayList<>()).add(commitId);
+      }
+    }
+
+    @Override
+    void batchDone(String lastCommitId) {}
+
+    @Override
+    void walkDone() {
+      for (Map.Entry<String, Set<String>> association : associations.entrySet()) {
+        List<String> issueCommits = commits.get(association.getKey());
+        for (Map<String, String> issueProperties :
+            propertyExtractor.extractIssuesProperties(
+                properties,
+                Collections.singletonMap(association.getKey(), association.getValue()))) {
+          EventProperties aggregated = EventProperties.overlay(issueProperties);
+          aggregated.put(COMMITS, String.join(" ", issueCommits));
+          aggregated.putLazy(COMMIT_SUBJECTS, () -> getSubjects(issueCommits));
+          fire(aggregated);
+        }
+      }
+    }
+
+    @Override
+    int size() {
+      return associations.size();
+    }
+
+    @Override
+    String issueKey(Map<String, String> issueProperties) {
+      return EventProperty.ISSUE.getFrom(issueProperties);
+    }
+
+    private String getSubjects(List<String> commitIds) {
+      List<String> subjects = new ArrayList<>(commitIds.size());
+      try (CommitMessageFetcher.Session session = commitMessageFetcher.openSession(projectName)) {
+        for (String commitId : commitIds) {
+          String message = session.fetchGuarded(commitId);
+          int end = message.indexOf('\n');
+          subjects.add(end < 0 ? message : message.substring(0, end));
+        }
+      }
+      return String.join("\n", subjects);
+    }
+  }
 }
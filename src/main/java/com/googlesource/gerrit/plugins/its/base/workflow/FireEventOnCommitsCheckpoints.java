@@ -0,0 +1,343 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.lifecycle.LifecycleModule;
+import com.google.gerrit.server.config.GerritServerConfig;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Persists the progress of {@code fire-event-on-commits} runs.
+ *
+ * <p>Runs that go past their first batch of commits get a checkpoint file in the plugin's data
+ * directory (see {@link Checkpoint#persist()}). It names the run's range, and gets appended a line
+ * for each handled issue and for each commit up to which all issues got handled. If a run for the
+ * same range starts again, e.g. after a restart, it resumes from the checkpoint. Once a run
+ * completes, its checkpoint gets deleted. Shorter runs keep their progress in memory only, as
+ * repeating them is cheap.
+ *
+ * <p>Only one run per range is in progress at a time, so runs do not write the same checkpoint at
+ * once. Runs that start while another one for the same range is in progress get skipped, as they
+ * would handle the same issues.
+ * Checkpoints whose runs never got repeated get deleted on plugin start, once they are older than
+ * {@code plugin.<name>.fireEventOnCommitsCheckpointMaxAge}.
+ *
+ * <p>Checkpoints are best effort. If they cannot be written, runs go on without them.
+ */
+@Singleton
+public class FireEventOnCommitsCheckpoints implements LifecycleListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private static final String RANGE = "range ";
+  private static final String ISSUE = "issue ";
+  private static final String COMMIT = "commit ";
+
+  private final Path dir;
+  private final long maxAgeMs;
+
+  /** Lock per range. Runs hold their lock, so it only gets collected once no run uses it. */
+  private final LoadingCache<String, Lock> rangeLocks =
+      CacheBuilder.newBuilder().weakValues().build(CacheLoader.from(range -> new ReentrantLock()));
+
+  @Inject
+  FireEventOnCommitsCheckpoints(
+      @PluginData Path pluginData,
+      @PluginName String pluginName,
+      @GerritServerConfig Config gerritConfig) {
+    this(
+        pluginData,
+        gerritConfig.getTimeUnit(
+            "plugin",
+            pluginName,
+            "fireEventOnCommitsCheckpointMaxAge",
+            TimeUnit.DAYS.toMillis(7),
+            TimeUnit.MILLISECONDS));
+  }
+
+  FireEventOnCommitsCheckpoints(Path pluginData, long maxAgeMs) {
+    this.dir = pluginData.resolve("fire-event-on-commits");
+    this.maxAgeMs = maxAgeMs;
+  }
+
+  @Override
+  public void start() {
+    if (maxAgeMs > 0) {
+      deleteOlderThan(System.currentTimeMillis() - maxAgeMs);
+    }
+  }
+
+  @Override
+  public void stop() {}
+
+  /** Deletes the checkpoints that were last written before {@code cutOffMs}. */
+  void deleteOlderThan(long cutOffMs) {
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    int deleted = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+      for (Path file : files) {
+        try {
+          if (Files.getLastModifiedTime(file).toMillis() < cutOffMs) {
+            Files.deleteIfExists(file);
+            deleted++;
+          }
+        } catch (IOException e) {
+          logger.atWarning().withCause(e).log("Cannot delete stale checkpoint %s", file);
+        }
+      }
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Cannot list checkpoints in %s", dir);
+    }
+    if (deleted > 0) {
+      logger.atInfo().log("Deleted %d stale checkpoints in %s", deleted, dir);
+    }
+  }
+
+  /**
+   * Opens the checkpoint of a run.
+   *
+   * <p>This does not wait for other runs, so it does not block the event handling thread.
+   *
+   * @param range Identifies the run's range of commits. It must not contain line breaks.
+   * @return The checkpoint of an earlier, unfinished run for {@code range}, or an empty one. Empty,
+   *     if another run for the same range is in progress.
+   */
+  Optional<Checkpoint> tryOpen(String range) {
+    Lock lock = rangeLocks.getUnchecked(range);
+    if (!lock.tryLock()) {
+      logger.atInfo().log("Skipping run for range %s, as another run for it is in progress", range);
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(read(new Checkpoint(range, getFile(range), lock)));
+    } catch (RuntimeException e) {
+      lock.unlock();
+      throw e;
+    }
+  }
+
+  private Path getFile(String range) {
+    return dir.resolve(Hashing.sha256().hashString(range, UTF_8).toString());
+  }
+
+  private static Checkpoint read(Checkpoint checkpoint) {
+    Path file = checkpoint.file;
+    String range = checkpoint.range;
+    List<String> lines;
+    try {
+      lines = readCompleteLines(file);
+    } catch (NoSuchFileException e) {
+      return checkpoint;
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Cannot read checkpoint %s, starting over", file);
+      return checkpoint;
+    }
+
+    if (lines.isEmpty() || !lines.get(0).equals(RANGE + range)) {
+      logger.atWarning().log("Checkpoint %s is not for range %s, starting over", file, range);
+      checkpoint.delete();
+      return checkpoint;
+    }
+    for (String line : lines.subList(1, lines.size())) {
+      if (line.startsWith(ISSUE)) {
+        checkpoint.handledIssues.add(line.substring(ISSUE.length()));
+      } else if (line.startsWith(COMMIT) && ObjectId.isId(line.substring(COMMIT.length()))) {
+        checkpoint.lastCommit = line.substring(COMMIT.length());
+      }
+    }
+    logger.atInfo().log(
+        "Resuming range %s after commit %s with %d handled issues",
+        range, checkpoint.lastCommit, checkpoint.handledIssues.size());
+    checkpoint.exists = true;
+    return checkpoint;
+  }
+
+  /** Reads the lines of a file, leaving out a last line that got only partially written. */
+  private static List<String> readCompleteLines(Path file) throws IOException {
+    String content = new String(Files.readAllBytes(file), UTF_8);
+    List<String> lines = Splitter.on('\n').splitToList(content);
+    return lines.subList(0, lines.size() - 1);
+  }
+
+  public static Module module() {
+    return new LifecycleModule() {
+      @Override
+      protected void configure() {
+        listener().to(FireEventOnCommitsCheckpoints.class);
+      }
+    };
+  }
+
+  /** Progress of a single run. */
+  static class Checkpoint implements AutoCloseable {
+    private final String range;
+    private final Path file;
+    private final Set<String> handledIssues = new HashSet<>();
+    private final List<String> pending = new ArrayList<>();
+    private Lock lock;
+    private String lastCommit;
+    private boolean persistent;
+    private boolean exists;
+    private BufferedWriter writer;
+    private boolean failed;
+
+    private Checkpoint(String range, Path file, Lock lock) {
+      this.range = range;
+      this.file = file;
+      this.lock = lock;
+    }
+
+    /** @return The last commit up to which all issues got handled, or {@code null}. */
+    @Nullable
+    String getLastCommit() {
+      return lastCommit;
+    }
+
+    /** @return True, if the issue with the given key got handled already. */
+    boolean isHandled(String issueKey) {
+      return handledIssues.contains(issueKey);
+    }
+
+    /** Records that the issue with the given key got handled. */
+    void issueHandled(String issueKey) {
+      if (handledIssues.add(issueKey)) {
+        append(ISSUE + issueKey);
+      }
+    }
+
+    /** Records that the issues of all commits up to {@code commitId} got handled. */
+    void commitsHandled(String commitId) {
+      lastCommit = commitId;
+      append(COMMIT + commitId);
+    }
+
+    /**
+     * Writes the checkpoint from now on.
+     *
+     * <p>Until then, the progress is only kept in memory, so short runs need not touch the disk.
+     */
+    void persist() {
+      if (!persistent) {
+        persistent = true;
+        flushPending();
+      }
+    }
+
+    /** Deletes the checkpoint, as its run completed. */
+    void complete() {
+      closeWriter();
+      pending.clear();
+      delete();
+    }
+
+    private void append(String line) {
+      pending.add(line);
+      if (persistent || exists) {
+        flushPending();
+      }
+    }
+
+    private void flushPending() {
+      if (failed) {
+        pending.clear();
+        return;
+      }
+      try {
+        if (writer == null) {
+          Files.createDirectories(file.getParent());
+          writer =
+              Files.newBufferedWriter(
+                  file, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+          if (!exists) {
+            writer.write(RANGE + range);
+            writer.write('\n');
+            exists = true;
+          }
+        }
+        for (String line : pending) {
+          writer.write(line);
+          writer.write('\n');
+        }
+        writer.flush();
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Cannot write checkpoint %s", file);
+        failed = true;
+      }
+      pending.clear();
+    }
+
+    private void delete() {
+      try {
+        Files.deleteIfExists(file);
+        exists = false;
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Cannot delete checkpoint %s", file);
+      }
+    }
+
+    private void closeWriter() {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (IOException e) {
+          logger.atWarning().withCause(e).log("Cannot close checkpoint %s", file);
+        }
+        writer = null;
+      }
+    }
+
+    /** Closes the checkpoint, so later runs for the same range can open it. */
+    @Override
+    public void close() {
+      closeWriter();
+      if (lock != null) {
+        lock.unlock();
+        lock = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer0;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/** Metrics on the commits that {@code fire-event-on-commits} walks. */
+@Singleton
+class FireEventOnCommitsMetrics {
+  final Counter0 commits;
+  final Counter0 truncatedRuns;
+  final Timer0 latency;
+
+  @Inject
+  FireEventOnCommitsMetrics(MetricMaker metricMaker) {
+    commits =
+        metricMaker.newCounter(
+            "fire_event_on_commits/commits",
+            new Description("Commits walked by fire-event-on-commits")
+                .setCumulative()
+                .setUnit("commits"));
+    truncatedRuns =
+        metricMaker.newCounter(
+            "fire_event_on_commits/truncated_runs",
+            new Description(
+                    "Runs of fire-event-on-commits that stopped at the maximum commit count or"
+                        + " time budget")
+                .setCumulative()
+                .setUnit("runs"));
+    latency =
+        metricMaker.newTimer(
+            "fire_event_on_commits/latency",
+            new Description("Time to walk the commits and fire the event on their issues")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+  }
+}
@@ -21,10 +21,17 @@ public class FireEventOnCommitsParameters {
 
   private final CommitCollector commitCollector;
   private final String projectName;
+  private final boolean aggregate;
 
   public FireEventOnCommitsParameters(CommitCollector commitCollector, String projectName) {
+    this(commitCollector, projectName, false);
+  }
+
+  public FireEventOnCommitsParameters(
+      CommitCollector commitCollector, String projectName, boolean aggregate) {
     this.commitCollector = commitCollector;
     this.projectName = projectName;
+    this.aggregate = aggregate;
   }
 
   /**
@@ -38,4 +45,12 @@ public class FireEventOnCommitsParameters {
   public String getProjectName() {
     return projectName;
   }
+
+  /**
+   * @return True, if the event should be fired once per issue for all of its commits. False, if it
+   *     should be fired for each association of an issue to a commit.
+   */
+  public boolean isAggregate() {
+    return aggregate;
+  }
 }
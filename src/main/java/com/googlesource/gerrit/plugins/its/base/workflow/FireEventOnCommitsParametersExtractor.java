@@ -16,6 +16,9 @@ package com.googlesource.gerrit.plugins.its.base.workflow;
 
 import com.google.common.base.Strings;
 import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.registration.DynamicMap;
+import com.google.gerrit.extensions.registration.Extension;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.BetweenRevisionsCommitCollector;
 import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.CommitCollector;
 import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.SinceLastTagCommitCollector;
 import java.util.Arrays;
@@ -26,21 +29,42 @@ import javax.inject.Inject;
 public class FireEventOnCommitsParametersExtractor {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  /** Optional second parameter to fire the event once per issue instead of once per commit. */
+  static final String AGGREGATE = "aggregate";
+
   private final SinceLastTagCommitCollector.Factory sinceLastTagCommitCollectorFactory;
+  private final BetweenRevisionsCommitCollector.Factory betweenRevisionsCommitCollectorFactory;
+  private final DynamicMap<CommitCollector> customCommitCollectors;
 
   @Inject
   public FireEventOnCommitsParametersExtractor(
-      SinceLastTagCommitCollector.Factory sinceLastTagCommitCollectorFactory) {
+      SinceLastTagCommitCollector.Factory sinceLastTagCommitCollectorFactory,
+      BetweenRevisionsCommitCollector.Factory betweenRevisionsCommitCollectorFactory,
+      DynamicMap<CommitCollector> customCommitCollectors) {
     this.sinceLastTagCommitCollectorFactory = sinceLastTagCommitCollectorFactory;
+    this.betweenRevisionsCommitCollectorFactory = betweenRevisionsCommitCollectorFactory;
+    this.customCommitCollectors = customCommitCollectors;
   }
 
   private CommitCollector getCommitCollector(String name) {
     switch (name) {
       case "since-last-tag":
         return sinceLastTagCommitCollectorFactory.create();
+      case "between-revisions":
+        return betweenRevisionsCommitCollectorFactory.create();
       default:
-        return null;
+        return getCustomCommitCollector(name);
+    }
+  }
+
+  /** @return The collector that some plugin registered under {@code name}, or null. */
+  private CommitCollector getCustomCommitCollector(String name) {
+    for (Extension<CommitCollector> collector : customCommitCollectors) {
+      if (collector.getExportName().equals(name)) {
+        return collector.get();
+      }
     }
+    return null;
   }
 
   /**
@@ -50,10 +74,10 @@ public class FireEventOnCommitsParametersExtractor {
   public Optional<FireEventOnCommitsParameters> extract(
       ActionRequest actionRequest, Map<String, String> properties) {
     String[] parameters = actionRequest.getParameters();
-    if (parameters.length != 1) {
+    if (parameters.length != 1 && (parameters.length != 2 || !AGGREGATE.equals(parameters[1]))) {
       logger.atSevere().log(
-          "Wrong number of received parameters. Received parameters are %s. Only one parameter is expected, the collector name.",
-          Arrays.toString(parameters));
+          "Wrong received parameters. Received parameters are %s. Expected are the collector name and optionally '%s'.",
+          Arrays.toString(parameters), AGGREGATE);
       return Optional.empty();
     }
 
@@ -70,6 +94,7 @@ public class FireEventOnCommitsParametersExtractor {
     }
 
     String projectName = properties.get("project");
-    return Optional.of(new FireEventOnCommitsParameters(commitCollector, projectName));
+    boolean aggregate = parameters.length == 2;
+    return Optional.of(new FireEventOnCommitsParameters(commitCollector, projectName, aggregate));
   }
 }
@@ -19,8 +19,6 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.entities.Project;
-import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
-import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.gerrit.server.cache.CacheModule;
 import com.google.gerrit.server.project.ProjectCache;
 import com.google.gerrit.server.project.ProjectState;
@@ -72,8 +70,6 @@ public class ItsRulesProjectCacheImpl implements ItsRulesProjectCache {
 
         bind(ItsRulesProjectCacheImpl.class);
         bind(ItsRulesProjectCache.class).to(ItsRulesProjectCacheImpl.class);
-        DynamicSet.bind(binder(), GitReferenceUpdatedListener.class)
-            .to(ItsRulesProjectCacheRefresher.class);
       }
     };
   }
@@ -0,0 +1,96 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+
+/**
+ * The event properties that rules may use.
+ *
+ * <p>Properties that are not part of the projection need not get extracted from events, as no
+ * condition, action, or template reads them.
+ */
+public class PropertyProjection {
+  /** Properties that the plugin itself relies on, regardless of the configured rules. */
+  static final ImmutableSet<String> REQUIRED_KEYS =
+      ImmutableSet.of(
+          "association",
+          "event",
+          "event-type",
+          "issue",
+          "its-project",
+          "itsName",
+          "project",
+          "ref",
+          "source");
+
+  /** Projection that includes all properties. */
+  public static final PropertyProjection ALL = new PropertyProjection(null);
+
+  /** Keys of the included properties, or {@code null}, if all properties are included. */
+  private final ImmutableSet<String> keys;
+
+  private PropertyProjection(ImmutableSet<String> keys) {
+    this.keys = keys;
+  }
+
+  /**
+   * Creates a projection onto some properties.
+   *
+   * @param keys The keys of the properties to include. The {@link #REQUIRED_KEYS} always get
+   *     included.
+   * @return The projection.
+   */
+  public static PropertyProjection of(Set<String> keys) {
+    return new PropertyProjection(
+        ImmutableSet.<String>builder().addAll(REQUIRED_KEYS).addAll(keys).build());
+  }
+
+  /** @return True, if the property with the given key is included in the projection. */
+  public boolean includes(String key) {
+    return keys == null || keys.contains(key);
+  }
+
+  /**
+   * Checks whether any property whose key starts with a given prefix is included.
+   *
+   * <p>This allows to skip computing whole groups of properties, like the ones of an account.
+   *
+   * @param prefix The prefix to check.
+   * @return True, if a property with the prefix is included in the projection.
+   */
+  public boolean includesPrefix(String prefix) {
+    if (keys == null) {
+      return true;
+    }
+    for (String key : keys) {
+      if (key.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** @return True, if all properties are included in the projection. */
+  public boolean includesAll() {
+    return keys == null;
+  }
+
+  @Override
+  public String toString() {
+    return keys == null ? "[all]" : keys.toString();
+  }
+}
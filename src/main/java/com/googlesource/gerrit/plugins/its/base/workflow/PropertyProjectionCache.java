@@ -0,0 +1,86 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the properties that the rules of projects may use.
+ *
+ * <p>Entries depend on the rules of a project and on the soy templates that the rules use. They
+ * get evicted along with the project's rules, and all of them get evicted once a template's
+ * properties change.
+ */
+@Singleton
+public class PropertyProjectionCache {
+  static final String CACHE_NAME = "its_property_projections";
+
+  private final Cache<String, PropertyProjection> cache;
+
+  @Inject
+  PropertyProjectionCache(@Named(CACHE_NAME) Cache<String, PropertyProjection> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the projection for a project.
+   *
+   * @param projectName The project to get the projection for.
+   * @param loader Computes the projection, if it is not cached.
+   * @return The projection onto the properties that the project's rules may use.
+   */
+  PropertyProjection get(String projectName, Supplier<PropertyProjection> loader) {
+    try {
+      return cache.get(projectName, loader::get);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Invalidates the projection of a project.
+   *
+   * @param projectName The project to invalidate the projection of.
+   */
+  public void evict(String projectName) {
+    cache.invalidate(projectName);
+  }
+
+  /** Invalidates the projections of all projects. */
+  void evictAll() {
+    cache.invalidateAll();
+  }
+
+  public static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, String.class, PropertyProjection.class);
+
+        bind(PropertyProjectionCache.class);
+      }
+    };
+  }
+}
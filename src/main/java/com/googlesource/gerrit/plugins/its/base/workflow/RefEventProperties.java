@@ -14,22 +14,23 @@
 
 package com.googlesource.gerrit.plugins.its.base.workflow;
 
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /** The properties extracted from a {@link com.google.gerrit.server.events.RefEvent} */
 public class RefEventProperties {
 
   private final Map<String, String> projectProperties;
-  private final Set<Map<String, String>> issuesProperties;
+  private final List<Map<String, String>> issuesProperties;
 
   /**
    * @param projectProperties Properties of the ref event
    * @param issuesProperties Properties of the ref event added of the properties specific to the
-   *     issues. There will be as many set of properties as number of issues
+   *     issues. There will be as many set of properties as number of issues, each issue and
+   *     association occurring only once
    */
   public RefEventProperties(
-      Map<String, String> projectProperties, Set<Map<String, String>> issuesProperties) {
+      Map<String, String> projectProperties, List<Map<String, String>> issuesProperties) {
     this.projectProperties = projectProperties;
     this.issuesProperties = issuesProperties;
   }
@@ -43,7 +44,7 @@ public class RefEventProperties {
    * @return Properties of the ref event added of the properties specific to the issues. There will
    *     be as many set of properties as number of issues
    */
-  public Set<Map<String, String>> getIssuesProperties() {
+  public List<Map<String, String>> getIssuesProperties() {
     return issuesProperties;
   }
 }
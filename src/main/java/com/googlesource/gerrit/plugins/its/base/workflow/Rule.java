@@ -63,6 +63,16 @@ public class Rule {
     actionRequests.add(actionRequest);
   }
 
+  /** @return The conditions of this rule. */
+  Collection<Condition> getConditions() {
+    return Collections.unmodifiableSet(conditions);
+  }
+
+  /** @return All action requests of this rule, regardless of its conditions. */
+  List<ActionRequest> getActionRequests() {
+    return Collections.unmodifiableList(actionRequests);
+  }
+
   /**
    * Gets this rule's the action requests for a given set of properties.
    *
@@ -81,6 +91,24 @@ public class Rule {
     return Collections.unmodifiableList(actionRequests);
   }
 
+  /**
+   * Checks whether this rule may match an event, given only some of its properties.
+   *
+   * <p>Conditions on properties that are not given are assumed to be met, as their value is not
+   * known yet.
+   *
+   * @param knownProperties The properties of the event that are known up front.
+   * @return False, if a condition on one of the known properties is not met. True otherwise.
+   */
+  public boolean mayMatch(Map<String, String> knownProperties) {
+    for (Condition condition : conditions) {
+      if (knownProperties.containsKey(condition.getKey()) && !condition.isMetBy(knownProperties)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public String toString() {
     return "[" + name + ", " + conditions + " -> " + actionRequests + "]";
@@ -14,8 +14,12 @@
 
 package com.googlesource.gerrit.plugins.its.base.workflow;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.registration.DynamicMap;
+import com.google.gerrit.extensions.registration.PluginName;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.its.base.GlobalRulesFileName;
 import com.googlesource.gerrit.plugins.its.base.ItsPath;
@@ -26,7 +30,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import org.eclipse.jgit.errors.ConfigInvalidException;
 import org.eclipse.jgit.storage.file.FileBasedConfig;
 import org.eclipse.jgit.util.FS;
@@ -35,9 +41,28 @@ import org.eclipse.jgit.util.FS;
 public class RuleBase {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  /** Properties read by the {@code add-standard-comment} action. */
+  private static final ImmutableSet<String> STANDARD_COMMENT_KEYS =
+      ImmutableSet.of(
+          "changeNumber",
+          "subject",
+          "reason",
+          "formatChangeUrl",
+          "abandonerName",
+          "abandonerUsername",
+          "submitterName",
+          "submitterUsername",
+          "restorerName",
+          "restorerUsername",
+          "uploaderName",
+          "uploaderUsername");
+
   private final File globalRuleFile;
   private final File itsSpecificRuleFile;
   private final ItsRulesProjectCache rulesProjectCache;
+  private final PropertyProjectionCache propertyProjectionCache;
+  private final SoyTemplateCache soyTemplateCache;
+  private final DynamicMap<CustomAction> customActions;
 
   private Collection<Rule> rules;
 
@@ -51,10 +76,16 @@ public class RuleBase {
       @GlobalRulesFileName String globalRulesFileName,
       @PluginRulesFileName String pluginRulesFileName,
       ItsRulesProjectCache rulesProjectCache,
-      RulesConfigReader rulesConfigReader) {
+      PropertyProjectionCache propertyProjectionCache,
+      SoyTemplateCache soyTemplateCache,
+      RulesConfigReader rulesConfigReader,
+      DynamicMap<CustomAction> customActions) {
     this.globalRuleFile = itsPath.resolve(globalRulesFileName).toFile();
     this.itsSpecificRuleFile = itsPath.resolve(pluginRulesFileName).toFile();
     this.rulesProjectCache = rulesProjectCache;
+    this.propertyProjectionCache = propertyProjectionCache;
+    this.soyTemplateCache = soyTemplateCache;
+    this.customActions = customActions;
     this.rules =
         new ImmutableList.Builder<Rule>()
             .addAll(getRulesFromFile(rulesConfigReader, globalRuleFile))
@@ -93,9 +124,8 @@ public class RuleBase {
    * @return Requests for the actions that should be fired.
    */
   public Collection<ActionRequest> actionRequestsFor(Map<String, String> properties) {
-    String projectName = properties.get("project");
-    Collection<Rule> fromProjectConfig = rulesProjectCache.get(projectName);
-    Collection<Rule> rulesToAdd = !fromProjectConfig.isEmpty() ? fromProjectConfig : rules;
+    String projectName = EventProperty.PROJECT.getFrom(properties);
+    Collection<Rule> rulesToAdd = getRules(projectName);
     if (rulesToAdd.isEmpty() && !globalRuleFile.exists() && !itsSpecificRuleFile.exists()) {
       logger.atFine().log(
           "Neither global rule file %s nor Its specific rule file %s exist and no rules are "
@@ -109,4 +139,127 @@ public class RuleBase {
     }
     return actions;
   }
+
+  /**
+   * Checks whether any rule may match an event, given only some of its properties.
+   *
+   * <p>This allows to skip events before extracting their properties, which may need to read
+   * commit messages and search them for issues.
+   *
+   * @param knownProperties The properties of the event that are known up front. They have to
+   *     contain the event's project.
+   * @return False, if no rule can match the event. True otherwise.
+   */
+  public boolean mayMatch(Map<String, String> knownProperties) {
+    String projectName = EventProperty.PROJECT.getFrom(knownProperties);
+    for (Rule rule : getRules(projectName)) {
+      if (rule.mayMatch(knownProperties)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Collection<Rule> getRules(String projectName) {
+    Collection<Rule> fromProjectConfig = rulesProjectCache.get(projectName);
+    return !fromProjectConfig.isEmpty() ? fromProjectConfig : rules;
+  }
+
+  /**
+   * Gets the properties that the rules of a project may use.
+   *
+   * <p>These are the keys of the rules' conditions and the properties read by the rules' actions.
+   * If an action may read arbitrary properties (like {@code log-event}, or actions provided by
+   * other plugins), all properties are considered used.
+   *
+   * <p>The projection gets computed once and cached along with the project's rules.
+   *
+   * @param projectName The project to get the used properties for.
+   * @return The projection onto the used properties.
+   */
+  public PropertyProjection getPropertyProjection(String projectName) {
+    return propertyProjectionCache.get(projectName, () -> computePropertyProjection(projectName));
+  }
+
+  private PropertyProjection computePropertyProjection(String projectName) {
+    Set<String> keys = new HashSet<>();
+    for (Rule rule : getRules(projectName)) {
+      for (Condition condition : rule.getConditions()) {
+        keys.add(condition.getKey());
+      }
+      for (ActionRequest actionRequest : rule.getActionRequests()) {
+        if (!addUsedPropertyKeys(actionRequest, keys)) {
+          return PropertyProjection.ALL;
+        }
+      }
+    }
+    return PropertyProjection.of(keys);
+  }
+
+  /**
+   * Adds the keys of the properties read by an action.
+   *
+   * @return False, if the action may read any property.
+   */
+  private boolean addUsedPropertyKeys(ActionRequest actionRequest, Set<String> keys) {
+    String name = actionRequest.getName();
+    switch (name) {
+      case "add-comment":
+        return true;
+      case "add-standard-comment":
+        keys.addAll(STANDARD_COMMENT_KEYS);
+        return true;
+      case "add-soy-comment":
+        return addSoyTemplateKeys(actionRequest.getParameter(1), keys);
+      case "add-property-to-field":
+      case "create-version-from-property":
+        keys.add(actionRequest.getParameter(1));
+        return true;
+      case "fire-event-on-commits":
+        return addCommitCollectorKeys(actionRequest.getParameter(1), keys);
+      case "log-event":
+        return false;
+      default:
+        // Actions without a custom implementation get passed to the ITS without properties.
+        return customActions.get(PluginName.GERRIT, name) == null;
+    }
+  }
+
+  /**
+   * Adds the keys of the properties read by a commit collector.
+   *
+   * @return False, if the collector may read any property.
+   */
+  private static boolean addCommitCollectorKeys(String collector, Set<String> keys) {
+    switch (collector) {
+      case "since-last-tag":
+        keys.add("revision");
+        return true;
+      case "between-revisions":
+        keys.add("revision");
+        keys.add("revisionOld");
+        return true;
+      default:
+        // Collectors of other plugins may read any property.
+        return false;
+    }
+  }
+
+  /**
+   * Adds the keys of the properties referenced in a soy template.
+   *
+   * @return False, if the template could not be read.
+   */
+  private boolean addSoyTemplateKeys(String template, Set<String> keys) {
+    if (Strings.isNullOrEmpty(template)) {
+      return true;
+    }
+    try {
+      keys.addAll(soyTemplateCache.getKeys(template));
+      return true;
+    } catch (RuntimeException e) {
+      logger.atFine().withCause(e).log("Cannot read properties of template %s", template);
+      return false;
+    }
+  }
 }
@@ -0,0 +1,212 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.lifecycle.LifecycleModule;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.ProvisionException;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.template.soy.SoyFileSet;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import com.googlesource.gerrit.plugins.its.base.ItsPath;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of the compiled soy templates of {@link AddSoyComment}.
+ *
+ * <p>Compiling a template is far more expensive than rendering it, so each template gets compiled
+ * once and reused as long as its file's modification time is unchanged. All templates in the
+ * template directory get compiled when the plugin starts, so syntax errors show up in the logs
+ * right away instead of upon the first event that uses the template.
+ *
+ * <p>The cache also knows the properties that a template references, so {@link RuleBase} need not
+ * read the template again to find out which properties to extract.
+ */
+@Singleton
+public class SoyTemplateCache implements LifecycleListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  static final String CACHE_NAME = "its_soy_templates";
+
+  private static final String SOY_SUFFIX = ".soy";
+
+  /** Matches variable references in soy templates. */
+  private static final Pattern SOY_VARIABLE_PATTERN =
+      Pattern.compile("\\$([a-zA-Z_][a-zA-Z0-9_]*)");
+
+  /** Matches parameter declarations in soy templates. */
+  private static final Pattern SOY_PARAM_PATTERN =
+      Pattern.compile("\\{@param\\??\\s+([a-zA-Z_][a-zA-Z0-9_]*)");
+
+  private final Path templateDir;
+  private final Cache<Path, CompiledTemplate> cache;
+  private final PropertyProjectionCache projections;
+
+  @Inject
+  SoyTemplateCache(
+      @ItsPath Path itsPath,
+      @Named(CACHE_NAME) Cache<Path, CompiledTemplate> cache,
+      PropertyProjectionCache projections) {
+    this.templateDir = AddSoyComment.getTemplateDir(itsPath);
+    this.cache = cache;
+    this.projections = projections;
+  }
+
+  /**
+   * Gets a compiled template.
+   *
+   * @param template The name of the template, which is also the name of its file without the
+   *     {@code .soy} suffix.
+   * @return The compiled template.
+   * @throws ProvisionException if the template file cannot be read.
+   */
+  SoySauce get(String template) {
+    return getCompiled(template).soySauce;
+  }
+
+  /**
+   * Gets the properties that a template references.
+   *
+   * @param template The name of the template, which is also the name of its file without the
+   *     {@code .soy} suffix.
+   * @return The keys of the referenced properties.
+   * @throws ProvisionException if the template file cannot be read.
+   */
+  ImmutableSet<String> getKeys(String template) {
+    return getCompiled(template).keys;
+  }
+
+  private CompiledTemplate getCompiled(String template) {
+    Path templatePath = templateDir.resolve(template + SOY_SUFFIX);
+    FileTime modified;
+    try {
+      modified = Files.getLastModifiedTime(templatePath);
+    } catch (IOException err) {
+      throw new ProvisionException(
+          "Failed to read template file " + templatePath.toAbsolutePath().toString(), err);
+    }
+
+    CompiledTemplate cached = cache.getIfPresent(templatePath);
+    if (cached != null && cached.modified.equals(modified)) {
+      return cached;
+    }
+
+    // The modification time is read before the content, so a template that changes meanwhile
+    // gets compiled again upon its next use.
+    CompiledTemplate compiled = compile(templatePath, modified);
+    cache.put(templatePath, compiled);
+    if (cached != null && !cached.keys.equals(compiled.keys)) {
+      // The cached projections may lack properties that the template now references.
+      projections.evictAll();
+    }
+    return compiled;
+  }
+
+  private static CompiledTemplate compile(Path templatePath, FileTime modified) {
+    String content;
+    try {
+      content = new String(Files.readAllBytes(templatePath), StandardCharsets.UTF_8);
+    } catch (IOException err) {
+      throw new ProvisionException(
+          "Failed to read template file " + templatePath.toAbsolutePath().toString(), err);
+    }
+    SoySauce soySauce =
+        SoyFileSet.builder()
+            .add(content, templatePath.toAbsolutePath().toString())
+            .build()
+            .compileTemplates();
+    logger.atFine().log("Compiled template %s", templatePath);
+    return new CompiledTemplate(modified, soySauce, readKeys(content));
+  }
+
+  private static ImmutableSet<String> readKeys(String content) {
+    ImmutableSet.Builder<String> keys = ImmutableSet.builder();
+    Matcher matcher = SOY_VARIABLE_PATTERN.matcher(content);
+    while (matcher.find()) {
+      keys.add(matcher.group(1));
+    }
+    // Declared parameters have to get passed, even if the template does not reference them.
+    matcher = SOY_PARAM_PATTERN.matcher(content);
+    while (matcher.find()) {
+      keys.add(matcher.group(1));
+    }
+    return keys.build();
+  }
+
+  @Override
+  public void start() {
+    if (!Files.isDirectory(templateDir)) {
+      return;
+    }
+    try (DirectoryStream<Path> templates = Files.newDirectoryStream(templateDir, "*.soy")) {
+      for (Path templatePath : templates) {
+        String fileName = templatePath.getFileName().toString();
+        try {
+          get(fileName.substring(0, fileName.length() - SOY_SUFFIX.length()));
+        } catch (RuntimeException e) {
+          logger.atSevere().withCause(e).log("Failed to compile template %s", templatePath);
+        }
+      }
+    } catch (IOException e) {
+      logger.atSevere().withCause(e).log("Failed to list templates in %s", templateDir);
+    }
+  }
+
+  @Override
+  public void stop() {}
+
+  public static Module cacheModule() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Path.class, CompiledTemplate.class).maximumWeight(128);
+      }
+    };
+  }
+
+  public static Module module() {
+    return new LifecycleModule() {
+      @Override
+      protected void configure() {
+        listener().to(SoyTemplateCache.class);
+      }
+    };
+  }
+
+  static class CompiledTemplate {
+    private final FileTime modified;
+    private final SoySauce soySauce;
+    private final ImmutableSet<String> keys;
+
+    CompiledTemplate(FileTime modified, SoySauce soySauce, ImmutableSet<String> keys) {
+      this.modified = modified;
+      this.soySauce = soySauce;
+      this.keys = keys;
+    }
+  }
+}
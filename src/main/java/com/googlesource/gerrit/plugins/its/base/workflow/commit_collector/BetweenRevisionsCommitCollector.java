@@ -0,0 +1,117 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
+
+import com.google.common.base.Strings;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Collects all commits that an update of a ref brought in.
+ *
+ * <p>These are the commits reachable from {@code revision}, but not from {@code revisionOld}. For
+ * newly created refs, the commits that are already reachable from other branches are left out.
+ */
+public class BetweenRevisionsCommitCollector implements CommitCollector {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  public interface Factory {
+    BetweenRevisionsCommitCollector create();
+  }
+
+  private final GitRepositoryManager repoManager;
+
+  @Inject
+  public BetweenRevisionsCommitCollector(GitRepositoryManager repoManager) {
+    this.repoManager = repoManager;
+  }
+
+  @Override
+  public List<String> collect(Map<String, String> properties) throws IOException {
+    return CommitIterator.toList(iterate(properties));
+  }
+
+  @Override
+  public CommitIterator iterate(Map<String, String> properties) throws IOException {
+    ObjectId revision = toObjectId(properties.get("revision"));
+    if (revision == null) {
+      // The ref got deleted, so the update brought in no commits.
+      return CommitIterator.of(Collections.emptyList());
+    }
+    ObjectId revisionOld = toObjectId(properties.get("revisionOld"));
+    String projectName = properties.get("project");
+
+    Repository repo = repoManager.openRepository(Project.nameKey(projectName));
+    RevWalkCommitIterator commits = new RevWalkCommitIterator(repo);
+    try {
+      RevWalk revWalk = commits.getRevWalk();
+      revWalk.markStart(revWalk.parseCommit(revision));
+      if (revisionOld == null || !markUninteresting(revWalk, revisionOld)) {
+        markOtherBranchesUninteresting(repo, revWalk, properties.get("ref"));
+      }
+      return commits;
+    } catch (IOException | RuntimeException e) {
+      commits.close();
+      throw e;
+    }
+  }
+
+  /** @return True, if {@code revisionOld} got marked. False, if it no longer exists. */
+  private boolean markUninteresting(RevWalk revWalk, ObjectId revisionOld) throws IOException {
+    try {
+      revWalk.markUninteresting(revWalk.parseCommit(revisionOld));
+      return true;
+    } catch (MissingObjectException e) {
+      logger.atWarning().log(
+          "Old revision %s is gone, collecting commits not on other branches instead",
+          revisionOld.name());
+      return false;
+    }
+  }
+
+  private void markOtherBranchesUninteresting(Repository repo, RevWalk revWalk, String refName)
+      throws IOException {
+    for (Ref branch : repo.getRefDatabase().getRefsByPrefix(Constants.R_HEADS)) {
+      if (!branch.getName().equals(refName) && branch.getObjectId() != null) {
+        try {
+          revWalk.markUninteresting(revWalk.parseCommit(branch.getObjectId()));
+        } catch (MissingObjectException e) {
+          logger.atFine().withCause(e).log("Skipping branch %s", branch.getName());
+        }
+      }
+    }
+  }
+
+  /** @return The id of {@code revision}, or {@code null}, if the revision is empty or zero. */
+  private static ObjectId toObjectId(String revision) {
+    if (Strings.isNullOrEmpty(revision)) {
+      return null;
+    }
+    ObjectId id = ObjectId.fromString(revision);
+    return ObjectId.zeroId().equals(id) ? null : id;
+  }
+}
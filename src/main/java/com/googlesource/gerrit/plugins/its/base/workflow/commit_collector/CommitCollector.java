@@ -14,11 +14,35 @@
 
 package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
 
+import com.google.gerrit.extensions.annotations.ExtensionPoint;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
-/** Collects commits based on the event properties provided in input */
+/**
+ * Collects commits based on the event properties provided in input
+ *
+ * <p>Plugins can provide further collectors for {@code fire-event-on-commits} by binding them
+ * under the collector's name, e.g. {@code
+ * bind(CommitCollector.class).annotatedWith(Exports.named("my-collector")).to(...)}.
+ *
+ * <p>Collectors that may walk long histories should also implement {@link #iterate(Map)}, so
+ * commits get processed while they are walked instead of after the whole walk.
+ */
+@ExtensionPoint
 public interface CommitCollector {
   List<String> collect(Map<String, String> properties) throws IOException;
+
+  /**
+   * Iterates over the collected commits while collecting them.
+   *
+   * <p>Per default, this iterates over the result of {@link #collect(Map)}.
+   *
+   * @param properties The event properties.
+   * @return The commits. Callers have to close the iterator.
+   * @throws IOException if the repository could not be read.
+   */
+  default CommitIterator iterate(Map<String, String> properties) throws IOException {
+    return CommitIterator.of(collect(properties));
+  }
 }
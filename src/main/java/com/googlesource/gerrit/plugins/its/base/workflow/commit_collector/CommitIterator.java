@@ -0,0 +1,73 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Iterates over collected commits, as hex commit ids, while they get collected.
+ *
+ * <p>Collectors that walk a repository keep it open until the iterator gets closed. Failures to
+ * read the repository while iterating surface as {@link UncheckedIOException}.
+ */
+public interface CommitIterator extends Iterator<String>, AutoCloseable {
+  @Override
+  void close();
+
+  /**
+   * Iterates over already collected commits.
+   *
+   * @param commitIds The hex commit ids.
+   * @return The iterator.
+   */
+  static CommitIterator of(List<String> commitIds) {
+    Iterator<String> iterator = commitIds.iterator();
+    return new CommitIterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public String next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
+  /**
+   * Collects the remaining commits of an iterator and closes it.
+   *
+   * @param commits The iterator to collect.
+   * @return The hex commit ids.
+   * @throws IOException if the repository could not be read.
+   */
+  static List<String> toList(CommitIterator commits) throws IOException {
+    try (CommitIterator c = commits) {
+      List<String> commitIds = new ArrayList<>();
+      c.forEachRemaining(commitIds::add);
+      return commitIds;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
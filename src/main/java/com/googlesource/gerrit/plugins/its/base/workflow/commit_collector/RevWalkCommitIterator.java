@@ -0,0 +1,88 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/** Iterates over the commits of a {@link RevWalk}, and closes the walk and its repository. */
+class RevWalkCommitIterator implements CommitIterator {
+  private final Repository repo;
+  private final RevWalk revWalk;
+  private Predicate<RevCommit> stopAt = commit -> false;
+  private RevCommit next;
+  private boolean done;
+
+  /** Creates an iterator over a new walk of {@code repo}, which gets closed along with it. */
+  RevWalkCommitIterator(Repository repo) {
+    this.repo = repo;
+    this.revWalk = new RevWalk(repo);
+  }
+
+  /** @return The walk to set up, before iterating. */
+  RevWalk getRevWalk() {
+    return revWalk;
+  }
+
+  /**
+   * Sets where to stop the walk.
+   *
+   * @param stopAt Matches the first commit that should no longer be iterated over.
+   * @return This iterator.
+   */
+  RevWalkCommitIterator stopAt(Predicate<RevCommit> stopAt) {
+    this.stopAt = stopAt;
+    return this;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !done) {
+      try {
+        next = revWalk.next();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (next == null || stopAt.test(next)) {
+        next = null;
+        done = true;
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    String commitId = next.name();
+    next = null;
+    return commitId;
+  }
+
+  @Override
+  public void close() {
+    done = true;
+    next = null;
+    revWalk.close();
+    repo.close();
+  }
+}
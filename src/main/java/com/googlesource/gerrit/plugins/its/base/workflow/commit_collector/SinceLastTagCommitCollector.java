@@ -17,20 +17,13 @@ package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.server.git.GitRepositoryManager;
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 import javax.inject.Inject;
-import org.eclipse.jgit.errors.IncorrectObjectTypeException;
-import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevObject;
-import org.eclipse.jgit.revwalk.RevTag;
 import org.eclipse.jgit.revwalk.RevWalk;
 
 /** Collects all commits between the last tag and HEAD */
@@ -41,57 +34,38 @@ public class SinceLastTagCommitCollector implements CommitCollector {
   }
 
   private final GitRepositoryManager repoManager;
+  private final TaggedCommitIndex taggedCommitIndex;
 
   @Inject
-  public SinceLastTagCommitCollector(GitRepositoryManager repoManager) {
+  public SinceLastTagCommitCollector(
+      GitRepositoryManager repoManager, TaggedCommitIndex taggedCommitIndex) {
     this.repoManager = repoManager;
+    this.taggedCommitIndex = taggedCommitIndex;
   }
 
   @Override
   public List<String> collect(Map<String, String> properties) throws IOException {
-    String projectName = properties.get("project");
-    String revision = properties.get("revision");
-
-    try (Repository repo = repoManager.openRepository(Project.nameKey(projectName))) {
-      return collect(repo, revision);
-    }
+    return CommitIterator.toList(iterate(properties));
   }
 
-  private List<String> collect(Repository repo, String currentRevision) throws IOException {
-    try (RevWalk revWalk = new RevWalk(repo)) {
-      RevCommit currentCommit = revWalk.parseCommit(repo.resolve(currentRevision));
-      revWalk.markStart(currentCommit);
-      List<String> commitIds = new ArrayList<>();
-      for (RevCommit commit : revWalk) {
-        if (!currentCommit.getId().equals(commit.getId()) && isTagged(repo, commit)) {
-          break;
-        }
-        commitIds.add(ObjectId.toString(commit.getId()));
-      }
-      return commitIds;
-    }
-  }
+  @Override
+  public CommitIterator iterate(Map<String, String> properties) throws IOException {
+    Project.NameKey projectName = Project.nameKey(properties.get("project"));
+    String revision = properties.get("revision");
 
-  /** @return True if {@code commit} is tagged */
-  private boolean isTagged(Repository repo, RevCommit commit) throws IOException {
-    ObjectId commitId = commit.getId();
-    try (RevWalk revWalk = new RevWalk(repo)) {
-      return repo.getRefDatabase().getRefsByPrefix(Constants.R_TAGS).stream()
-          .map(Ref::getObjectId)
-          .map(
-              refObjectId -> {
-                try {
-                  return revWalk.parseTag(refObjectId);
-                } catch (IncorrectObjectTypeException e) {
-                  return null;
-                } catch (IOException e) {
-                  throw new UncheckedIOException(e);
-                }
-              })
-          .filter(Objects::nonNull)
-          .map(RevTag::getObject)
-          .map(RevObject::getId)
-          .anyMatch(commitId::equals);
+    Repository repo = repoManager.openRepository(projectName);
+    RevWalkCommitIterator commits = new RevWalkCommitIterator(repo);
+    try {
+      Set<ObjectId> taggedCommits = taggedCommitIndex.getTaggedCommits(projectName, repo);
+      RevWalk revWalk = commits.getRevWalk();
+      RevCommit currentCommit = revWalk.parseCommit(repo.resolve(revision));
+      revWalk.markStart(currentCommit);
+      return commits.stopAt(
+          commit ->
+              !currentCommit.getId().equals(commit.getId()) && taggedCommits.contains(commit));
+    } catch (IOException | RuntimeException e) {
+      commits.close();
+      throw e;
     }
   }
 }
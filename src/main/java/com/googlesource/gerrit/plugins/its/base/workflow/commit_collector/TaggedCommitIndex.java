@@ -0,0 +1,138 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Index of the commits that are tagged in a project.
+ *
+ * <p>Walks that stop at tagged commits would otherwise have to check all tags for each walked
+ * commit. The index holds the commits of annotated tags (peeled to the object they eventually point
+ * to) and lightweight tags, and gets cached per project. A cached index is reused as long as the
+ * project's tags are unchanged.
+ */
+@Singleton
+public class TaggedCommitIndex {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  static final String CACHE_NAME = "its_tagged_commits";
+
+  private final Cache<Project.NameKey, TaggedCommits> cache;
+
+  @Inject
+  TaggedCommitIndex(@Named(CACHE_NAME) Cache<Project.NameKey, TaggedCommits> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the tagged commits of a project.
+   *
+   * @param projectName The project to get the tagged commits of.
+   * @param repo The project's repository.
+   * @return The ids of the objects that tags point to. Besides commits, this may also hold ids of
+   *     tagged trees or blobs.
+   * @throws IOException if the tags cannot be read.
+   */
+  public Set<ObjectId> getTaggedCommits(Project.NameKey projectName, Repository repo)
+      throws IOException {
+    RefDatabase refDb = repo.getRefDatabase();
+    List<Ref> tags = refDb.getRefsByPrefix(Constants.R_TAGS);
+    HashCode fingerprint = fingerprint(tags);
+    TaggedCommits cached = cache.getIfPresent(projectName);
+    if (cached != null && cached.fingerprint.equals(fingerprint)) {
+      return cached.commitIds;
+    }
+
+    ImmutableSet.Builder<ObjectId> commitIds = ImmutableSet.builder();
+    for (Ref tag : tags) {
+      // Packed refs usually know their peeled id, so most tags need not be parsed.
+      Ref peeled = tag.isPeeled() ? tag : refDb.peel(tag);
+      ObjectId commitId =
+          peeled.getPeeledObjectId() != null ? peeled.getPeeledObjectId() : peeled.getObjectId();
+      if (commitId != null) {
+        commitIds.add(commitId.copy());
+      }
+    }
+    TaggedCommits taggedCommits = new TaggedCommits(fingerprint, commitIds.build());
+    logger.atFine().log(
+        "Indexed %d tagged commits of project %s", taggedCommits.commitIds.size(), projectName);
+    cache.put(projectName, taggedCommits);
+    return taggedCommits.commitIds;
+  }
+
+  /** @return A fingerprint of the names and targets of {@code tags}. */
+  private static HashCode fingerprint(List<Ref> tags) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+    for (Ref tag : tags) {
+      hasher.putString(tag.getName(), StandardCharsets.UTF_8);
+      if (tag.getObjectId() != null) {
+        tag.getObjectId().copyRawTo(id, 0);
+        hasher.putBytes(id);
+      }
+    }
+    return hasher.hash();
+  }
+
+  public static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Project.NameKey.class, TaggedCommits.class)
+            .maximumWeight(65536)
+            .weigher(TaggedCommitsWeigher.class);
+      }
+    };
+  }
+
+  /** Weighs an index by the number of its tagged commits, so large projects count accordingly. */
+  static class TaggedCommitsWeigher implements Weigher<Project.NameKey, TaggedCommits> {
+    @Override
+    public int weigh(Project.NameKey projectName, TaggedCommits taggedCommits) {
+      return 1 + taggedCommits.commitIds.size();
+    }
+  }
+
+  static class TaggedCommits {
+    private final HashCode fingerprint;
+    private final ImmutableSet<ObjectId> commitIds;
+
+    TaggedCommits(HashCode fingerprint, ImmutableSet<ObjectId> commitIds) {
+      this.fingerprint = fingerprint;
+      this.commitIds = commitIds;
+    }
+  }
+}
@@ -15,13 +15,16 @@
 package com.googlesource.gerrit.plugins.its.base.its;
 
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.config.FactoryModule;
@@ -49,7 +52,9 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import org.eclipse.jgit.lib.Config;
 
 public class ItsConfigTest extends LoggingMockingTestCase {
@@ -451,6 +456,81 @@ public class ItsConfigTest extends LoggingMockingTestCase {
     assertTrue(itsConfig.isEnabled(event));
   }
 
+  public void testIsEnabledRefUpdatedEventExcluded() {
+    String[] branches = {};
+    setupIsEnabled("true", null, null, branches);
+    when(serverConfig.getStringList("plugin", "ItsTestName", "refUpdatedExclude"))
+        .thenReturn(new String[] {"refs/changes/*", "^refs/(meta|users)/.*"});
+
+    ItsConfig itsConfig = createItsConfig();
+
+    assertFalse(itsConfig.isEnabled(newRefUpdatedEvent("refs/changes/42/4242/1")));
+    assertFalse(itsConfig.isEnabled(newRefUpdatedEvent("refs/meta/config")));
+    assertTrue(itsConfig.isEnabled(newRefUpdatedEvent("refs/heads/testBranch")));
+    assertLogMessageContains("filtered out", 2);
+  }
+
+  public void testIsEnabledRefUpdatedEventNotIncluded() {
+    String[] branches = {};
+    setupIsEnabled("true", null, null, branches);
+    when(serverConfig.getStringList("plugin", "ItsTestName", "refUpdatedInclude"))
+        .thenReturn(new String[] {"refs/heads/*", "refs/tags/*"});
+
+    ItsConfig itsConfig = createItsConfig();
+
+    assertTrue(itsConfig.isEnabled(newRefUpdatedEvent("refs/heads/testBranch")));
+    assertTrue(itsConfig.isEnabled(newRefUpdatedEvent("refs/tags/v1.0")));
+    assertFalse(itsConfig.isEnabled(newRefUpdatedEvent("refs/sequences/changes")));
+    assertLogMessageContains("filtered out");
+  }
+
+  public void testIsEnabledRefUpdatedEventIncludedAndExcluded() {
+    String[] branches = {};
+    setupIsEnabled("true", null, null, branches);
+    when(serverConfig.getStringList("plugin", "ItsTestName", "refUpdatedInclude"))
+        .thenReturn(new String[] {"refs/heads/*"});
+    when(serverConfig.getStringList("plugin", "ItsTestName", "refUpdatedExclude"))
+        .thenReturn(new String[] {"refs/heads/sandbox/*", "invalid"});
+
+    ItsConfig itsConfig = createItsConfig();
+
+    assertTrue(itsConfig.isHandledRefUpdate("refs/heads/testBranch"));
+    assertFalse(itsConfig.isHandledRefUpdate("refs/heads/sandbox/foo"));
+    assertLogMessageContains("Ignoring invalid ref pattern invalid");
+  }
+
+  public void testIsEnabledChangeEventIgnoresRefUpdatedFilter() {
+    String[] branches = {};
+    setupIsEnabled("true", null, null, branches);
+    when(serverConfig.getStringList("plugin", "ItsTestName", "refUpdatedInclude"))
+        .thenReturn(new String[] {"refs/tags/*"});
+
+    ItsConfig itsConfig = createItsConfig();
+
+    assertTrue(
+        itsConfig.isEnabled(new PatchSetCreatedEvent(testChange("testProject", "testBranch"))));
+  }
+
+  public void testIsEnabledResolvesProjectOnce() {
+    String[] branches = {"refs/heads/testBranch"};
+    setupIsEnabled("true", null, null, branches);
+
+    ItsConfig itsConfig = createItsConfig();
+
+    assertTrue(itsConfig.isEnabled(Project.nameKey("testProject"), "refs/heads/testBranch"));
+    assertFalse(itsConfig.isEnabled(Project.nameKey("testProject"), "refs/heads/otherBranch"));
+    verify(projectCache, times(1)).get(Project.nameKey("testProject"));
+  }
+
+  private RefUpdatedEvent newRefUpdatedEvent(String refName) {
+    RefUpdatedEvent event = new RefUpdatedEvent();
+    RefUpdateAttribute refUpdateAttribute = new RefUpdateAttribute();
+    refUpdateAttribute.project = "testProject";
+    refUpdateAttribute.refName = refName;
+    event.refUpdate = Suppliers.ofInstance(refUpdateAttribute);
+    return event;
+  }
+
   public void BROKEN_testIsEnabledUnknownEvent() {
     RefEvent event = mock(RefEvent.class);
 
@@ -460,18 +540,28 @@ public class ItsConfigTest extends LoggingMockingTestCase {
     assertLogMessageContains("not recognised and ignored");
   }
 
-  public void testGetItsProjectNull() {
+  public void testGetItsProjectOfMissingProject() {
+    when(projectCache.get(Project.nameKey("testProject"))).thenReturn(Optional.empty());
+
+    ItsConfig itsConfig = createItsConfig();
+
+    assertFalse(itsConfig.getItsProjectName(Project.nameKey("testProject")).isPresent());
+  }
+
+  public void testGetItsProjectNull() throws Exception {
     String[] branches = {};
     setupIsEnabled("true", null, null, branches);
+    setupProjectConfig(Project.nameKey("testProject"));
 
     ItsConfig itsConfig = createItsConfig();
 
     assertFalse(itsConfig.getItsProjectName(Project.nameKey("testProject")).isPresent());
   }
 
-  public void testGetItsProjectConfigured() {
+  public void testGetItsProjectConfigured() throws Exception {
     String[] branches = {};
     setupIsEnabled("true", "itsProject", null, branches);
+    setupProjectConfig(Project.nameKey("testProject"));
 
     ItsConfig itsConfig = createItsConfig();
 
@@ -480,6 +570,25 @@ public class ItsConfigTest extends LoggingMockingTestCase {
     assertEquals("itsProject", itsProjectName.get());
   }
 
+  public void testGetItsProjectInherited() throws Exception {
+    String[] branches = {};
+    setupIsEnabled("true", null, null, branches);
+    setupProjectConfig(Project.nameKey("testProject"));
+    ProjectState projectState = projectCache.get(Project.nameKey("testProject")).get();
+    PluginConfig pluginConfigWI = mock(PluginConfig.class);
+    when(pluginConfigWI.getString("its-project")).thenReturn("parentItsProject");
+    when(pluginConfigFactory.getFromProjectConfigWithInheritance(projectState, "ItsTestName"))
+        .thenReturn(pluginConfigWI);
+    when(serverConfig.getBoolean("plugin", "ItsTestName", "inheritItsProject", false))
+        .thenReturn(true);
+
+    ItsConfig itsConfig = createItsConfig();
+
+    assertEquals(
+        Optional.of("parentItsProject"),
+        itsConfig.getItsProjectName(Project.nameKey("testProject")));
+  }
+
   public void testGetIssuePatternNullMatch() {
     ItsConfig itsConfig = createItsConfig();
 
@@ -529,6 +638,69 @@ public class ItsConfigTest extends LoggingMockingTestCase {
     verifyOneOrMore(serverConfig).getString("commentlink", "foo", "match");
   }
 
+  public void testGetIssuePatterns() {
+    ItsConfig itsConfig = createItsConfig();
+
+    when(serverConfig.getString("commentlink", "ItsTestName", "match")).thenReturn("TestPattern");
+
+    List<Pattern> patterns = itsConfig.getIssuePatterns();
+    assertEquals("Number of patterns does not match", 1, patterns.size());
+    assertEquals(
+        "Expected and generated pattern are not equal", "TestPattern", patterns.get(0).pattern());
+
+    verifyOneOrMore(serverConfig).getString("plugin", "ItsTestName", "commentlink");
+    verifyOneOrMore(serverConfig).getString("commentlink", "ItsTestName", "match");
+  }
+
+  public void testGetIssuePatternsNullMatch() {
+    ItsConfig itsConfig = createItsConfig();
+
+    assertTrue("Patterns for null match are not empty", itsConfig.getIssuePatterns().isEmpty());
+
+    verifyOneOrMore(serverConfig).getString("plugin", "ItsTestName", "commentlink");
+    verifyOneOrMore(serverConfig).getString("commentlink", "ItsTestName", "match");
+  }
+
+  public void testGetIssuePatternsSeveralCommentLinks() {
+    ItsConfig itsConfig = createItsConfig();
+
+    when(serverConfig.getStringList("plugin", "ItsTestName", "commentlink"))
+        .thenReturn(new String[] {"foo", "bar", "baz", "foo"});
+    when(serverConfig.getString("commentlink", "foo", "match")).thenReturn("PROJ-(\\d+)");
+    when(serverConfig.getString("commentlink", "bar", "match")).thenReturn("#(\\d+)");
+
+    assertEquals(
+        "Comment link names do not match",
+        Arrays.asList("foo", "bar", "baz"),
+        itsConfig.getCommentLinkNames());
+
+    List<Pattern> patterns = itsConfig.getIssuePatterns();
+    assertEquals("Number of patterns does not match", 2, patterns.size());
+    assertEquals("First pattern does not match", "PROJ-(\\d+)", patterns.get(0).pattern());
+    assertEquals("Second pattern does not match", "#(\\d+)", patterns.get(1).pattern());
+
+    verifyOneOrMore(serverConfig).getString("commentlink", "foo", "match");
+    verifyOneOrMore(serverConfig).getString("commentlink", "bar", "match");
+    verifyOneOrMore(serverConfig).getString("commentlink", "baz", "match");
+  }
+
+  public void testGetIssuePatternGroupIndexOfPattern() {
+    ItsConfig itsConfig = createItsConfig();
+
+    when(serverConfig.getInt("plugin", "ItsTestName", "commentlinkGroupIndex", 1)).thenReturn(2);
+
+    assertEquals(
+        "Expected and actual group index do not match",
+        2,
+        itsConfig.getIssuePatternGroupIndex(Pattern.compile("(PROJ)-(\\d+)")));
+    assertEquals(
+        "Expected and actual group index do not match",
+        1,
+        itsConfig.getIssuePatternGroupIndex(Pattern.compile("#(\\d+)")));
+
+    verifyOneOrMore(serverConfig).getInt("plugin", "ItsTestName", "commentlinkGroupIndex", 1);
+  }
+
   public void testGetIssuePatternGroupIndexGroupDefault() {
     ItsConfig itsConfig = createItsConfig();
 
@@ -749,6 +921,53 @@ public class ItsConfigTest extends LoggingMockingTestCase {
         .getEnum("plugin", "ItsTestName", "association", ItsAssociationPolicy.MANDATORY);
   }
 
+  public void testGetProjectConfig() throws Exception {
+    setupIsEnabled("true", "itsProject", null, new String[] {});
+    Project.NameKey projectName = Project.nameKey("testProject");
+    PluginConfig pluginConfig = mock(PluginConfig.class);
+    when(pluginConfigFactory.getFromProjectConfigWithInheritance(projectName, "ItsTestName"))
+        .thenReturn(pluginConfig);
+    when(pluginConfig.getString("commentlink", null)).thenReturn("foo");
+    when(pluginConfig.getStringList(anyString())).thenReturn(new String[0]);
+    when(pluginConfig.getInt("commentlinkGroupIndex", 0)).thenReturn(2);
+    when(pluginConfig.getEnum("association", (ItsAssociationPolicy) null))
+        .thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(pluginConfig.getString("dummyIssuePattern", null)).thenReturn("SKIP");
+    when(serverConfig.getString("commentlink", "foo", "match")).thenReturn("(PROJ)-(\\d+)");
+
+    ItsConfig itsConfig = createItsConfig();
+    ItsProjectConfig projectConfig = itsConfig.getProjectConfig(projectName);
+
+    assertEquals(projectName, projectConfig.getProjectName());
+    assertEquals("foo", projectConfig.getCommentLinkName());
+    assertEquals(1, projectConfig.getIssuePatterns().size());
+    assertEquals("(PROJ)-(\\d+)", projectConfig.getIssuePatterns().get(0).pattern());
+    assertEquals(2, projectConfig.getIssuePatternGroupIndex(0));
+    assertEquals(ItsAssociationPolicy.MANDATORY, projectConfig.getItsAssociationPolicy());
+    assertEquals("SKIP", projectConfig.getDummyIssuePattern().get().pattern());
+    assertEquals(Optional.of("itsProject"), projectConfig.getItsProjectName());
+
+    verify(pluginConfigFactory).getFromProjectConfigWithInheritance(projectName, "ItsTestName");
+  }
+
+  public void testGetProjectConfigIsCached() throws Exception {
+    setupIsEnabled("true", null, null, new String[] {});
+    Project.NameKey projectName = Project.nameKey("testProject");
+    setupProjectConfig(projectName);
+
+    ItsProjectConfig projectConfig = createItsConfig().getProjectConfig(projectName);
+
+    assertSame(projectConfig, createItsConfig().getProjectConfig(projectName));
+    verify(pluginConfigFactory).getFromProjectConfigWithInheritance(projectName, "ItsTestName");
+  }
+
+  private void setupProjectConfig(Project.NameKey projectName) throws Exception {
+    PluginConfig pluginConfig = mock(PluginConfig.class);
+    when(pluginConfigFactory.getFromProjectConfigWithInheritance(projectName, "ItsTestName"))
+        .thenReturn(pluginConfig);
+    when(pluginConfig.getStringList(anyString())).thenReturn(new String[0]);
+  }
+
   private PatchSetCreatedEvent newEventFromGerritInstanceId(String instanceId) {
     PatchSetCreatedEvent event = new PatchSetCreatedEvent(testChange("testProject", "testBranch"));
     event.instanceId = instanceId;
@@ -790,9 +1009,25 @@ public class ItsConfigTest extends LoggingMockingTestCase {
 
       bind(String.class).annotatedWith(PluginName.class).toInstance("ItsTestName");
 
+      bind(ItsEnablementCache.class)
+          .toInstance(
+              new ItsEnablementCache(
+                  CacheBuilder.newBuilder()
+                      .build(
+                          new ItsEnablementCache.Loader(
+                              "ItsTestName", projectCache, pluginConfigFactory))));
+
       serverConfig = mock(Config.class);
+      when(serverConfig.getStringList(anyString(), anyString(), anyString()))
+          .thenReturn(new String[0]);
       bind(Config.class).annotatedWith(GerritServerConfig.class).toInstance(serverConfig);
 
+      bind(ItsProjectConfigCache.class)
+          .toInstance(
+              new ItsProjectConfigCache(
+                  CacheBuilder.newBuilder()
+                      .build(new ItsProjectConfigCache.Loader(getProvider(ItsConfig.class)))));
+
       bind(String.class)
           .annotatedWith(GerritInstanceId.class)
           .toProvider(Providers.of(gerritInstanceId));
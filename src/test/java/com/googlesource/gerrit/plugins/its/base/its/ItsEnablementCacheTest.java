@@ -0,0 +1,98 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.its;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gerrit.server.config.PluginConfigFactory;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.gerrit.server.project.ProjectState;
+import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
+import java.util.Arrays;
+import java.util.Optional;
+
+public class ItsEnablementCacheTest extends LoggingMockingTestCase {
+  private static final String PLUGIN_NAME = "ItsTestName";
+  private static final Project.NameKey TEST_PROJECT = Project.nameKey("testProject");
+
+  private ProjectCache projectCache;
+  private PluginConfigFactory pluginConfigFactory;
+  private ItsEnablementCache enablementCache;
+
+  public void testEnablementOfMissingProject() {
+    when(projectCache.get(TEST_PROJECT)).thenReturn(Optional.empty());
+
+    assertFalse(enablementCache.get(TEST_PROJECT).isPresent());
+  }
+
+  public void testEnablementIsCached() {
+    setupProject("true", "refs/heads/master");
+
+    ItsEnablement enablement = enablementCache.get(TEST_PROJECT).get();
+
+    assertTrue(enablement.isEnabled("refs/heads/master"));
+    assertFalse(enablement.isEnabled("refs/heads/stable"));
+    assertSame(enablement, enablementCache.get(TEST_PROJECT).get());
+    verify(projectCache, times(1)).get(TEST_PROJECT);
+  }
+
+  public void testEvict() {
+    setupProject("true");
+    enablementCache.get(TEST_PROJECT);
+
+    enablementCache.evict(Project.nameKey("otherProject"));
+    enablementCache.get(TEST_PROJECT);
+    verify(projectCache, times(1)).get(TEST_PROJECT);
+
+    enablementCache.evict(TEST_PROJECT);
+    enablementCache.get(TEST_PROJECT);
+    verify(projectCache, times(2)).get(TEST_PROJECT);
+  }
+
+  private void setupProject(String enabled, String... branches) {
+    ProjectState projectState = mock(ProjectState.class);
+    when(projectState.treeInOrder()).thenReturn(Arrays.asList(projectState));
+    when(projectCache.get(TEST_PROJECT)).thenReturn(Optional.of(projectState));
+
+    PluginConfig pluginConfig = mock(PluginConfig.class);
+    when(pluginConfig.getString("enabled", "false")).thenReturn(enabled);
+    when(pluginConfigFactory.getFromProjectConfig(projectState, PLUGIN_NAME))
+        .thenReturn(pluginConfig);
+
+    PluginConfig pluginConfigWI = mock(PluginConfig.class);
+    when(pluginConfigWI.getString("enabled", "false")).thenReturn(enabled);
+    when(pluginConfigWI.getStringList("branch")).thenReturn(branches);
+    when(pluginConfigFactory.getFromProjectConfigWithInheritance(projectState, PLUGIN_NAME))
+        .thenReturn(pluginConfigWI);
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    projectCache = mock(ProjectCache.class);
+    pluginConfigFactory = mock(PluginConfigFactory.class);
+    enablementCache =
+        new ItsEnablementCache(
+            CacheBuilder.newBuilder()
+                .build(
+                    new ItsEnablementCache.Loader(PLUGIN_NAME, projectCache, pluginConfigFactory)));
+  }
+}
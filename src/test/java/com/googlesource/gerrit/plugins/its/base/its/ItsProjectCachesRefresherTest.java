@@ -0,0 +1,102 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.its;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.extensions.api.GerritApi;
+import com.google.gerrit.extensions.common.ProjectInfo;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
+import com.googlesource.gerrit.plugins.its.base.workflow.ItsRulesProjectCache;
+import com.googlesource.gerrit.plugins.its.base.workflow.PropertyProjectionCache;
+
+public class ItsProjectCachesRefresherTest extends LoggingMockingTestCase {
+  private static final String TEST_PROJECT = "testProject";
+
+  private GerritApi gApi;
+  private ItsRulesProjectCache rulesProjectCache;
+  private ItsEnablementCache enablementCache;
+  private ItsProjectConfigCache projectConfigCache;
+  private PropertyProjectionCache propertyProjectionCache;
+  private ItsProjectCachesRefresher refresher;
+
+  public void testOtherRefUpdateEvictsNothing() {
+    refresher.onGitReferenceUpdated(refUpdate("refs/heads/master"));
+
+    verifyNoInteractions(
+        rulesProjectCache, enablementCache, projectConfigCache, propertyProjectionCache);
+  }
+
+  public void testConfigUpdateEvictsProjectAndDescendants() throws Exception {
+    when(gApi.projects().name(TEST_PROJECT).children(true))
+        .thenReturn(ImmutableList.of(projectInfo("child"), projectInfo("grandChild")));
+
+    refresher.onGitReferenceUpdated(refUpdate("refs/meta/config"));
+
+    for (String projectName : ImmutableList.of(TEST_PROJECT, "child", "grandChild")) {
+      verify(rulesProjectCache).evict(projectName);
+      verify(propertyProjectionCache).evict(projectName);
+      verify(enablementCache).evict(Project.nameKey(projectName));
+      verify(projectConfigCache).evict(Project.nameKey(projectName));
+    }
+  }
+
+  public void testConfigUpdateEvictsProjectIfChildrenUnknown() throws Exception {
+    when(gApi.projects().name(TEST_PROJECT).children(true))
+        .thenThrow(new RestApiException("Injected failure"));
+
+    refresher.onGitReferenceUpdated(refUpdate("refs/meta/config"));
+
+    verify(rulesProjectCache).evict(TEST_PROJECT);
+    verify(propertyProjectionCache).evict(TEST_PROJECT);
+    verify(enablementCache).evict(Project.nameKey(TEST_PROJECT));
+    verify(projectConfigCache).evict(Project.nameKey(TEST_PROJECT));
+    assertLogMessageContains("Unable to evict ITS caches");
+  }
+
+  private static ProjectInfo projectInfo(String name) {
+    ProjectInfo info = new ProjectInfo();
+    info.name = name;
+    return info;
+  }
+
+  private GitReferenceUpdatedListener.Event refUpdate(String refName) {
+    GitReferenceUpdatedListener.Event event = mock(GitReferenceUpdatedListener.Event.class);
+    when(event.getProjectName()).thenReturn(TEST_PROJECT);
+    when(event.getRefName()).thenReturn(refName);
+    return event;
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    gApi = mock(GerritApi.class, RETURNS_DEEP_STUBS);
+    rulesProjectCache = mock(ItsRulesProjectCache.class);
+    enablementCache = mock(ItsEnablementCache.class);
+    projectConfigCache = mock(ItsProjectConfigCache.class);
+    propertyProjectionCache = mock(PropertyProjectionCache.class);
+    refresher =
+        new ItsProjectCachesRefresher(
+            gApi, rulesProjectCache, enablementCache, projectConfigCache, propertyProjectionCache);
+  }
+}
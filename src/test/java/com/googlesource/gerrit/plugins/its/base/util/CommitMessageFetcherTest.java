@@ -17,6 +17,9 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.gerrit.entities.Project;
@@ -27,10 +30,12 @@ import java.math.BigInteger;
 import java.util.HashSet;
 import java.util.Set;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectStream;
 import org.eclipse.jgit.lib.Repository;
 import org.junit.Test;
 
@@ -41,6 +46,7 @@ public class CommitMessageFetcherTest extends LoggingMockingTestCase {
   private String objectIdTree = "3faaefce19558dfc8d9c976f09ae4897f45cb242";
   private String objectIdCommit = "95aed53c03b6d3df0912bdd9bb1d0c6eaf619f58";
   private String objectIdMissing = "0123456789012345678901234567890123456789";
+  private String objectIdLongCommit = "5b2ad7f0e0c6f1e0a3c8c1b0a39a3d4d5e6f7a8b";
 
   private byte rawBlob[] = "def\n".getBytes();
   private byte rawTree[] = sha1append("100644 abc\000", objectIdBlob);
@@ -51,6 +57,19 @@ public class CommitMessageFetcherTest extends LoggingMockingTestCase {
               + "\n"
               + "CommitMsg\n")
           .getBytes();
+  private byte rawLongCommit[] =
+      ("tree 3faaefce19558dfc8d9c976f09ae4897f45cb242\n"
+              + "author Author <author@example.org> 1592579853 +0200\n"
+              + "committer Committer <committer@example.org> 1592579853 +0200\n"
+              + "\n"
+              + "Subject\n"
+              + "\n"
+              + "Bug: 4711\n"
+              + "Bug: 4712\n")
+          .getBytes();
+
+  private Config serverConfig;
+  private ObjectLoader objectLoaderCommit;
 
   private static byte[] sha1append(String left, String sha1sum) {
     int leftLen = left.length();
@@ -119,6 +138,68 @@ public class CommitMessageFetcherTest extends LoggingMockingTestCase {
     assertLogMessageContains(objectIdMissing);
   }
 
+  @Test
+  public void testSessionFetchesWithSingleRepository() throws IOException {
+    CommitMessageFetcher fetcher = createCommitMessageFetcher();
+    try (CommitMessageFetcher.Session session = fetcher.openSession("ProjectFoo")) {
+      assertThat(session.fetch(objectIdCommit)).isEqualTo("CommitMsg\n");
+      assertThat(session.fetch(objectIdBlob)).isEmpty();
+      assertThat(session.fetchGuarded(objectIdTree)).isEmpty();
+    }
+
+    verify(repoManager, times(1)).openRepository(Project.nameKey("ProjectFoo"));
+    verify(repo).close();
+  }
+
+  @Test
+  public void testSessionWithoutFetchDoesNotOpenRepository() throws IOException {
+    CommitMessageFetcher fetcher = createCommitMessageFetcher();
+    try (CommitMessageFetcher.Session session = fetcher.openSession("ProjectFoo")) {
+      assertThat(session.getProjectName()).isEqualTo("ProjectFoo");
+    }
+
+    verify(repoManager, never()).openRepository(Project.nameKey("ProjectFoo"));
+  }
+
+  @Test
+  public void testFetchBoundedCommit() throws IOException {
+    serverConfig.setInt("plugin", "ItsTestName", "maxCommitMessageSize", 1024);
+    CommitMessageFetcher fetcher = createCommitMessageFetcher();
+    String commitMessage = fetcher.fetch("ProjectFoo", objectIdCommit);
+
+    assertThat(commitMessage).isEqualTo("CommitMsg\n");
+    verify(objectLoaderCommit, never()).getCachedBytes(anyInt());
+  }
+
+  @Test
+  public void testFetchBoundedBlob() throws IOException {
+    serverConfig.setInt("plugin", "ItsTestName", "maxCommitMessageSize", 1024);
+    CommitMessageFetcher fetcher = createCommitMessageFetcher();
+
+    assertThat(fetcher.fetch("ProjectFoo", objectIdBlob)).isEmpty();
+  }
+
+  @Test
+  public void testFetchBoundedTruncatesAtLineEnd() throws IOException {
+    serverConfig.setInt("plugin", "ItsTestName", "maxCommitMessageSize", 20);
+    CommitMessageFetcher fetcher = createCommitMessageFetcher();
+    String commitMessage = fetcher.fetch("ProjectFoo", objectIdLongCommit);
+
+    assertThat(commitMessage).isEqualTo("Subject\n\nBug: 4711\n");
+    assertLogMessageContains("got truncated");
+  }
+
+  @Test
+  public void testFetchBoundedSessionReusesBuffer() throws IOException {
+    serverConfig.setInt("plugin", "ItsTestName", "maxCommitMessageSize", 1024);
+    CommitMessageFetcher fetcher = createCommitMessageFetcher();
+    try (CommitMessageFetcher.Session session = fetcher.openSession("ProjectFoo")) {
+      assertThat(session.fetch(objectIdLongCommit))
+          .isEqualTo("Subject\n\nBug: 4711\nBug: 4712\n");
+      assertThat(session.fetch(objectIdCommit)).isEqualTo("CommitMsg\n");
+    }
+  }
+
   @Override
   public void setUp() throws Exception {
     super.setUp();
@@ -131,9 +212,17 @@ public class CommitMessageFetcherTest extends LoggingMockingTestCase {
     when(objectLoaderTree.getCachedBytes(anyInt())).thenReturn(rawTree);
     when(objectLoaderTree.getType()).thenReturn(Constants.OBJ_TREE);
 
-    ObjectLoader objectLoaderCommit = mock(ObjectLoader.class);
+    objectLoaderCommit = mock(ObjectLoader.class);
     when(objectLoaderCommit.getCachedBytes(anyInt())).thenReturn(rawCommit);
     when(objectLoaderCommit.getType()).thenReturn(Constants.OBJ_COMMIT);
+    when(objectLoaderCommit.openStream())
+        .thenAnswer(invocation -> new ObjectStream.SmallStream(Constants.OBJ_COMMIT, rawCommit));
+
+    ObjectLoader objectLoaderLongCommit = mock(ObjectLoader.class);
+    when(objectLoaderLongCommit.getType()).thenReturn(Constants.OBJ_COMMIT);
+    when(objectLoaderLongCommit.openStream())
+        .thenAnswer(
+            invocation -> new ObjectStream.SmallStream(Constants.OBJ_COMMIT, rawLongCommit));
 
     Set<ObjectId> shallowCommits = new HashSet<>();
     shallowCommits.add(ObjectId.fromString(objectIdCommit));
@@ -143,6 +232,8 @@ public class CommitMessageFetcherTest extends LoggingMockingTestCase {
     when(objectReader.open(ObjectId.fromString(objectIdBlob))).thenReturn(objectLoaderBlob);
     when(objectReader.open(ObjectId.fromString(objectIdTree))).thenReturn(objectLoaderTree);
     when(objectReader.open(ObjectId.fromString(objectIdCommit))).thenReturn(objectLoaderCommit);
+    when(objectReader.open(ObjectId.fromString(objectIdLongCommit)))
+        .thenReturn(objectLoaderLongCommit);
     when(objectReader.open(ObjectId.fromString(objectIdMissing)))
         .thenThrow(
             new MissingObjectException(ObjectId.fromString(objectIdMissing), Constants.OBJ_COMMIT));
@@ -150,11 +241,13 @@ public class CommitMessageFetcherTest extends LoggingMockingTestCase {
     repo = mock(Repository.class);
     when(repo.newObjectReader()).thenReturn(objectReader);
 
+    serverConfig = new Config();
+
     repoManager = mock(GitRepositoryManager.class);
     when(repoManager.openRepository(eq(Project.nameKey("ProjectFoo")))).thenReturn(repo);
   }
 
   private CommitMessageFetcher createCommitMessageFetcher() {
-    return new CommitMessageFetcher(repoManager);
+    return new CommitMessageFetcher(repoManager, "ItsTestName", serverConfig);
   }
 }
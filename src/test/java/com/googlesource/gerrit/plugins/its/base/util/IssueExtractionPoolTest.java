@@ -0,0 +1,89 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import junit.framework.TestCase;
+
+public class IssueExtractionPoolTest extends TestCase {
+  public void testMapKeepsOrder() {
+    IssueExtractionPool pool = new IssueExtractionPool(4);
+    pool.start();
+    try {
+      List<Integer> inputs = new ArrayList<>();
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        inputs.add(i);
+        expected.add(i * 2);
+      }
+
+      assertEquals(expected, pool.map(inputs, i -> i * 2));
+    } finally {
+      pool.stop();
+    }
+  }
+
+  public void testMapRunsOnPool() {
+    IssueExtractionPool pool = new IssueExtractionPool(4);
+    pool.start();
+    try {
+      Set<Thread> threads = ConcurrentHashMap.newKeySet();
+      pool.map(Arrays.asList(1, 2, 3, 4), i -> threads.add(Thread.currentThread()));
+
+      assertFalse(threads.contains(Thread.currentThread()));
+    } finally {
+      pool.stop();
+    }
+  }
+
+  public void testMapWithoutPool() {
+    IssueExtractionPool pool = new IssueExtractionPool(1);
+    pool.start();
+
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    List<Integer> results =
+        pool.map(
+            Arrays.asList(1, 2),
+            i -> {
+              threads.add(Thread.currentThread());
+              return i * 2;
+            });
+
+    assertEquals(Arrays.asList(2, 4), results);
+    assertEquals(1, threads.size());
+    assertTrue(threads.contains(Thread.currentThread()));
+  }
+
+  public void testMapPropagatesExceptions() {
+    IssueExtractionPool pool = new IssueExtractionPool(4);
+    pool.start();
+    try {
+      pool.map(
+          Arrays.asList(1, 2, 3),
+          i -> {
+            throw new IllegalArgumentException("Failed on " + i);
+          });
+      fail("No exception thrown");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("Failed on "));
+    } finally {
+      pool.stop();
+    }
+  }
+}
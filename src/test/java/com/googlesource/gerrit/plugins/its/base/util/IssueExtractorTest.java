@@ -13,26 +13,43 @@
 // limitations under the License.
 package com.googlesource.gerrit.plugins.its.base.util;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gerrit.entities.Change;
 import com.google.gerrit.entities.PatchSet;
+import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.googlesource.gerrit.plugins.its.base.its.ItsConfig;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectConfig;
 import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
 import com.googlesource.gerrit.plugins.its.base.util.IssueExtractor.PatchSetDb;
+import com.googlesource.gerrit.plugins.its.base.util.IssueExtractor.PatchSetDbImpl;
+import com.googlesource.gerrit.plugins.its.base.validation.ItsAssociationPolicy;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 
 public class IssueExtractorTest extends LoggingMockingTestCase {
   private Injector injector;
@@ -64,6 +81,69 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
     verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
   }
 
+  public void testIssueIdsNoLiteralOfPattern() {
+    IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+
+    when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("bug#(\\d+)"));
+    when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
+
+    String[] ret = issueExtractor.getIssueIds("Foo bug 4711 #42 bar");
+    assertEquals("Number of found ids do not match", 0, ret.length);
+
+    assertLogMessageContains("Matching");
+
+    verifyOneOrMore(itsConfig).getIssuePattern();
+  }
+
+  public void testIssueIdsPatternWithoutLiteral() {
+    IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+
+    when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("([A-Z]+\\d+)"));
+    when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
+
+    String[] ret = issueExtractor.getIssueIds("Foo PROJ4711 bar");
+    assertEquals("Number of found ids do not match", 1, ret.length);
+    assertEquals("Found issue id does not match", "PROJ4711", ret[0]);
+
+    assertLogMessageContains("Matching");
+
+    verifyOneOrMore(itsConfig).getIssuePattern();
+    verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
+  }
+
+  public void testIssueIdsSeveralPatterns() {
+    IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+
+    when(itsConfig.getIssuePatterns())
+        .thenReturn(Arrays.asList(Pattern.compile("PROJ-(\\d+)"), Pattern.compile("#(\\d+)")));
+    when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
+
+    String[] ret = issueExtractor.getIssueIds("Foo PROJ-4711 bar #42");
+    assertEquals(
+        "Found issue ids do not match", Sets.newHashSet("4711", "42"), Sets.newHashSet(ret));
+
+    assertLogMessageContains("Matching");
+
+    verifyOneOrMore(itsConfig).getIssuePatterns();
+  }
+
+  public void testIssueIdsAlternatingPatterns() {
+    IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+    when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
+
+    for (int i = 0; i < 2; i++) {
+      when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("PROJ-(\\d+)"));
+      assertEquals(
+          Sets.newHashSet("4711"),
+          Sets.newHashSet(issueExtractor.getIssueIds("Foo PROJ-4711 bar #42")));
+
+      when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("#(\\d+)"));
+      assertEquals(
+          Sets.newHashSet("42"),
+          Sets.newHashSet(issueExtractor.getIssueIds("Foo PROJ-4711 bar #42")));
+    }
+  }
+
   public void testIssueIdsEmptyGroup() {
     IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
 
@@ -219,6 +299,64 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
     verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
   }
 
+  public void testIssueIdsCommitCached() {
+    when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("bug#(\\d+)"));
+    when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
+
+    when(commitMessageFetcher.fetchGuarded(
+            "testProject", "1234567891123456789212345678931234567894"))
+        .thenReturn("bug#42\n" + "\n" + "Change-Id: I1234567891123456789212345678931234567894");
+
+    IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+    Map<String, Set<String>> first =
+        issueExtractor.getIssueIds("testProject", "1234567891123456789212345678931234567894");
+    first.get("42").add("modified");
+    Map<String, Set<String>> actual =
+        issueExtractor.getIssueIds("testProject", "1234567891123456789212345678931234567894");
+
+    Map<String, Set<String>> expected = Maps.newHashMap();
+    expected.put("42", Sets.newHashSet("somewhere", "subject"));
+    assertEquals("Extracted issues do not match", expected, actual);
+
+    assertLogMessageContains("Matching", 5);
+
+    verify(commitMessageFetcher, times(1))
+        .fetchGuarded("testProject", "1234567891123456789212345678931234567894");
+    verifyOneOrMore(itsConfig).getIssuePattern();
+    verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
+  }
+
+  public void testIssueIdsFromCommits() {
+    when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("bug#(\\d+)"));
+    when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
+
+    when(commitMessageFetcher.fetchGuarded(
+            "testProject", "1234567891123456789212345678931234567894"))
+        .thenReturn("bug#42\n" + "\n" + "Change-Id: I1234567891123456789212345678931234567894");
+    when(commitMessageFetcher.fetchGuarded(
+            "testProject", "9876543211987654321298765432139876543214"))
+        .thenReturn("Subject\n" + "\n" + "Change-Id: I9876543211987654321298765432139876543214");
+
+    IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+    List<Map<String, Set<String>>> actual =
+        issueExtractor.getIssueIdsFromCommits(
+            "testProject",
+            Arrays.asList(
+                "1234567891123456789212345678931234567894",
+                "9876543211987654321298765432139876543214"));
+
+    Map<String, Set<String>> expected = Maps.newHashMap();
+    expected.put("42", Sets.newHashSet("somewhere", "subject"));
+    assertEquals(
+        "Extracted issues do not match", Arrays.asList(expected, Maps.newHashMap()), actual);
+
+    assertLogMessageContains("Matching", 10);
+
+    verify(commitMessageFetcher, times(1)).openSession("testProject");
+    verifyOneOrMore(itsConfig).getIssuePattern();
+    verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
+  }
+
   public void testIssueIdsCommitMultipleIssues() {
     when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("bug#(\\d+)"));
     when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
@@ -749,7 +887,47 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
 
     // Call for previous patch set
     PatchSet.Id previousPatchSetId = PatchSet.id(changeId, 1);
-    when(db.getRevision(previousPatchSetId)).thenReturn("9876543211987654321298765432139876543214");
+    when(db.getRevision(Project.nameKey("testProject"), previousPatchSetId))
+        .thenReturn("9876543211987654321298765432139876543214");
+
+    when(commitMessageFetcher.fetchGuarded(
+            "testProject", "9876543211987654321298765432139876543214"))
+        .thenReturn("subject\n" + "\n" + "Change-Id: I9876543211987654321298765432139876543214");
+
+    PatchSet.Id currentPatchSetId = mock(PatchSet.Id.class);
+    when(currentPatchSetId.get()).thenReturn(2);
+    when(currentPatchSetId.changeId()).thenReturn(changeId);
+
+    IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+    Map<String, Set<String>> actual =
+        issueExtractor.getIssueIds(
+            "testProject", "1234567891123456789212345678931234567894", currentPatchSetId);
+
+    Map<String, Set<String>> expected = Maps.newHashMap();
+    expected.put("42", Sets.newHashSet("somewhere", "subject", "added@somewhere", "added@subject"));
+    assertEquals("Extracted issues do not match", expected, actual);
+
+    assertLogMessageContains("Matching", 10);
+
+    verifyOneOrMore(itsConfig).getIssuePattern();
+    verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
+  }
+
+  public void testIssueIdsCommitWAddedCached() {
+    when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("bug#(\\d+)"));
+    when(itsConfig.getIssuePatternGroupIndex()).thenReturn(1);
+
+    Change.Id changeId = mock(Change.Id.class);
+
+    // Call for current patch set
+    when(commitMessageFetcher.fetchGuarded(
+            "testProject", "1234567891123456789212345678931234567894"))
+        .thenReturn("bug#42\n" + "\n" + "Change-Id: I1234567891123456789212345678931234567894");
+
+    // Call for previous patch set
+    PatchSet.Id previousPatchSetId = PatchSet.id(changeId, 1);
+    when(db.getRevision(Project.nameKey("testProject"), previousPatchSetId))
+        .thenReturn("9876543211987654321298765432139876543214");
 
     when(commitMessageFetcher.fetchGuarded(
             "testProject", "9876543211987654321298765432139876543214"))
@@ -760,6 +938,8 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
     when(currentPatchSetId.changeId()).thenReturn(changeId);
 
     IssueExtractor issueExtractor = injector.getInstance(IssueExtractor.class);
+    issueExtractor.getIssueIds(
+        "testProject", "1234567891123456789212345678931234567894", currentPatchSetId);
     Map<String, Set<String>> actual =
         issueExtractor.getIssueIds(
             "testProject", "1234567891123456789212345678931234567894", currentPatchSetId);
@@ -770,6 +950,9 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
 
     assertLogMessageContains("Matching", 10);
 
+    verify(db, times(1)).getRevision(Project.nameKey("testProject"), previousPatchSetId);
+    verify(commitMessageFetcher, times(1))
+        .fetchGuarded("testProject", "9876543211987654321298765432139876543214");
     verifyOneOrMore(itsConfig).getIssuePattern();
     verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
   }
@@ -791,7 +974,8 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
             "testProject", "9876543211987654321298765432139876543214"))
         .thenReturn("bug#42\n" + "\n" + "Change-Id: I9876543211987654321298765432139876543214");
 
-    when(db.getRevision(previousPatchSetId)).thenReturn("9876543211987654321298765432139876543214");
+    when(db.getRevision(Project.nameKey("testProject"), previousPatchSetId))
+        .thenReturn("9876543211987654321298765432139876543214");
 
     PatchSet.Id currentPatchSetId = mock(PatchSet.Id.class);
     when(currentPatchSetId.get()).thenReturn(2);
@@ -833,7 +1017,8 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
                 + "\n"
                 + "Change-Id: I9876543211987654321298765432139876543214");
 
-    when(db.getRevision(previousPatchSetId)).thenReturn("9876543211987654321298765432139876543214");
+    when(db.getRevision(Project.nameKey("testProject"), previousPatchSetId))
+        .thenReturn("9876543211987654321298765432139876543214");
 
     PatchSet.Id currentPatchSetId = mock(PatchSet.Id.class);
     when(currentPatchSetId.get()).thenReturn(2);
@@ -875,7 +1060,8 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
             "testProject", "9876543211987654321298765432139876543214"))
         .thenReturn("bug#42\n" + "\n" + "Change-Id: I9876543211987654321298765432139876543214");
 
-    when(db.getRevision(previousPatchSetId)).thenReturn("9876543211987654321298765432139876543214");
+    when(db.getRevision(Project.nameKey("testProject"), previousPatchSetId))
+        .thenReturn("9876543211987654321298765432139876543214");
 
     PatchSet.Id currentPatchSetId = mock(PatchSet.Id.class);
     when(currentPatchSetId.get()).thenReturn(2);
@@ -925,7 +1111,8 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
                 + "\n"
                 + "Change-Id: I9876543211987654321298765432139876543214");
 
-    when(db.getRevision(previousPatchSetId)).thenReturn("9876543211987654321298765432139876543214");
+    when(db.getRevision(Project.nameKey("testProject"), previousPatchSetId))
+        .thenReturn("9876543211987654321298765432139876543214");
 
     PatchSet.Id currentPatchSetId = mock(PatchSet.Id.class);
     when(currentPatchSetId.get()).thenReturn(2);
@@ -984,7 +1171,8 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
                 + "Bug: bug#16\n"
                 + "Change-Id: I9876543211987654321298765432139876543214");
 
-    when(db.getRevision(previousPatchSetId)).thenReturn("9876543211987654321298765432139876543214");
+    when(db.getRevision(Project.nameKey("testProject"), previousPatchSetId))
+        .thenReturn("9876543211987654321298765432139876543214");
 
     PatchSet.Id currentPatchSetId = mock(PatchSet.Id.class);
     when(currentPatchSetId.get()).thenReturn(2);
@@ -1016,6 +1204,57 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
     verifyOneOrMore(itsConfig).getIssuePatternGroupIndex();
   }
 
+  public void testPatchSetDbCachedRevision() throws IOException {
+    GitRepositoryManager repoManager = mock(GitRepositoryManager.class);
+    Cache<PatchSet.Id, String> revisions = CacheBuilder.newBuilder().build();
+    PatchSet.Id patchSetId = PatchSet.id(Change.id(4), 1);
+    revisions.put(patchSetId, "1234567891123456789212345678931234567894");
+    PatchSetDbImpl patchSetDb = new PatchSetDbImpl(repoManager, revisions);
+
+    String actual = patchSetDb.getRevision(Project.nameKey("testProject"), patchSetId);
+
+    assertEquals("1234567891123456789212345678931234567894", actual);
+    verify(repoManager, never()).openRepository(any());
+  }
+
+  public void testPatchSetDbUncachedRevision() throws IOException {
+    Project.NameKey projectName = Project.nameKey("testProject");
+    PatchSet.Id patchSetId = PatchSet.id(Change.id(4), 1);
+    ObjectId objectId = ObjectId.fromString("1234567891123456789212345678931234567894");
+    Ref ref = mock(Ref.class);
+    when(ref.getObjectId()).thenReturn(objectId);
+    Repository repo = mock(Repository.class);
+    when(repo.exactRef(patchSetId.toRefName())).thenReturn(ref);
+    GitRepositoryManager repoManager = mock(GitRepositoryManager.class);
+    when(repoManager.openRepository(projectName)).thenReturn(repo);
+    Cache<PatchSet.Id, String> revisions = CacheBuilder.newBuilder().build();
+    PatchSetDbImpl patchSetDb = new PatchSetDbImpl(repoManager, revisions);
+
+    String actual = patchSetDb.getRevision(projectName, patchSetId);
+
+    assertEquals("1234567891123456789212345678931234567894", actual);
+    assertEquals(
+        "Revision did not get cached", objectId.name(), revisions.getIfPresent(patchSetId));
+    verify(repo).close();
+  }
+
+  public void testPatchSetDbMissingRef() throws IOException {
+    Project.NameKey projectName = Project.nameKey("testProject");
+    PatchSet.Id patchSetId = PatchSet.id(Change.id(4), 1);
+    Repository repo = mock(Repository.class);
+    when(repo.exactRef(patchSetId.toRefName())).thenReturn(null);
+    GitRepositoryManager repoManager = mock(GitRepositoryManager.class);
+    when(repoManager.openRepository(projectName)).thenReturn(repo);
+    Cache<PatchSet.Id, String> revisions = CacheBuilder.newBuilder().build();
+    PatchSetDbImpl patchSetDb = new PatchSetDbImpl(repoManager, revisions);
+
+    String actual = patchSetDb.getRevision(projectName, patchSetId);
+
+    assertNull("Missing ref got resolved", actual);
+    assertNull("Missing ref got cached", revisions.getIfPresent(patchSetId));
+    verify(repo).close();
+  }
+
   private <T> T verifyOneOrMore(T mock) {
     return verify(mock, atLeastOnce());
   }
@@ -1031,13 +1270,78 @@ public class IssueExtractorTest extends LoggingMockingTestCase {
     @Override
     protected void configure() {
       itsConfig = mock(ItsConfig.class);
+      // Tests configure a single comment link through getIssuePattern.
+      when(itsConfig.getIssuePatterns())
+          .thenAnswer(
+              invocation -> {
+                Pattern pattern = itsConfig.getIssuePattern();
+                return pattern != null
+                    ? Collections.singletonList(pattern)
+                    : Collections.emptyList();
+              });
+      when(itsConfig.getIssuePatternGroupIndex(any(Pattern.class)))
+          .thenAnswer(invocation -> itsConfig.getIssuePatternGroupIndex());
+      when(itsConfig.getProjectConfig(any()))
+          .thenAnswer(invocation -> newProjectConfig(invocation.getArgument(0)));
       bind(ItsConfig.class).toInstance(itsConfig);
 
       commitMessageFetcher = mock(CommitMessageFetcher.class);
+      when(commitMessageFetcher.openSession(anyString()))
+          .thenAnswer(invocation -> new DelegatingSession(invocation.getArgument(0)));
       bind(CommitMessageFetcher.class).toInstance(commitMessageFetcher);
 
       db = mock(PatchSetDb.class);
       bind(PatchSetDb.class).toInstance(db);
+
+      bind(IssueAssociationCache.class)
+          .toInstance(new IssueAssociationCache(CacheBuilder.newBuilder().build()));
+
+      // The pool does not get started, so extraction happens on the test's thread.
+      bind(IssueExtractionPool.class).toInstance(new IssueExtractionPool(1));
     }
   }
+
+  /** Snapshots the settings of the mocked {@link ItsConfig}. */
+  private ItsProjectConfig newProjectConfig(Project.NameKey projectName) {
+    List<Pattern> patterns = itsConfig.getIssuePatterns();
+    int[] groupIndexes = new int[patterns.size()];
+    for (int i = 0; i < patterns.size(); i++) {
+      groupIndexes[i] = itsConfig.getIssuePatternGroupIndex(patterns.get(i));
+    }
+    return new ItsProjectConfig(
+        projectName,
+        "ItsTestName",
+        patterns,
+        groupIndexes,
+        ItsAssociationPolicy.OPTIONAL,
+        Optional.empty(),
+        Optional.empty());
+  }
+
+  /** Session that fetches through the mocked {@link CommitMessageFetcher}. */
+  private class DelegatingSession implements CommitMessageFetcher.Session {
+    private final String projectName;
+
+    DelegatingSession(String projectName) {
+      this.projectName = projectName;
+    }
+
+    @Override
+    public String getProjectName() {
+      return projectName;
+    }
+
+    @Override
+    public String fetch(String objectId) throws IOException {
+      return commitMessageFetcher.fetch(projectName, objectId);
+    }
+
+    @Override
+    public String fetchGuarded(String objectId) {
+      return commitMessageFetcher.fetchGuarded(projectName, objectId);
+    }
+
+    @Override
+    public void close() {}
+  }
 }
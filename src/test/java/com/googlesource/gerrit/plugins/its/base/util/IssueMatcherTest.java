@@ -0,0 +1,136 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.regex.Pattern;
+import junit.framework.TestCase;
+
+public class IssueMatcherTest extends TestCase {
+  private static final List<Pattern> PATTERNS =
+      ImmutableList.of(
+          Pattern.compile("PROJ-(\\d+)"),
+          Pattern.compile("\\b(OPS-\\d+)\\b"),
+          Pattern.compile("#(\\d+)"));
+
+  public void testSinglePattern() {
+    IssueMatcher matcher =
+        IssueMatcher.create(ImmutableList.of(Pattern.compile("bug#(\\d+)")), new int[] {1});
+
+    assertEquals(ImmutableSet.of("42", "4711"), matcher.findIssueIds("bug#42 and bug#4711"));
+    assertEquals(ImmutableSet.of(), matcher.findIssueIds("bug 42"));
+  }
+
+  public void testSeveralPatterns() {
+    IssueMatcher matcher = IssueMatcher.create(PATTERNS, new int[] {1, 1, 1});
+
+    assertEquals(
+        ImmutableSet.of("123", "OPS-45", "678"),
+        matcher.findIssueIds("Fixes PROJ-123\n\nSee OPS-45 and #678"));
+    assertEquals(ImmutableSet.of("OPS-45"), matcher.findIssueIds("OPS-45"));
+    assertEquals(ImmutableSet.of(), matcher.findIssueIds("Plain commit message"));
+  }
+
+  public void testLiteralWithoutMatch() {
+    IssueMatcher matcher = IssueMatcher.create(PATTERNS, new int[] {1, 1, 1});
+
+    assertEquals(ImmutableSet.of(), matcher.findIssueIds("PROJ-x, OPS-y, #z"));
+  }
+
+  public void testOverlappingLiterals() {
+    IssueMatcher matcher =
+        IssueMatcher.create(
+            ImmutableList.of(Pattern.compile("abcd(\\d+)"), Pattern.compile("bc(\\d+)")),
+            new int[] {1, 1});
+
+    assertEquals(ImmutableSet.of("1"), matcher.findIssueIds("xabc1"));
+    assertEquals(ImmutableSet.of("2"), matcher.findIssueIds("abcd2"));
+  }
+
+  public void testLiteralsSharingPrefixes() {
+    IssueMatcher matcher =
+        IssueMatcher.create(
+            ImmutableList.of(
+                Pattern.compile("ZED-(\\d+)"),
+                Pattern.compile("ABD-(\\d+)"),
+                Pattern.compile("ABC-(\\d+)"),
+                Pattern.compile("AB-(\\d+)"),
+                Pattern.compile("MNOPQ-(\\d+)")),
+            new int[] {1, 1, 1, 1, 1});
+
+    assertEquals(
+        ImmutableSet.of("1", "2", "3"), matcher.findIssueIds("ABC-1, ZED-2 and MNOPQ-3"));
+    assertEquals(ImmutableSet.of("4"), matcher.findIssueIds("ABABD-4"));
+    assertEquals(ImmutableSet.of(), matcher.findIssueIds("ABE-5 MNOP-6"));
+  }
+
+  public void testLiteralsIgnoringCase() {
+    IssueMatcher matcher =
+        IssueMatcher.create(
+            ImmutableList.of(
+                Pattern.compile("[Bb][Uu][Gg][ ]*([1-9][0-9]*)"), Pattern.compile("PROJ-(\\d+)")),
+            new int[] {1, 1});
+
+    assertEquals(ImmutableSet.of("42"), matcher.findIssueIds("Fixes BUG 42"));
+    assertEquals(ImmutableSet.of(), matcher.findIssueIds("Fixes proj-42"));
+  }
+
+  public void testPatternWithoutLiteral() {
+    IssueMatcher matcher =
+        IssueMatcher.create(
+            ImmutableList.of(Pattern.compile("PROJ-(\\d+)"), Pattern.compile("([A-Z]+\\d+)")),
+            new int[] {1, 1});
+
+    assertEquals(ImmutableSet.of("ABC123"), matcher.findIssueIds("See ABC123"));
+  }
+
+  public void testGroupIndexes() {
+    IssueMatcher matcher =
+        IssueMatcher.create(
+            ImmutableList.of(Pattern.compile("PROJ-(\\d+)"), Pattern.compile("#(\\d+)")),
+            new int[] {0, 1});
+
+    assertEquals(ImmutableSet.of("PROJ-1", "2"), matcher.findIssueIds("PROJ-1 #2"));
+  }
+
+  public void testFingerprint() {
+    IssueMatcher matcher = IssueMatcher.create(PATTERNS, new int[] {1, 1, 1});
+
+    assertEquals("PROJ-(\\d+)/0/1\n\\b(OPS-\\d+)\\b/0/1\n#(\\d+)/0/1", matcher.getFingerprint());
+    assertEquals(
+        matcher.getFingerprint(),
+        IssueMatcher.create(PATTERNS, new int[] {1, 1, 1}).getFingerprint());
+    assertFalse(
+        matcher
+            .getFingerprint()
+            .equals(IssueMatcher.create(PATTERNS, new int[] {1, 0, 1}).getFingerprint()));
+  }
+
+  public void testFingerprintWithoutMatcher() {
+    assertEquals(
+        IssueMatcher.create(PATTERNS, new int[] {1, 1, 1}).getFingerprint(),
+        IssueMatcher.fingerprint(
+            ImmutableList.of(
+                Pattern.compile("PROJ-(\\d+)"),
+                Pattern.compile("\\b(OPS-\\d+)\\b"),
+                Pattern.compile("#(\\d+)")),
+            new int[] {1, 1, 1}));
+    assertFalse(
+        IssueMatcher.fingerprint(PATTERNS.subList(0, 2), new int[] {1, 1})
+            .equals(IssueMatcher.create(PATTERNS, new int[] {1, 1, 1}).getFingerprint()));
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.util;
+
+import java.util.regex.Pattern;
+import junit.framework.TestCase;
+
+public class IssuePatternPrefilterTest extends TestCase {
+  public void testPlainLiteral() {
+    IssuePatternPrefilter prefilter = prefilter("bug#(\\d+)");
+
+    assertEquals("[bug#]", prefilter.toString());
+    assertTrue(prefilter.mayMatch("Fixes bug#42"));
+    assertFalse(prefilter.mayMatch("Fixes bug 42"));
+  }
+
+  public void testEscapedLiteral() {
+    IssuePatternPrefilter prefilter = prefilter("\\bPROJ\\-(\\d+)\\b");
+
+    assertEquals("[PROJ-]", prefilter.toString());
+  }
+
+  public void testLongestRunWins() {
+    IssuePatternPrefilter prefilter = prefilter("#?(\\d+) in issues\\.");
+
+    assertEquals("[ in issues.]", prefilter.toString());
+  }
+
+  public void testOptionalCharactersAreNotRequired() {
+    IssuePatternPrefilter prefilter = prefilter("bugs?#(\\d+)");
+
+    assertEquals("[bug]", prefilter.toString());
+    assertTrue(prefilter.mayMatch("bug#42"));
+  }
+
+  public void testRepeatedCharacterEndsRun() {
+    assertEquals("[ab]", prefilter("ab+c(\\d+)").toString());
+  }
+
+  public void testBoundedRepetition() {
+    assertEquals("[abc]", prefilter("a{0,2}abc{2}d(\\d+)").toString());
+  }
+
+  public void testAlternation() {
+    IssuePatternPrefilter prefilter = prefilter("(bug|issue)\\s*(\\d+)");
+
+    assertEquals("[bug, issue]", prefilter.toString());
+    assertTrue(prefilter.mayMatch("see issue 42"));
+    assertFalse(prefilter.mayMatch("see change 42"));
+  }
+
+  public void testTopLevelAlternationWithoutLiteral() {
+    IssuePatternPrefilter prefilter = prefilter("PROJ-(\\d+)|(\\d+)");
+
+    assertFalse(prefilter.isSelective());
+    assertTrue(prefilter.mayMatch("42"));
+  }
+
+  public void testOptionalGroupIsNotRequired() {
+    assertEquals("[#]", prefilter("(bug)?#(\\d+)").toString());
+  }
+
+  public void testLookaheadIsNotRequired() {
+    assertEquals("[#]", prefilter("(?!bug)#(\\d+)").toString());
+  }
+
+  public void testCaseVariantCharacterClasses() {
+    IssuePatternPrefilter prefilter = prefilter("[Bb][Uu][Gg][ ]*([1-9][0-9]*)");
+
+    assertEquals("[(?i)bug]", prefilter.toString());
+    assertTrue(prefilter.mayMatch("Fixes BUG 42"));
+    assertTrue(prefilter.mayMatch("Fixes bUg 42"));
+    assertFalse(prefilter.mayMatch("Fixes issue 42"));
+  }
+
+  public void testCaseInsensitiveFlag() {
+    IssuePatternPrefilter prefilter =
+        IssuePatternPrefilter.of(Pattern.compile("bug#(\\d+)", Pattern.CASE_INSENSITIVE));
+
+    assertTrue(prefilter.mayMatch("BUG#42"));
+  }
+
+  public void testInlineCaseInsensitiveFlag() {
+    IssuePatternPrefilter prefilter = prefilter("(?i)bug#(\\d+)");
+
+    assertTrue(prefilter.mayMatch("BUG#42"));
+  }
+
+  public void testNoLiteral() {
+    IssuePatternPrefilter prefilter = prefilter("([A-Z]+\\d+)");
+
+    assertFalse(prefilter.isSelective());
+    assertTrue(prefilter.mayMatch("anything"));
+  }
+
+  public void testUnsupportedFlags() {
+    IssuePatternPrefilter prefilter =
+        IssuePatternPrefilter.of(Pattern.compile("bug #(\\d+)", Pattern.COMMENTS));
+
+    assertFalse(prefilter.isSelective());
+  }
+
+  public void testUnsupportedInlineFlags() {
+    assertFalse(prefilter("(?x)bug #(\\d+)").isSelective());
+  }
+
+  public void testQuotedLiterals() {
+    assertFalse(prefilter("\\Qbug\\E(\\d+)").isSelective());
+  }
+
+  private IssuePatternPrefilter prefilter(String regex) {
+    return IssuePatternPrefilter.of(Pattern.compile(regex));
+  }
+}
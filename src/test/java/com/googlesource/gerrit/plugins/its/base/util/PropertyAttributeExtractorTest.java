@@ -13,7 +13,11 @@
 // limitations under the License.
 package com.googlesource.gerrit.plugins.its.base.util;
 
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableMap;
@@ -112,6 +116,30 @@ public class PropertyAttributeExtractorTest extends LoggingMockingTestCase {
     assertEquals("Properties do not match", expected, actual);
   }
 
+  public void testChangeAttributeFormatChangeUrlLazily() {
+    ChangeAttribute changeAttribute = new ChangeAttribute();
+    changeAttribute.branch = "testBranch";
+    changeAttribute.subject = "testSubject";
+    changeAttribute.id = "testId";
+    changeAttribute.number = 4711;
+    changeAttribute.url = "http://www.example.org/test";
+    changeAttribute.commitMessage = "Commit Message";
+
+    when(facade.createLinkForWebui("http://www.example.org/test", "http://www.example.org/test"))
+        .thenReturn("[http://www.example.org/test]");
+
+    PropertyAttributeExtractor extractor = injector.getInstance(PropertyAttributeExtractor.class);
+
+    Map<String, String> actual = extractor.extractFrom(changeAttribute);
+    assertEquals("testSubject", actual.get("subject"));
+    verify(facade, never()).createLinkForWebui(anyString(), anyString());
+
+    assertEquals("[http://www.example.org/test]", actual.get("formatChangeUrl"));
+    assertEquals("[http://www.example.org/test]", actual.get("formatChangeUrl"));
+    verify(facade, times(1))
+        .createLinkForWebui("http://www.example.org/test", "http://www.example.org/test");
+  }
+
   public void testChangeAttributeNoOwnerEmail() {
     AccountAttribute owner = new AccountAttribute();
     owner.name = "testName";
@@ -18,6 +18,7 @@ import static org.mockito.Mockito.when;
 
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gerrit.entities.Change;
@@ -36,17 +37,23 @@ import com.google.gerrit.server.events.ChangeMergedEvent;
 import com.google.gerrit.server.events.ChangeRestoredEvent;
 import com.google.gerrit.server.events.CommentAddedEvent;
 import com.google.gerrit.server.events.PatchSetCreatedEvent;
+import com.google.gerrit.server.events.PatchSetEvent;
 import com.google.gerrit.server.events.RefEvent;
 import com.google.gerrit.server.events.RefUpdatedEvent;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
+import com.googlesource.gerrit.plugins.its.base.workflow.EventProperties;
+import com.googlesource.gerrit.plugins.its.base.workflow.PropertyProjection;
 import com.googlesource.gerrit.plugins.its.base.workflow.RefEventProperties;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PropertyExtractorTest extends LoggingMockingTestCase {
   private Injector injector;
@@ -60,10 +67,10 @@ public class PropertyExtractorTest extends LoggingMockingTestCase {
 
     when(itsProjectExtractor.getItsProject("testProject")).thenReturn(Optional.empty());
 
-    Set<Map<String, String>> actual =
+    List<Map<String, String>> actual =
         propertyExtractor.extractFrom(new DummyEvent()).getIssuesProperties();
 
-    Set<Map<String, String>> expected = new HashSet<>();
+    List<Map<String, String>> expected = new ArrayList<>();
     assertEquals("Properties do not match", expected, actual);
   }
 
@@ -324,6 +331,69 @@ public class PropertyExtractorTest extends LoggingMockingTestCase {
     eventHelper(event, "PatchSetCreatedEvent", "patchset-created", common, true);
   }
 
+  public void testPatchSetCreatedEventWProjection() {
+    PatchSetCreatedEvent event = new PatchSetCreatedEvent(testChange("testProject", "testBranch"));
+    event.uploader =
+        () -> {
+          throw new AssertionError("Uploader should not get computed");
+        };
+    ChangeAttribute changeAttribute = patchSetEventHelper(event);
+    when(propertyAttributeExtractor.extractFrom(changeAttribute))
+        .thenReturn(ImmutableMap.of("status", "NEW", "subject", "testSubject"));
+
+    PropertyExtractor propertyExtractor = injector.getInstance(PropertyExtractor.class);
+    RefEventProperties refEventProperties =
+        propertyExtractor.extractFrom(event, PropertyProjection.of(ImmutableSet.of("status")));
+
+    Map<String, String> expected =
+        ImmutableMap.<String, String>builder()
+            .put("itsName", "ItsTestName")
+            .put("event", "com.google.gerrit.server.events.PatchSetCreatedEvent")
+            .put("event-type", "patchset-created")
+            .put("project", "testProject")
+            .put("ref", "refs/heads/testBranch")
+            .put("source", "gerrit")
+            .put("status", "NEW")
+            .build();
+    assertEquals(
+        "Project properties do not match", expected, refEventProperties.getProjectProperties());
+  }
+
+  public void testLazyPropertiesNotComputedByExtraction() {
+    PatchSetCreatedEvent event = new PatchSetCreatedEvent(testChange("testProject", "testBranch"));
+    event.uploader = Suppliers.ofInstance(mock(AccountAttribute.class));
+    ChangeAttribute changeAttribute = patchSetEventHelper(event);
+    AtomicInteger computations = new AtomicInteger();
+    EventProperties changeProperties = new EventProperties();
+    changeProperties.put("status", "NEW");
+    changeProperties.putLazy(
+        "escapedSubject",
+        () -> {
+          computations.incrementAndGet();
+          return "testSubject";
+        });
+    when(propertyAttributeExtractor.extractFrom(changeAttribute)).thenReturn(changeProperties);
+
+    HashMap<String, Set<String>> issueMap = Maps.newHashMap();
+    issueMap.put("4711", Sets.newHashSet("body"));
+    issueMap.put("42", Sets.newHashSet("footer"));
+    when(issueExtractor.getIssueIds("testProject", "testRevision", PatchSet.id(Change.id(176), 3)))
+        .thenReturn(issueMap);
+
+    PropertyExtractor propertyExtractor = injector.getInstance(PropertyExtractor.class);
+    RefEventProperties refEventProperties = propertyExtractor.extractFrom(event);
+
+    List<Map<String, String>> issuesProperties = refEventProperties.getIssuesProperties();
+    assertEquals("Issues properties are not unique", 2, issuesProperties.size());
+    assertEquals("Lazy properties got computed", 0, computations.get());
+
+    for (Map<String, String> issueProperties : issuesProperties) {
+      assertEquals("testSubject", issueProperties.get("escapedSubject"));
+    }
+    assertEquals("testSubject", refEventProperties.getProjectProperties().get("escapedSubject"));
+    assertEquals("Lazy properties got computed more than once", 1, computations.get());
+  }
+
   public void testRefUpdatedEvent() {
     RefUpdatedEvent event = new RefUpdatedEvent();
 
@@ -358,6 +428,21 @@ public class PropertyExtractorTest extends LoggingMockingTestCase {
     eventHelper(event, "RefUpdatedEvent", "ref-updated", common, false);
   }
 
+  private ChangeAttribute patchSetEventHelper(PatchSetEvent event) {
+    when(itsProjectExtractor.getItsProject("testProject")).thenReturn(Optional.empty());
+
+    ChangeAttribute changeAttribute = mock(ChangeAttribute.class);
+    event.change = Suppliers.ofInstance(changeAttribute);
+    changeAttribute.project = "testProject";
+    changeAttribute.number = 176;
+
+    PatchSetAttribute patchSetAttribute = mock(PatchSetAttribute.class);
+    event.patchSet = Suppliers.ofInstance(patchSetAttribute);
+    patchSetAttribute.revision = "testRevision";
+    patchSetAttribute.number = 3;
+    return changeAttribute;
+  }
+
   private void eventHelper(
       RefEvent event,
       String className,
@@ -393,7 +478,7 @@ public class PropertyExtractorTest extends LoggingMockingTestCase {
     assertEquals(
         "Project properties do not match", expectedProjectProperties, actualProjectProperties);
 
-    Set<Map<String, String>> actualIssuesProperties = refEventProperties.getIssuesProperties();
+    List<Map<String, String>> actualIssuesProperties = refEventProperties.getIssuesProperties();
 
     Map<String, String> propertiesIssue4711 =
         ImmutableMap.<String, String>builder()
@@ -420,7 +505,13 @@ public class PropertyExtractorTest extends LoggingMockingTestCase {
     expectedIssuesProperties.add(propertiesIssue42);
 
     assertEquals(
-        "Issues properties do not match", expectedIssuesProperties, actualIssuesProperties);
+        "Issues properties do not match",
+        expectedIssuesProperties,
+        new HashSet<>(actualIssuesProperties));
+    assertEquals(
+        "Issues properties are not unique",
+        expectedIssuesProperties.size(),
+        actualIssuesProperties.size());
   }
 
   @Override
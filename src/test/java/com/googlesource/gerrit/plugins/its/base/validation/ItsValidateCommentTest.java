@@ -33,9 +33,11 @@ import com.google.inject.Injector;
 import com.googlesource.gerrit.plugins.its.base.its.ItsConfig;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacade;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacadeFactory;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectConfig;
 import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
 import com.googlesource.gerrit.plugins.its.base.util.IssueExtractor;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -49,6 +51,7 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
   private IssueExtractor issueExtractor;
   private ItsFacade itsFacade;
   private ItsConfig itsConfig;
+  private ItsProjectConfig projectConfig;
   private ItsFacadeFactory itsFacadeFactory;
 
   private Project.NameKey projectName = Project.nameKey("myProject");
@@ -61,13 +64,13 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit();
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.OPTIONAL);
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.OPTIONAL);
 
     ret = ivc.onCommitReceived(event);
 
     assertEmptyList(ret);
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
   }
 
   public void testSuggestedNonMatching() throws CommitValidationException {
@@ -77,9 +80,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("TestMessage");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
-    when(itsConfig.getDummyIssuePattern()).thenReturn(Optional.empty());
-    when(issueExtractor.getIssueIds("TestMessage")).thenReturn(new String[] {});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
+    when(projectConfig.getDummyIssuePattern()).thenReturn(Optional.empty());
+    when(issueExtractor.getIssueIds(projectConfig, "TestMessage")).thenReturn(new String[] {});
 
     ret = ivc.onCommitReceived(event);
 
@@ -88,9 +91,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
         "First CommitValidationMessages does not contain 'Missing " + "issue'",
         ret.get(0).getMessage().contains("Missing issue"));
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(itsConfig).getDummyIssuePattern();
-    verifyOneOrMore(issueExtractor).getIssueIds("TestMessage");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(projectConfig).getDummyIssuePattern();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "TestMessage");
   }
 
   public void testMandatoryNonMatching() {
@@ -99,17 +102,17 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("TestMessage");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(itsConfig.getDummyIssuePattern()).thenReturn(Optional.empty());
-    when(issueExtractor.getIssueIds("TestMessage")).thenReturn(new String[] {});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(projectConfig.getDummyIssuePattern()).thenReturn(Optional.empty());
+    when(issueExtractor.getIssueIds(projectConfig, "TestMessage")).thenReturn(new String[] {});
 
     CommitValidationException thrown =
         assertThrows(CommitValidationException.class, () -> ivc.onCommitReceived(event));
     assertThat(thrown).hasMessageThat().contains("Missing issue");
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(itsConfig).getDummyIssuePattern();
-    verifyOneOrMore(issueExtractor).getIssueIds("TestMessage");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(projectConfig).getDummyIssuePattern();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "TestMessage");
   }
 
   public void testOnlySkipMatching() throws CommitValidationException {
@@ -119,17 +122,17 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("TestMessage SKIP");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(itsConfig.getDummyIssuePattern()).thenReturn(Optional.of(Pattern.compile("SKIP")));
-    when(issueExtractor.getIssueIds("TestMessage SKIP")).thenReturn(new String[] {});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(projectConfig.getDummyIssuePattern()).thenReturn(Optional.of(Pattern.compile("SKIP")));
+    when(issueExtractor.getIssueIds(projectConfig, "TestMessage SKIP")).thenReturn(new String[] {});
 
     ret = ivc.onCommitReceived(event);
 
     assertEmptyList(ret);
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(itsConfig).getDummyIssuePattern();
-    verifyOneOrMore(issueExtractor).getIssueIds("TestMessage SKIP");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(projectConfig).getDummyIssuePattern();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "TestMessage SKIP");
   }
 
   public void testSuggestedMatchingSingleExisting() throws CommitValidationException, IOException {
@@ -138,8 +141,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     ReceiveCommand command = mock(ReceiveCommand.class);
     RevCommit commit = createCommit("bug#4711");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
-    when(issueExtractor.getIssueIds("bug#4711")).thenReturn(new String[] {"4711"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711")).thenReturn(new String[] {"4711"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(true);
 
@@ -147,8 +150,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
 
     assertEmptyList(ret);
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711");
     verifyOneOrMore(itsFacade).exists("4711");
   }
 
@@ -159,8 +162,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711")).thenReturn(new String[] {"4711"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711")).thenReturn(new String[] {"4711"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(true);
 
@@ -168,8 +171,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
 
     assertEmptyList(ret);
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711");
     verifyOneOrMore(itsFacade).exists("4711");
   }
 
@@ -181,8 +184,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
-    when(issueExtractor.getIssueIds("bug#4711")).thenReturn(new String[] {"4711"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711")).thenReturn(new String[] {"4711"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(false);
 
@@ -196,8 +199,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
         "First CommitValidationMessages does not contain '4711'",
         ret.get(0).getMessage().contains("4711"));
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711");
     verifyOneOrMore(itsFacade).exists("4711");
   }
 
@@ -207,8 +210,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711")).thenReturn(new String[] {"4711"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711")).thenReturn(new String[] {"4711"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(false);
 
@@ -216,8 +219,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
         assertThrows(CommitValidationException.class, () -> ivc.onCommitReceived(event));
     assertThat(thrown).hasMessageThat().contains("Non-existing");
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711");
     verifyOneOrMore(itsFacade).exists("4711");
   }
 
@@ -228,8 +231,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(true);
     when(itsFacade.exists("42")).thenReturn(true);
@@ -238,7 +242,7 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
 
     assertEmptyList(ret);
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -250,8 +254,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(true);
     when(itsFacade.exists("42")).thenReturn(true);
@@ -260,8 +265,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
 
     assertEmptyList(ret);
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -274,8 +279,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(false);
     when(itsFacade.exists("42")).thenReturn(true);
@@ -293,8 +299,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
         "First CommitValidationMessages contains '42', although " + "that bug exists",
         ret.get(0).getMessage().contains("42"));
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -305,8 +311,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(false);
     when(itsFacade.exists("42")).thenReturn(true);
@@ -315,8 +322,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
         assertThrows(CommitValidationException.class, () -> ivc.onCommitReceived(event));
     assertThat(thrown).hasMessageThat().contains("Non-existing");
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -329,8 +336,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(false);
     when(itsFacade.exists("42")).thenReturn(false);
@@ -348,8 +356,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
         "First CommitValidationMessages does not contain '42'",
         ret.get(0).getMessage().contains("42"));
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -360,8 +368,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     when(itsFacade.exists("4711")).thenReturn(false);
     when(itsFacade.exists("42")).thenReturn(true);
@@ -370,8 +379,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
         assertThrows(CommitValidationException.class, () -> ivc.onCommitReceived(event));
     assertThat(thrown).hasMessageThat().contains("Non-existing");
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -384,8 +393,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.SUGGESTED);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     doThrow(new IOException("InjectedEx1")).when(itsFacade).exists("4711");
     when(itsFacade.exists("42")).thenReturn(false);
@@ -415,8 +425,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
 
     assertLogMessageContains("4711");
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -429,8 +439,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711")).thenReturn(new String[] {"4711"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711")).thenReturn(new String[] {"4711"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     doThrow(new IOException("InjectedEx1")).when(itsFacade).exists("4711");
 
@@ -449,8 +459,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
 
     assertLogMessageContains("4711");
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711");
     verifyOneOrMore(itsFacade).exists("4711");
   }
 
@@ -460,8 +470,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     doThrow(new IOException("InjectedEx1")).when(itsFacade).exists("4711");
     when(itsFacade.exists("42")).thenReturn(false);
@@ -476,8 +487,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
           e.getMessage().contains("Non-existing"));
     }
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -490,8 +501,9 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
     RevCommit commit = createCommit("bug#4711, bug#42");
     CommitReceivedEvent event = newCommitReceivedEvent(command, project, null, commit, null);
 
-    when(itsConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
-    when(issueExtractor.getIssueIds("bug#4711, bug#42")).thenReturn(new String[] {"4711", "42"});
+    when(projectConfig.getItsAssociationPolicy()).thenReturn(ItsAssociationPolicy.MANDATORY);
+    when(issueExtractor.getIssueIds(projectConfig, "bug#4711, bug#42"))
+        .thenReturn(new String[] {"4711", "42"});
     when(itsFacadeFactory.getFacade(projectName)).thenReturn(itsFacade);
     doThrow(new IOException("InjectedEx1")).when(itsFacade).exists("4711");
     when(itsFacade.exists("42")).thenReturn(true);
@@ -511,8 +523,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
 
     assertLogMessageContains("4711");
 
-    verifyOneOrMore(itsConfig).getItsAssociationPolicy();
-    verifyOneOrMore(issueExtractor).getIssueIds("bug#4711, bug#42");
+    verifyOneOrMore(projectConfig).getItsAssociationPolicy();
+    verifyOneOrMore(issueExtractor).getIssueIds(projectConfig, "bug#4711, bug#42");
     verifyOneOrMore(itsFacade).exists("4711");
     verifyOneOrMore(itsFacade).exists("42");
   }
@@ -530,8 +542,11 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
   }
 
   private void setupCommonMocks() {
-    when(itsConfig.getIssuePattern()).thenReturn(Pattern.compile("bug#(\\d+)"));
     Project.NameKey projectNK = Project.nameKey("myProject");
+    when(projectConfig.getProjectName()).thenReturn(projectNK);
+    when(projectConfig.getIssuePatterns())
+        .thenReturn(Collections.singletonList(Pattern.compile("bug#(\\d+)")));
+    when(itsConfig.getProjectConfig(projectNK)).thenReturn(projectConfig);
     when(itsConfig.isEnabled(projectNK, null)).thenReturn(true);
   }
 
@@ -599,6 +614,8 @@ public class ItsValidateCommentTest extends LoggingMockingTestCase {
       itsConfig = mock(ItsConfig.class);
       bind(ItsConfig.class).toInstance(itsConfig);
 
+      projectConfig = mock(ItsProjectConfig.class);
+
       itsFacadeFactory = mock(ItsFacadeFactory.class);
       bind(ItsFacadeFactory.class).toInstance(itsFacadeFactory);
     }
@@ -15,12 +15,12 @@ package com.googlesource.gerrit.plugins.its.base.workflow;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.config.FactoryModule;
 import com.google.gerrit.server.events.ChangeEvent;
@@ -30,11 +30,11 @@ import com.google.inject.Injector;
 import com.googlesource.gerrit.plugins.its.base.its.ItsConfig;
 import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
 import com.googlesource.gerrit.plugins.its.base.util.PropertyExtractor;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class ActionControllerTest extends LoggingMockingTestCase {
   private static Project.NameKey testProjectName = Project.nameKey("test-project");
@@ -50,8 +50,8 @@ public class ActionControllerTest extends LoggingMockingTestCase {
 
     ChangeEvent event = mock(ChangeEvent.class);
 
-    Set<Map<String, String>> propertySets = new HashSet<>();
-    when(propertyExtractor.extractFrom(event))
+    List<Map<String, String>> propertySets = new ArrayList<>();
+    when(propertyExtractor.extractFrom(event, PropertyProjection.ALL))
         .thenReturn(new RefEventProperties(Collections.emptyMap(), propertySets));
     when(event.getProjectNameKey()).thenReturn(testProjectName);
 
@@ -63,11 +63,11 @@ public class ActionControllerTest extends LoggingMockingTestCase {
 
     ChangeEvent event = mock(ChangeEvent.class);
 
-    Set<Map<String, String>> propertySets = new HashSet<>();
+    List<Map<String, String>> propertySets = new ArrayList<>();
     Map<String, String> properties = ImmutableMap.of("fake", "property");
     propertySets.add(properties);
 
-    when(propertyExtractor.extractFrom(event))
+    when(propertyExtractor.extractFrom(event, PropertyProjection.ALL))
         .thenReturn(new RefEventProperties(properties, propertySets));
     when(event.getProjectNameKey()).thenReturn(testProjectName);
 
@@ -95,9 +95,9 @@ public class ActionControllerTest extends LoggingMockingTestCase {
             .put("issue", "testIssue")
             .build();
 
-    Set<Map<String, String>> propertySets = ImmutableSet.of(issueProperties);
+    List<Map<String, String>> propertySets = ImmutableList.of(issueProperties);
 
-    when(propertyExtractor.extractFrom(event))
+    when(propertyExtractor.extractFrom(event, PropertyProjection.ALL))
         .thenReturn(new RefEventProperties(projectProperties, propertySets));
     when(event.getProjectNameKey()).thenReturn(testProjectName);
 
@@ -127,9 +127,9 @@ public class ActionControllerTest extends LoggingMockingTestCase {
     Map<String, String> properties1 = ImmutableMap.of("issue", "testIssue");
     Map<String, String> properties2 = ImmutableMap.of("issue", "testIssue2");
 
-    Set<Map<String, String>> propertySets = ImmutableSet.of(properties1, properties2);
+    List<Map<String, String>> propertySets = ImmutableList.of(properties1, properties2);
 
-    when(propertyExtractor.extractFrom(event))
+    when(propertyExtractor.extractFrom(event, PropertyProjection.ALL))
         .thenReturn(new RefEventProperties(Collections.emptyMap(), propertySets));
     when(event.getProjectNameKey()).thenReturn(testProjectName);
 
@@ -153,12 +153,27 @@ public class ActionControllerTest extends LoggingMockingTestCase {
     verify(actionExecutor).executeOnIssue(actionRequests2, properties2);
   }
 
+  public void testNoRuleMayMatch() {
+    ActionController actionController = createActionController();
+
+    ChangeEvent event = mock(ChangeEvent.class);
+    when(event.getProjectNameKey()).thenReturn(testProjectName);
+    when(ruleBase.mayMatch(any())).thenReturn(false);
+
+    actionController.onEvent(event);
+
+    verify(propertyExtractor, never()).extractFrom(any(), any());
+    assertLogMessageContains("No rule may match");
+  }
+
   private ActionController createActionController() {
     return injector.getInstance(ActionController.class);
   }
 
   private void setupCommonMocks() {
     when(itsConfig.isEnabled(any(RefEvent.class))).thenReturn(true);
+    when(ruleBase.getPropertyProjection(any())).thenReturn(PropertyProjection.ALL);
+    when(ruleBase.mayMatch(any())).thenReturn(true);
   }
 
   @Override
@@ -17,6 +17,7 @@ import static com.google.gerrit.testing.GerritJUnit.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.gerrit.extensions.config.FactoryModule;
 import com.google.inject.Guice;
@@ -191,6 +192,12 @@ public class AddSoyCommentTest extends LoggingMockingTestCase {
       assertFalse("itsPath (" + itsPath + ") already exists", Files.exists(itsPath));
       cleanupSitePath = true;
       bind(Path.class).annotatedWith(ItsPath.class).toInstance(itsPath);
+      bind(SoyTemplateCache.class)
+          .toInstance(
+              new SoyTemplateCache(
+                  itsPath,
+                  CacheBuilder.newBuilder().build(),
+                  new PropertyProjectionCache(CacheBuilder.newBuilder().build())));
     }
   }
 }
@@ -164,6 +164,24 @@ public class ConditionTest extends LoggingMockingTestCase {
     assertFalse("isMetBy gave true", condition.isMetBy(properties));
   }
 
+  public void testIsMetByWellKnownProperty() {
+    Condition condition = createCondition("event-type", "patchset-created");
+
+    EventProperties properties = new EventProperties();
+    properties.put(EventProperty.EVENT_TYPE, "patchset-created");
+
+    assertTrue("isMetBy gave false", condition.isMetBy(properties));
+  }
+
+  public void testNegatedIsMetByWellKnownPropertyMissing() {
+    Condition condition = createCondition("event-type", "!,patchset-created");
+
+    EventProperties properties = new EventProperties();
+    properties.put("reason", "patchset-created");
+
+    assertTrue("isMetBy gave false", condition.isMetBy(properties));
+  }
+
   private Condition createCondition(String key, String value) {
     Condition.Factory factory = injector.getInstance(Condition.Factory.class);
     return factory.create(key, value);
@@ -0,0 +1,238 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class EventPropertiesTest extends TestCase {
+  private AtomicInteger computations;
+
+  public void testPlainValues() {
+    EventProperties properties = new EventProperties();
+    properties.put("project", "testProject");
+
+    assertEquals("testProject", properties.get("project"));
+    assertTrue(properties.containsKey("project"));
+    assertFalse(properties.containsKey("issue"));
+    assertNull(properties.get("issue"));
+  }
+
+  public void testLazyValueNotComputedUntilRead() {
+    EventProperties properties = new EventProperties();
+    properties.putLazy("escapedSubject", this::compute);
+
+    assertTrue(properties.containsKey("escapedSubject"));
+    assertEquals(1, properties.size());
+    assertTrue(properties.keySet().contains("escapedSubject"));
+    assertEquals(0, computations.get());
+  }
+
+  public void testLazyValueComputedOnce() {
+    EventProperties properties = new EventProperties();
+    properties.putLazy("escapedSubject", this::compute);
+
+    assertEquals("computed", properties.get("escapedSubject"));
+    assertEquals("computed", properties.get("escapedSubject"));
+    assertEquals(1, computations.get());
+  }
+
+  public void testCopyKeepsValuesLazy() {
+    EventProperties properties = new EventProperties();
+    properties.put("project", "testProject");
+    properties.putLazy("escapedSubject", this::compute);
+
+    EventProperties copy = new EventProperties(properties);
+    EventProperties other = new EventProperties();
+    other.putAll(properties);
+    assertEquals(0, computations.get());
+
+    assertEquals("computed", copy.get("escapedSubject"));
+    assertEquals("computed", other.get("escapedSubject"));
+    assertEquals("computed", properties.get("escapedSubject"));
+    assertEquals(1, computations.get());
+  }
+
+  public void testCopyIsIndependent() {
+    EventProperties properties = new EventProperties();
+    properties.put("project", "testProject");
+
+    EventProperties copy = new EventProperties(properties);
+    copy.put("project", "otherProject");
+
+    assertEquals("testProject", properties.get("project"));
+    assertEquals("otherProject", copy.get("project"));
+  }
+
+  public void testEqualsOtherMaps() {
+    EventProperties properties = new EventProperties();
+    properties.put("project", "testProject");
+    properties.putLazy("escapedSubject", this::compute);
+
+    Map<String, String> expected =
+        ImmutableMap.of("project", "testProject", "escapedSubject", "computed");
+    assertEquals(expected, properties);
+    assertEquals(properties, expected);
+    assertEquals(expected.hashCode(), properties.hashCode());
+  }
+
+  public void testRemove() {
+    EventProperties properties = new EventProperties();
+    properties.putLazy("escapedSubject", this::compute);
+
+    assertEquals("computed", properties.remove("escapedSubject"));
+    assertTrue(properties.isEmpty());
+  }
+
+  public void testOverlayReadsBase() {
+    EventProperties base = new EventProperties();
+    base.put("project", "testProject");
+    base.putLazy("escapedSubject", this::compute);
+
+    EventProperties overlay = EventProperties.overlay(base);
+    overlay.put("issue", "4711");
+
+    Map<String, String> expected =
+        ImmutableMap.of("project", "testProject", "escapedSubject", "computed", "issue", "4711");
+    assertEquals(expected, overlay);
+    assertEquals(3, overlay.size());
+    assertEquals(expected.hashCode(), overlay.hashCode());
+    assertTrue(overlay.containsKey("project"));
+    assertFalse(base.containsKey("issue"));
+  }
+
+  public void testOverlayDoesNotModifyBase() {
+    EventProperties base = new EventProperties();
+    base.put("project", "testProject");
+    base.put("source", "its");
+
+    EventProperties overlay = EventProperties.overlay(base);
+    assertEquals("testProject", overlay.put("project", "otherProject"));
+    assertEquals("its", overlay.remove("source"));
+
+    assertEquals(ImmutableMap.of("project", "otherProject"), overlay);
+    assertEquals(ImmutableMap.of("project", "testProject", "source", "its"), base);
+    assertFalse(overlay.containsKey("source"));
+    assertNull(overlay.get("source"));
+    assertEquals(1, overlay.size());
+  }
+
+  public void testOverlayIteratorRemove() {
+    EventProperties base = new EventProperties();
+    base.put("project", "testProject");
+    base.put("source", "its");
+
+    EventProperties overlay = EventProperties.overlay(base);
+    overlay.put("issue", "4711");
+    overlay.entrySet().removeIf(entry -> !entry.getKey().equals("source"));
+
+    assertEquals(ImmutableMap.of("source", "its"), overlay);
+    assertEquals(2, base.size());
+  }
+
+  public void testOverlayClear() {
+    EventProperties base = new EventProperties();
+    base.put("project", "testProject");
+
+    EventProperties overlay = EventProperties.overlay(base);
+    overlay.put("issue", "4711");
+    overlay.clear();
+
+    assertTrue(overlay.isEmpty());
+    assertEquals(ImmutableMap.of("project", "testProject"), base);
+  }
+
+  public void testCopyOfOverlay() {
+    EventProperties base = new EventProperties();
+    base.put("project", "testProject");
+    base.put("source", "its");
+    base.putLazy("escapedSubject", this::compute);
+
+    EventProperties overlay = EventProperties.overlay(base);
+    overlay.put("issue", "4711");
+    overlay.remove("source");
+
+    EventProperties copy = new EventProperties(overlay);
+    assertEquals(0, computations.get());
+    assertEquals(
+        ImmutableMap.of("project", "testProject", "escapedSubject", "computed", "issue", "4711"),
+        copy);
+  }
+
+  public void testWellKnownAndOtherProperties() {
+    EventProperties properties = new EventProperties();
+    properties.put(EventProperty.PROJECT, "testProject");
+    properties.put("issue", "4711");
+    properties.put("reason", "obsolete");
+
+    assertEquals("testProject", properties.get("project"));
+    assertEquals("4711", properties.get(EventProperty.ISSUE));
+    assertTrue(properties.containsKey(EventProperty.ISSUE));
+    assertFalse(properties.containsKey(EventProperty.SOURCE));
+    assertEquals(3, properties.size());
+    assertEquals(
+        ImmutableMap.of("project", "testProject", "issue", "4711", "reason", "obsolete"),
+        properties);
+
+    assertEquals("4711", properties.remove("issue"));
+    assertNull(properties.get(EventProperty.ISSUE));
+    assertEquals(2, properties.size());
+  }
+
+  public void testNullValues() {
+    EventProperties properties = new EventProperties();
+    properties.put(EventProperty.SUBJECT, null);
+    properties.put("topic", null);
+
+    assertTrue(properties.containsKey("subject"));
+    assertTrue(properties.containsKey("topic"));
+    assertNull(properties.get(EventProperty.SUBJECT));
+    assertEquals(2, properties.size());
+  }
+
+  public void testOverlayOfWellKnownProperties() {
+    EventProperties base = new EventProperties();
+    base.put(EventProperty.PROJECT, "testProject");
+    base.put(EventProperty.SOURCE, "its");
+
+    EventProperties overlay = EventProperties.overlay(base);
+    overlay.put(EventProperty.ISSUE, "4711");
+    overlay.remove("source");
+
+    assertEquals("testProject", overlay.get(EventProperty.PROJECT));
+    assertNull(overlay.get(EventProperty.SOURCE));
+    assertEquals(ImmutableMap.of("project", "testProject", "issue", "4711"), overlay);
+  }
+
+  public void testGetFromPlainMap() {
+    Map<String, String> properties = ImmutableMap.of("event-type", "patchset-created");
+
+    assertEquals("patchset-created", EventProperty.EVENT_TYPE.getFrom(properties));
+    assertNull(EventProperty.ISSUE.getFrom(properties));
+  }
+
+  private String compute() {
+    computations.incrementAndGet();
+    return "computed";
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    computations = new AtomicInteger();
+  }
+}
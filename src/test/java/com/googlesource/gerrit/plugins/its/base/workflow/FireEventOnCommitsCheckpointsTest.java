@@ -0,0 +1,173 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.googlesource.gerrit.plugins.its.base.workflow.FireEventOnCommitsCheckpoints.Checkpoint;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import junit.framework.TestCase;
+
+public class FireEventOnCommitsCheckpointsTest extends TestCase {
+  private static final String RANGE = "testProject [since-last-tag] refs/heads/master null abc";
+  private static final String COMMIT_1 = "0123456789012345678901234567890123456789";
+  private static final String COMMIT_2 = "9876543210987654321098765432109876543210";
+
+  private Path pluginData;
+  private FireEventOnCommitsCheckpoints checkpoints;
+
+  public void testNewCheckpoint() {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      assertNull(checkpoint.getLastCommit());
+      assertFalse(checkpoint.isHandled("42"));
+    }
+  }
+
+  public void testResume() {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.persist();
+      checkpoint.issueHandled("42");
+      checkpoint.commitsHandled(COMMIT_1);
+      checkpoint.issueHandled("43");
+      checkpoint.commitsHandled(COMMIT_2);
+    }
+
+    try (Checkpoint checkpoint = open(RANGE)) {
+      assertEquals(COMMIT_2, checkpoint.getLastCommit());
+      assertTrue(checkpoint.isHandled("42"));
+      assertTrue(checkpoint.isHandled("43"));
+      assertFalse(checkpoint.isHandled("44"));
+    }
+  }
+
+  public void testResumeAfterPartialWrite() throws Exception {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.commitsHandled(COMMIT_1);
+      checkpoint.persist();
+    }
+    Path file = getCheckpointFile();
+    Files.write(file, "commit 98765".getBytes(UTF_8), StandardOpenOption.APPEND);
+
+    try (Checkpoint checkpoint = open(RANGE)) {
+      assertEquals(COMMIT_1, checkpoint.getLastCommit());
+    }
+  }
+
+  public void testOtherRange() {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.persist();
+      checkpoint.issueHandled("42");
+    }
+
+    try (Checkpoint checkpoint = open(RANGE + "def")) {
+      assertFalse(checkpoint.isHandled("42"));
+    }
+  }
+
+  public void testComplete() throws Exception {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.persist();
+      checkpoint.issueHandled("42");
+      checkpoint.complete();
+    }
+
+    assertNull(getCheckpointFile());
+    try (Checkpoint checkpoint = open(RANGE)) {
+      assertFalse(checkpoint.isHandled("42"));
+    }
+  }
+
+  public void testNotWrittenWithoutPersist() throws Exception {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.issueHandled("42");
+      checkpoint.commitsHandled(COMMIT_1);
+      assertTrue(checkpoint.isHandled("42"));
+    }
+
+    assertNull(getCheckpointFile());
+  }
+
+  public void testPersistWritesEarlierProgress() {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.issueHandled("42");
+      checkpoint.commitsHandled(COMMIT_1);
+      checkpoint.persist();
+    }
+
+    try (Checkpoint checkpoint = open(RANGE)) {
+      assertEquals(COMMIT_1, checkpoint.getLastCommit());
+      assertTrue(checkpoint.isHandled("42"));
+    }
+  }
+
+  public void testConcurrentRunForSameRangeIsSkipped() throws Exception {
+    AtomicBoolean opened = new AtomicBoolean(true);
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.persist();
+      checkpoint.issueHandled("42");
+      Thread other = new Thread(() -> opened.set(checkpoints.tryOpen(RANGE).isPresent()));
+      other.start();
+      other.join();
+    }
+    assertFalse(opened.get());
+
+    try (Checkpoint checkpoint = open(RANGE)) {
+      assertTrue(checkpoint.isHandled("42"));
+    }
+  }
+
+  public void testDeleteOlderThan() throws Exception {
+    try (Checkpoint checkpoint = open(RANGE)) {
+      checkpoint.persist();
+      checkpoint.issueHandled("42");
+    }
+    Path file = getCheckpointFile();
+
+    checkpoints.deleteOlderThan(Files.getLastModifiedTime(file).toMillis());
+    assertNotNull(getCheckpointFile());
+
+    checkpoints.deleteOlderThan(Files.getLastModifiedTime(file).toMillis() + 1);
+    assertNull(getCheckpointFile());
+  }
+
+  private Checkpoint open(String range) {
+    return checkpoints.tryOpen(range).get();
+  }
+
+  private Path getCheckpointFile() throws Exception {
+    try (Stream<Path> files = Files.walk(pluginData)) {
+      return files.filter(Files::isRegularFile).findFirst().orElse(null);
+    }
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    pluginData = Files.createTempDirectory("its-base");
+    checkpoints = new FireEventOnCommitsCheckpoints(pluginData, 0);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    MoreFiles.deleteRecursively(pluginData, RecursiveDeleteOption.ALLOW_INSECURE);
+    super.tearDown();
+  }
+}
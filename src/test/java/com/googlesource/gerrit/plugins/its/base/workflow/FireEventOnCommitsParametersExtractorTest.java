@@ -17,9 +17,13 @@ package com.googlesource.gerrit.plugins.its.base.workflow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.google.gerrit.extensions.annotations.Exports;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.extensions.registration.DynamicMap;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.BetweenRevisionsCommitCollector;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.CommitCollector;
 import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.SinceLastTagCommitCollector;
 import java.util.Collections;
 import java.util.Optional;
@@ -28,8 +32,12 @@ import junit.framework.TestCase;
 public class FireEventOnCommitsParametersExtractorTest extends TestCase {
 
   private static final String SINCE_LAST_TAG_COLLECTOR = "since-last-tag";
+  private static final String BETWEEN_REVISIONS_COLLECTOR = "between-revisions";
+  private static final String CUSTOM_COLLECTOR = "custom";
 
   private SinceLastTagCommitCollector.Factory sinceLastTagCommitCollectorFactory;
+  private BetweenRevisionsCommitCollector.Factory betweenRevisionsCommitCollectorFactory;
+  private CommitCollector customCommitCollector;
   private FireEventOnCommitsParametersExtractor extractor;
 
   @Override
@@ -45,6 +53,16 @@ public class FireEventOnCommitsParametersExtractorTest extends TestCase {
       sinceLastTagCommitCollectorFactory = mock(SinceLastTagCommitCollector.Factory.class);
       bind(SinceLastTagCommitCollector.Factory.class)
           .toInstance(sinceLastTagCommitCollectorFactory);
+
+      betweenRevisionsCommitCollectorFactory = mock(BetweenRevisionsCommitCollector.Factory.class);
+      bind(BetweenRevisionsCommitCollector.Factory.class)
+          .toInstance(betweenRevisionsCommitCollectorFactory);
+
+      DynamicMap.mapOf(binder(), CommitCollector.class);
+      customCommitCollector = mock(CommitCollector.class);
+      bind(CommitCollector.class)
+          .annotatedWith(Exports.named(CUSTOM_COLLECTOR))
+          .toInstance(customCommitCollector);
     }
   }
 
@@ -57,6 +75,11 @@ public class FireEventOnCommitsParametersExtractorTest extends TestCase {
         new String[] {SINCE_LAST_TAG_COLLECTOR, SINCE_LAST_TAG_COLLECTOR});
   }
 
+  public void testThreeParameters() {
+    testWrongNumberOfReceivedParameters(
+        new String[] {SINCE_LAST_TAG_COLLECTOR, "aggregate", "aggregate"});
+  }
+
   private void testWrongNumberOfReceivedParameters(String[] parameters) {
     ActionRequest actionRequest = mock(ActionRequest.class);
     when(actionRequest.getParameters()).thenReturn(parameters);
@@ -98,5 +121,51 @@ public class FireEventOnCommitsParametersExtractorTest extends TestCase {
     }
     assertEquals(collector, extractedParameters.get().getCommitCollector());
     assertEquals("testProject", extractedParameters.get().getProjectName());
+    assertFalse(extractedParameters.get().isAggregate());
+  }
+
+  public void testAggregate() {
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(actionRequest.getParameters())
+        .thenReturn(new String[] {SINCE_LAST_TAG_COLLECTOR, "aggregate"});
+
+    SinceLastTagCommitCollector collector = mock(SinceLastTagCommitCollector.class);
+    when(sinceLastTagCommitCollectorFactory.create()).thenReturn(collector);
+
+    Optional<FireEventOnCommitsParameters> extractedParameters =
+        extractor.extract(actionRequest, Collections.singletonMap("project", "testProject"));
+    if (!extractedParameters.isPresent()) {
+      fail();
+    }
+    assertEquals(collector, extractedParameters.get().getCommitCollector());
+    assertTrue(extractedParameters.get().isAggregate());
+  }
+
+  public void testBetweenRevisionsCollector() {
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(actionRequest.getParameters()).thenReturn(new String[] {BETWEEN_REVISIONS_COLLECTOR});
+
+    BetweenRevisionsCommitCollector collector = mock(BetweenRevisionsCommitCollector.class);
+    when(betweenRevisionsCommitCollectorFactory.create()).thenReturn(collector);
+
+    Optional<FireEventOnCommitsParameters> extractedParameters =
+        extractor.extract(actionRequest, Collections.singletonMap("project", "testProject"));
+    if (!extractedParameters.isPresent()) {
+      fail();
+    }
+    assertEquals(collector, extractedParameters.get().getCommitCollector());
+    assertEquals("testProject", extractedParameters.get().getProjectName());
+  }
+
+  public void testCustomCollector() {
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(actionRequest.getParameters()).thenReturn(new String[] {CUSTOM_COLLECTOR});
+
+    Optional<FireEventOnCommitsParameters> extractedParameters =
+        extractor.extract(actionRequest, Collections.singletonMap("project", "testProject"));
+    if (!extractedParameters.isPresent()) {
+      fail();
+    }
+    assertEquals(customCommitCollector, extractedParameters.get().getCommitCollector());
   }
 }
@@ -14,48 +14,83 @@
 
 package com.googlesource.gerrit.plugins.its.base.workflow;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.googlesource.gerrit.plugins.its.base.its.ItsFacade;
+import com.googlesource.gerrit.plugins.its.base.util.CommitMessageFetcher;
 import com.googlesource.gerrit.plugins.its.base.util.IssueExtractor;
 import com.googlesource.gerrit.plugins.its.base.util.PropertyExtractor;
+import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.CommitIterator;
 import com.googlesource.gerrit.plugins.its.base.workflow.commit_collector.SinceLastTagCommitCollector;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 import junit.framework.TestCase;
+import org.eclipse.jgit.lib.Config;
+import org.mockito.ArgumentCaptor;
 
 public class FireEventOnCommitsTest extends TestCase {
 
   private static final String ITS_PROJECT = "test-project";
   private static final String COMMIT = "1234";
   private static final String PROJECT = "testProject";
+  private static final String PLUGIN_NAME = "ItsTestName";
 
   private Injector injector;
   private ItsFacade its;
   private PropertyExtractor propertyExtractor;
   private IssueExtractor issueExtractor;
+  private CommitMessageFetcher commitMessageFetcher;
   private RuleBase ruleBase;
   private ActionExecutor actionExecutor;
   private FireEventOnCommitsParametersExtractor parametersExtractor;
+  private Config gerritConfig;
+  private Path pluginData;
 
   @Override
   public void setUp() throws Exception {
     super.setUp();
+    pluginData = Files.createTempDirectory("its-base");
     injector = Guice.createInjector(new TestModule());
   }
 
+  @Override
+  public void tearDown() throws Exception {
+    MoreFiles.deleteRecursively(pluginData, RecursiveDeleteOption.ALLOW_INSECURE);
+    super.tearDown();
+  }
+
   private class TestModule extends FactoryModule {
     @Override
     protected void configure() {
@@ -71,11 +106,20 @@ public class FireEventOnCommitsTest extends TestCase {
       issueExtractor = mock(IssueExtractor.class);
       bind(IssueExtractor.class).toInstance(issueExtractor);
 
+      commitMessageFetcher = mock(CommitMessageFetcher.class);
+      bind(CommitMessageFetcher.class).toInstance(commitMessageFetcher);
+
       actionExecutor = mock(ActionExecutor.class);
       bind(ActionExecutor.class).toInstance(actionExecutor);
 
       parametersExtractor = mock(FireEventOnCommitsParametersExtractor.class);
       bind(FireEventOnCommitsParametersExtractor.class).toInstance(parametersExtractor);
+
+      bind(String.class).annotatedWith(PluginName.class).toInstance(PLUGIN_NAME);
+      gerritConfig = new Config();
+      bind(Config.class).annotatedWith(GerritServerConfig.class).toInstance(gerritConfig);
+      bind(MetricMaker.class).to(DisabledMetricMaker.class);
+      bind(Path.class).annotatedWith(PluginData.class).toInstance(pluginData);
     }
   }
 
@@ -90,12 +134,14 @@ public class FireEventOnCommitsTest extends TestCase {
     ActionRequest actionRequest = mock(ActionRequest.class);
     when(parametersExtractor.extract(actionRequest, properties))
         .thenReturn(Optional.of(parameters));
-    when(collector.collect(properties)).thenReturn(Collections.singletonList(COMMIT));
+    when(collector.iterate(properties))
+        .thenReturn(CommitIterator.of(Collections.singletonList(COMMIT)));
 
     Map<String, Set<String>> associations = Maps.newHashMap();
-    when(issueExtractor.getIssueIds(PROJECT, COMMIT)).thenReturn(associations);
+    when(issueExtractor.getIssueIdsFromCommits(PROJECT, Collections.singletonList(COMMIT)))
+        .thenReturn(Collections.singletonList(associations));
 
-    Set<Map<String, String>> issuesProperties = ImmutableSet.of(properties);
+    List<Map<String, String>> issuesProperties = ImmutableList.of(properties);
     when(propertyExtractor.extractIssuesProperties(properties, associations))
         .thenReturn(issuesProperties);
 
@@ -109,6 +155,342 @@ public class FireEventOnCommitsTest extends TestCase {
     verify(actionExecutor).executeOnIssue(subActionRequests, properties);
   }
 
+  public void testIssueOfSeveralCommitsHandledOnce() throws IOException {
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT);
+
+    FireEventOnCommitsParameters parameters = mock(FireEventOnCommitsParameters.class);
+    SinceLastTagCommitCollector collector = mock(SinceLastTagCommitCollector.class);
+    when(parameters.getCommitCollector()).thenReturn(collector);
+    when(parameters.getProjectName()).thenReturn(PROJECT);
+
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(parametersExtractor.extract(actionRequest, properties))
+        .thenReturn(Optional.of(parameters));
+    List<String> commits = ImmutableList.of(COMMIT, "5678");
+    when(collector.iterate(properties)).thenReturn(CommitIterator.of(commits));
+
+    // Both commits mention issue 42 in their footer.
+    Map<String, Set<String>> associations1 = ImmutableMap.of("42", ImmutableSet.of("footer"));
+    Map<String, Set<String>> associations2 = ImmutableMap.of("42", ImmutableSet.of("footer"));
+    when(issueExtractor.getIssueIdsFromCommits(PROJECT, commits))
+        .thenReturn(ImmutableList.of(associations1, associations2));
+
+    Map<String, String> issueProperties =
+        ImmutableMap.of("project", PROJECT, "issue", "42", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(properties, associations1))
+        .thenReturn(
+            ImmutableList.of(issueProperties), ImmutableList.of(new HashMap<>(issueProperties)));
+
+    ActionRequest subActionRequest = mock(ActionRequest.class);
+    Collection<ActionRequest> subActionRequests = Collections.singleton(subActionRequest);
+    when(ruleBase.actionRequestsFor(issueProperties)).thenReturn(subActionRequests);
+
+    FireEventOnCommits fireEventOnCommits = createFireEventOnCommits();
+    fireEventOnCommits.execute(its, ITS_PROJECT, actionRequest, properties);
+
+    verify(propertyExtractor, times(2)).extractIssuesProperties(properties, associations1);
+    verify(actionExecutor, times(1)).executeOnIssue(subActionRequests, issueProperties);
+  }
+
+  public void testAggregate() throws IOException {
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT);
+
+    FireEventOnCommitsParameters parameters = mock(FireEventOnCommitsParameters.class);
+    SinceLastTagCommitCollector collector = mock(SinceLastTagCommitCollector.class);
+    when(parameters.getCommitCollector()).thenReturn(collector);
+    when(parameters.getProjectName()).thenReturn(PROJECT);
+    when(parameters.isAggregate()).thenReturn(true);
+
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(parametersExtractor.extract(actionRequest, properties))
+        .thenReturn(Optional.of(parameters));
+    List<String> commits = ImmutableList.of(COMMIT, "5678", "9012");
+    when(collector.iterate(properties)).thenReturn(CommitIterator.of(commits));
+
+    Map<String, Set<String>> associations1 = ImmutableMap.of("42", ImmutableSet.of("footer"));
+    Map<String, Set<String>> associations2 = ImmutableMap.of();
+    Map<String, Set<String>> associations3 =
+        ImmutableMap.of("42", ImmutableSet.of("subject"), "43", ImmutableSet.of("footer"));
+    when(issueExtractor.getIssueIdsFromCommits(PROJECT, commits))
+        .thenReturn(ImmutableList.of(associations1, associations2, associations3));
+
+    Map<String, String> issue42Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "42", "association", "footer subject");
+    when(propertyExtractor.extractIssuesProperties(
+            properties, ImmutableMap.of("42", ImmutableSet.of("footer", "subject"))))
+        .thenReturn(ImmutableList.of(issue42Properties));
+    Map<String, String> issue43Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "43", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(
+            properties, ImmutableMap.of("43", ImmutableSet.of("footer"))))
+        .thenReturn(ImmutableList.of(issue43Properties));
+
+    CommitMessageFetcher.Session session = mock(CommitMessageFetcher.Session.class);
+    when(commitMessageFetcher.openSession(PROJECT)).thenReturn(session);
+    when(session.fetchGuarded(COMMIT)).thenReturn("Fix the frobnicator\n\nBug: 42");
+    when(session.fetchGuarded("9012")).thenReturn("Fix 42 and 43");
+
+    FireEventOnCommits fireEventOnCommits = createFireEventOnCommits();
+    fireEventOnCommits.execute(its, ITS_PROJECT, actionRequest, properties);
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<String, String>> captor = ArgumentCaptor.forClass(Map.class);
+    verify(ruleBase, times(2)).actionRequestsFor(captor.capture());
+    Map<String, String> aggregated42 = captor.getAllValues().get(0);
+    assertEquals("42", aggregated42.get("issue"));
+    assertEquals("footer subject", aggregated42.get("association"));
+    assertEquals(COMMIT + " 9012", aggregated42.get(FireEventOnCommits.COMMITS));
+    assertEquals(
+        "Fix the frobnicator\nFix 42 and 43",
+        aggregated42.get(FireEventOnCommits.COMMIT_SUBJECTS));
+    Map<String, String> aggregated43 = captor.getAllValues().get(1);
+    assertEquals("43", aggregated43.get("issue"));
+    assertEquals("9012", aggregated43.get(FireEventOnCommits.COMMITS));
+    verifyNoMoreInteractions(actionExecutor);
+  }
+
+  public void testCommitsAreProcessedInBatches() throws IOException {
+    int batchSize = FireEventOnCommits.BATCH_SIZE;
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT);
+    ActionRequest actionRequest = mockCollectedCommits(properties, batchSize + 1);
+
+    FireEventOnCommits fireEventOnCommits = createFireEventOnCommits();
+    fireEventOnCommits.execute(its, ITS_PROJECT, actionRequest, properties);
+
+    verify(issueExtractor).getIssueIdsFromCommits(PROJECT, commitIds(0, batchSize));
+    verify(issueExtractor).getIssueIdsFromCommits(PROJECT, commitIds(batchSize, batchSize + 1));
+  }
+
+  public void testMaxCommits() throws IOException {
+    gerritConfig.setInt("plugin", PLUGIN_NAME, "fireEventOnCommitsMaxCommits", 2);
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT);
+    ActionRequest actionRequest = mockCollectedCommits(properties, 3);
+
+    FireEventOnCommits fireEventOnCommits = createFireEventOnCommits();
+    fireEventOnCommits.execute(its, ITS_PROJECT, actionRequest, properties);
+
+    verify(issueExtractor).getIssueIdsFromCommits(PROJECT, commitIds(0, 2));
+    verifyNoMoreInteractions(issueExtractor);
+  }
+
+  public void testResumeFromCheckpoint() throws Exception {
+    int batchSize = FireEventOnCommits.BATCH_SIZE;
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT, "revision", "abc");
+    List<String> commits = commitIds(0, batchSize + 1);
+
+    FireEventOnCommitsParameters parameters = mock(FireEventOnCommitsParameters.class);
+    SinceLastTagCommitCollector collector = mock(SinceLastTagCommitCollector.class);
+    when(parameters.getCommitCollector()).thenReturn(collector);
+    when(parameters.getProjectName()).thenReturn(PROJECT);
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(actionRequest.getParameters()).thenReturn(new String[] {"since-last-tag"});
+    when(parametersExtractor.extract(actionRequest, properties))
+        .thenReturn(Optional.of(parameters));
+    when(collector.iterate(properties))
+        .thenReturn(CommitIterator.of(commits), CommitIterator.of(commits));
+
+    // The first commit references issue 42, the last one issue 43.
+    when(issueExtractor.getIssueIdsFromCommits(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              List<String> batch = invocation.getArgument(1);
+              List<Map<String, Set<String>>> ret = new ArrayList<>();
+              for (String commit : batch) {
+                Map<String, Set<String>> associations = new HashMap<>();
+                if (commit.equals(commits.get(0))) {
+                  associations.put("42", ImmutableSet.of("footer"));
+                } else if (commit.equals(commits.get(batchSize))) {
+                  associations.put("43", ImmutableSet.of("footer"));
+                }
+                ret.add(associations);
+              }
+              return ret;
+            });
+    Map<String, String> issue42Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "42", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(
+            properties, ImmutableMap.of("42", ImmutableSet.of("footer"))))
+        .thenReturn(ImmutableList.of(issue42Properties));
+    Map<String, String> issue43Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "43", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(
+            properties, ImmutableMap.of("43", ImmutableSet.of("footer"))))
+        .thenReturn(ImmutableList.of(issue43Properties));
+
+    Collection<ActionRequest> subActionRequests =
+        Collections.singleton(mock(ActionRequest.class));
+    when(ruleBase.actionRequestsFor(any())).thenReturn(subActionRequests);
+    doThrow(new IllegalStateException("Injected failure"))
+        .doNothing()
+        .when(actionExecutor)
+        .executeOnIssue(subActionRequests, issue43Properties);
+
+    try {
+      createFireEventOnCommits().execute(its, ITS_PROJECT, actionRequest, properties);
+      fail("No exception thrown");
+    } catch (IllegalStateException e) {
+      assertEquals("Injected failure", e.getMessage());
+    }
+    createFireEventOnCommits().execute(its, ITS_PROJECT, actionRequest, properties);
+
+    // The second run resumes after the first batch, whose issue 42 got handled already.
+    verify(issueExtractor).getIssueIdsFromCommits(PROJECT, commitIds(0, batchSize));
+    verify(issueExtractor, times(2))
+        .getIssueIdsFromCommits(PROJECT, commitIds(batchSize, batchSize + 1));
+    verify(actionExecutor, times(1)).executeOnIssue(subActionRequests, issue42Properties);
+    verify(actionExecutor, times(2)).executeOnIssue(subActionRequests, issue43Properties);
+    try (Stream<Path> checkpoints = Files.walk(pluginData)) {
+      assertFalse(checkpoints.anyMatch(Files::isRegularFile));
+    }
+  }
+
+  public void testWalkAgainIfCheckpointCommitIsGone() throws Exception {
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT, "revision", "abc");
+    List<String> commits = commitIds(0, 2);
+
+    FireEventOnCommitsParameters parameters = mock(FireEventOnCommitsParameters.class);
+    SinceLastTagCommitCollector collector = mock(SinceLastTagCommitCollector.class);
+    when(parameters.getCommitCollector()).thenReturn(collector);
+    when(parameters.getProjectName()).thenReturn(PROJECT);
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(actionRequest.getParameters()).thenReturn(new String[] {"since-last-tag"});
+    when(parametersExtractor.extract(actionRequest, properties))
+        .thenReturn(Optional.of(parameters));
+    when(collector.iterate(properties))
+        .thenReturn(CommitIterator.of(commits), CommitIterator.of(commits));
+
+    Map<String, Set<String>> associations1 = ImmutableMap.of("42", ImmutableSet.of("footer"));
+    Map<String, Set<String>> associations2 = ImmutableMap.of("43", ImmutableSet.of("footer"));
+    when(issueExtractor.getIssueIdsFromCommits(PROJECT, commits))
+        .thenReturn(ImmutableList.of(associations1, associations2));
+    Map<String, String> issue42Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "42", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(properties, associations1))
+        .thenReturn(ImmutableList.of(issue42Properties));
+    Map<String, String> issue43Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "43", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(properties, associations2))
+        .thenReturn(ImmutableList.of(issue43Properties));
+
+    Collection<ActionRequest> subActionRequests =
+        Collections.singleton(mock(ActionRequest.class));
+    when(ruleBase.actionRequestsFor(any())).thenReturn(subActionRequests);
+
+    // A checkpoint of an earlier run, whose last commit is no longer in the range.
+    FireEventOnCommitsCheckpoints checkpoints =
+        injector.getInstance(FireEventOnCommitsCheckpoints.class);
+    try (FireEventOnCommitsCheckpoints.Checkpoint checkpoint =
+        checkpoints.tryOpen("testProject [since-last-tag] null null abc").get()) {
+      checkpoint.persist();
+      checkpoint.issueHandled("42\tfooter");
+      checkpoint.commitsHandled(commitIds(2, 3).get(0));
+    }
+
+    createFireEventOnCommits().execute(its, ITS_PROJECT, actionRequest, properties);
+
+    verify(actionExecutor, never()).executeOnIssue(subActionRequests, issue42Properties);
+    verify(actionExecutor).executeOnIssue(subActionRequests, issue43Properties);
+    try (Stream<Path> checkpointFiles = Files.walk(pluginData)) {
+      assertFalse(checkpointFiles.anyMatch(Files::isRegularFile));
+    }
+  }
+
+  public void testKeepCheckpointIfStoppedBeforeIt() throws Exception {
+    gerritConfig.setInt("plugin", PLUGIN_NAME, "fireEventOnCommitsMaxCommits", 1);
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT, "revision", "abc");
+    List<String> commits = commitIds(0, 3);
+
+    FireEventOnCommitsParameters parameters = mock(FireEventOnCommitsParameters.class);
+    SinceLastTagCommitCollector collector = mock(SinceLastTagCommitCollector.class);
+    when(parameters.getCommitCollector()).thenReturn(collector);
+    when(parameters.getProjectName()).thenReturn(PROJECT);
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(actionRequest.getParameters()).thenReturn(new String[] {"since-last-tag"});
+    when(parametersExtractor.extract(actionRequest, properties))
+        .thenReturn(Optional.of(parameters));
+    when(collector.iterate(properties)).thenReturn(CommitIterator.of(commits));
+
+    // A checkpoint of an earlier run, whose last commit lies beyond the maximum commit count.
+    FireEventOnCommitsCheckpoints checkpoints =
+        injector.getInstance(FireEventOnCommitsCheckpoints.class);
+    try (FireEventOnCommitsCheckpoints.Checkpoint checkpoint =
+        checkpoints.tryOpen("testProject [since-last-tag] null null abc").get()) {
+      checkpoint.persist();
+      checkpoint.issueHandled("42\tfooter");
+      checkpoint.commitsHandled(commits.get(1));
+    }
+
+    createFireEventOnCommits().execute(its, ITS_PROJECT, actionRequest, properties);
+
+    verify(collector, times(1)).iterate(properties);
+    verifyNoInteractions(issueExtractor);
+    try (FireEventOnCommitsCheckpoints.Checkpoint checkpoint =
+        checkpoints.tryOpen("testProject [since-last-tag] null null abc").get()) {
+      assertEquals(commits.get(1), checkpoint.getLastCommit());
+      assertTrue(checkpoint.isHandled("42\tfooter"));
+    }
+  }
+
+  public void testShortRunWritesNoCheckpoint() throws Exception {
+    Map<String, String> properties = ImmutableMap.of("project", PROJECT);
+    ActionRequest actionRequest = mockCollectedCommits(properties, 2);
+
+    Map<String, Set<String>> associations1 = ImmutableMap.of("42", ImmutableSet.of("footer"));
+    Map<String, Set<String>> associations2 = ImmutableMap.of("43", ImmutableSet.of("footer"));
+    when(issueExtractor.getIssueIdsFromCommits(PROJECT, commitIds(0, 2)))
+        .thenReturn(ImmutableList.of(associations1, associations2));
+    Map<String, String> issue42Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "42", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(properties, associations1))
+        .thenReturn(ImmutableList.of(issue42Properties));
+    Map<String, String> issue43Properties =
+        ImmutableMap.of("project", PROJECT, "issue", "43", "association", "footer");
+    when(propertyExtractor.extractIssuesProperties(properties, associations2))
+        .thenReturn(ImmutableList.of(issue43Properties));
+
+    Collection<ActionRequest> subActionRequests =
+        Collections.singleton(mock(ActionRequest.class));
+    when(ruleBase.actionRequestsFor(any())).thenReturn(subActionRequests);
+    doThrow(new IllegalStateException("Injected failure"))
+        .when(actionExecutor)
+        .executeOnIssue(subActionRequests, issue43Properties);
+
+    try {
+      createFireEventOnCommits().execute(its, ITS_PROJECT, actionRequest, properties);
+      fail("No exception thrown");
+    } catch (IllegalStateException e) {
+      assertEquals("Injected failure", e.getMessage());
+    }
+
+    // Issue 42 got handled, but the run did not go past its first batch.
+    verify(actionExecutor).executeOnIssue(subActionRequests, issue42Properties);
+    try (Stream<Path> checkpointFiles = Files.walk(pluginData)) {
+      assertFalse(checkpointFiles.anyMatch(Files::isRegularFile));
+    }
+  }
+
+  private ActionRequest mockCollectedCommits(Map<String, String> properties, int count)
+      throws IOException {
+    FireEventOnCommitsParameters parameters = mock(FireEventOnCommitsParameters.class);
+    SinceLastTagCommitCollector collector = mock(SinceLastTagCommitCollector.class);
+    when(parameters.getCommitCollector()).thenReturn(collector);
+    when(parameters.getProjectName()).thenReturn(PROJECT);
+
+    ActionRequest actionRequest = mock(ActionRequest.class);
+    when(parametersExtractor.extract(actionRequest, properties))
+        .thenReturn(Optional.of(parameters));
+    when(collector.iterate(properties)).thenReturn(CommitIterator.of(commitIds(0, count)));
+    return actionRequest;
+  }
+
+  private static List<String> commitIds(int from, int to) {
+    List<String> commitIds = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      commitIds.add(String.format("%040x", i));
+    }
+    return commitIds;
+  }
+
   private FireEventOnCommits createFireEventOnCommits() {
     return injector.getInstance(FireEventOnCommits.class);
   }
@@ -14,23 +14,34 @@
 
 package com.googlesource.gerrit.plugins.its.base.workflow;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.googlesource.gerrit.plugins.its.base.workflow.RulesConfigReader.ACTION_KEY;
 import static com.googlesource.gerrit.plugins.its.base.workflow.RulesConfigReader.RULE_SECTION;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.gerrit.entities.Project;
+import com.google.gerrit.entities.RefNames;
+import com.google.gerrit.extensions.api.GerritApi;
+import com.google.gerrit.extensions.common.ProjectInfo;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
 import com.google.gerrit.server.project.ProjectCache;
 import com.google.gerrit.server.project.ProjectLevelConfig;
 import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.googlesource.gerrit.plugins.its.base.GlobalRulesFileName;
 import com.googlesource.gerrit.plugins.its.base.PluginRulesFileName;
+import com.googlesource.gerrit.plugins.its.base.its.ItsEnablementCache;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectCachesRefresher;
+import com.googlesource.gerrit.plugins.its.base.its.ItsProjectConfigCache;
 import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
 import com.googlesource.gerrit.plugins.its.base.workflow.RuleBaseTest.RuleBaseKind;
 import java.io.IOException;
@@ -149,4 +160,76 @@ public class ItsRulesProjectCacheTest extends LoggingMockingTestCase {
     assertEquals("Rules do not match", expected, actual);
     assertTrue(actual.contains(rule1));
   }
+
+  public void testInheritedRulesOfDescendantsEvictedOnConfigUpdate() throws Exception {
+    // Only the parent project has rules, so the grand child inherits them through the child.
+    Config parentGlobalCfg = new Config();
+    parentGlobalCfg.setString(RULE_SECTION, RULE_1, ACTION_KEY, ACTION_1);
+    ProjectState parentProjectState = mockProjectState(parentGlobalCfg);
+    ProjectState childProjectState = mockProjectState(new Config());
+    ProjectState grandChildProjectState = mockProjectState(new Config());
+    when(grandChildProjectState.parents())
+        .thenReturn(FluentIterable.of(childProjectState, parentProjectState));
+    when(projectCache.get(Project.nameKey("grandChild")))
+        .thenReturn(Optional.of(grandChildProjectState));
+    when(rulesConfigReader.getRulesFromConfig(any(Config.class)))
+        .thenAnswer(
+            invocation -> {
+              Config config = invocation.getArgument(0);
+              return config.getSubsections(RULE_SECTION).stream()
+                  .map(Rule::new)
+                  .collect(toImmutableList());
+            });
+
+    ItsRulesProjectCacheImpl rulesProjectCache =
+        new ItsRulesProjectCacheImpl(
+            CacheBuilder.newBuilder()
+                .build(injector.getInstance(ItsRulesProjectCacheImpl.Loader.class)));
+    GerritApi gApi = mock(GerritApi.class, RETURNS_DEEP_STUBS);
+    when(gApi.projects().name(TEST_PROJECT).children(true))
+        .thenReturn(ImmutableList.of(projectInfo("child"), projectInfo("grandChild")));
+    ItsProjectCachesRefresher refresher =
+        Guice.createInjector(
+                new AbstractModule() {
+                  @Override
+                  protected void configure() {
+                    bind(GerritApi.class).toInstance(gApi);
+                    bind(ItsRulesProjectCache.class).toInstance(rulesProjectCache);
+                    bind(ItsEnablementCache.class).toInstance(mock(ItsEnablementCache.class));
+                    bind(ItsProjectConfigCache.class)
+                        .toInstance(mock(ItsProjectConfigCache.class));
+                    bind(PropertyProjectionCache.class)
+                        .toInstance(mock(PropertyProjectionCache.class));
+                  }
+                })
+            .getInstance(ItsProjectCachesRefresher.class);
+
+    assertEquals(RULE_1, rulesProjectCache.get("grandChild").get(0).getName());
+
+    parentGlobalCfg.unsetSection(RULE_SECTION, RULE_1);
+    parentGlobalCfg.setString(RULE_SECTION, "rule2", ACTION_KEY, ACTION_1);
+    GitReferenceUpdatedListener.Event event = mock(GitReferenceUpdatedListener.Event.class);
+    when(event.getProjectName()).thenReturn(TEST_PROJECT);
+    when(event.getRefName()).thenReturn(RefNames.REFS_CONFIG);
+    refresher.onGitReferenceUpdated(event);
+
+    assertEquals("rule2", rulesProjectCache.get("grandChild").get(0).getName());
+  }
+
+  private ProjectState mockProjectState(Config globalCfg) {
+    ProjectState projectState = mock(ProjectState.class);
+    ProjectLevelConfig projectLevelConfigGlobal = mock(ProjectLevelConfig.class);
+    when(projectLevelConfigGlobal.get()).thenReturn(globalCfg);
+    when(projectState.getConfig(RuleBaseKind.GLOBAL.fileName)).thenReturn(projectLevelConfigGlobal);
+    ProjectLevelConfig projectLevelConfigPlugin = mock(ProjectLevelConfig.class);
+    when(projectLevelConfigPlugin.get()).thenReturn(new Config());
+    when(projectState.getConfig(RuleBaseKind.ITS.fileName)).thenReturn(projectLevelConfigPlugin);
+    return projectState;
+  }
+
+  private static ProjectInfo projectInfo(String name) {
+    ProjectInfo info = new ProjectInfo();
+    info.name = name;
+    return info;
+  }
 }
@@ -16,13 +16,17 @@ package com.googlesource.gerrit.plugins.its.base.workflow;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.extensions.registration.DynamicMap;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.googlesource.gerrit.plugins.its.base.GlobalRulesFileName;
@@ -34,6 +38,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -182,6 +187,173 @@ public class RuleBaseTest extends LoggingMockingTestCase {
     assertEquals("Matched actionRequests do not match", expected, actual);
   }
 
+  public void testPropertyProjectionConditionsAndParameters() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addCondition(new Condition("status", "NEW"));
+    rule1.addActionRequest(new ActionRequest("add-property-to-field commitMessage field"));
+    rule1.addActionRequest(new ActionRequest("its-specific-action"));
+    Rule rule2 = new Rule("rule2");
+    rule2.addActionRequest(new ActionRequest("create-version-from-property changeNumber"));
+    rule2.addActionRequest(new ActionRequest("add-comment Some comment"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1, rule2));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection actual = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertFalse("Projection includes all properties", actual.includesAll());
+    assertTrue(actual.includes("status"));
+    assertTrue(actual.includes("commitMessage"));
+    assertTrue(actual.includes("changeNumber"));
+    assertTrue(actual.includes("project"));
+    assertTrue(actual.includes("issue"));
+    assertFalse(actual.includes("subject"));
+    assertFalse(actual.includesPrefix("approval"));
+  }
+
+  public void testPropertyProjectionIsCached() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addCondition(new Condition("status", "NEW"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection projection = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertSame(projection, ruleBase.getPropertyProjection(TEST_PROJECT));
+    verify(rulesProjectCache, times(1)).get(TEST_PROJECT);
+  }
+
+  public void testPropertyProjectionLogEvent() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addCondition(new Condition("status", "NEW"));
+    rule1.addActionRequest(new ActionRequest("log-event"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection actual = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertTrue("Projection does not include all properties", actual.includesAll());
+  }
+
+  public void testPropertyProjectionBetweenRevisions() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addCondition(new Condition("event-type", "ref-updated"));
+    rule1.addActionRequest(new ActionRequest("fire-event-on-commits between-revisions"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection actual = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertFalse("Projection includes all properties", actual.includesAll());
+    assertTrue(actual.includes("revision"));
+    assertTrue(actual.includes("revisionOld"));
+  }
+
+  public void testPropertyProjectionSinceLastTag() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addActionRequest(new ActionRequest("fire-event-on-commits since-last-tag"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection actual = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertFalse("Projection includes all properties", actual.includesAll());
+    assertTrue(actual.includes("revision"));
+    assertFalse(actual.includes("revisionOld"));
+  }
+
+  public void testPropertyProjectionCustomCommitCollector() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addActionRequest(new ActionRequest("fire-event-on-commits custom-collector"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection actual = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertTrue("Projection does not include all properties", actual.includesAll());
+  }
+
+  public void testPropertyProjectionSoyTemplate() throws IOException {
+    Path templateDir = itsPath.resolve("templates");
+    Files.createDirectories(templateDir);
+    Files.write(
+        templateDir.resolve("Template.soy"),
+        ("{namespace etc.its.templates}\n"
+                + "{template Template}\n"
+                + "  {@param changeNumber: string}\n"
+                + "  {@param formatChangeUrl: string}\n"
+                + "  Change {$changeNumber} added. See {$formatChangeUrl}\n"
+                + "{/template}\n")
+            .getBytes());
+
+    Rule rule1 = new Rule("rule1");
+    rule1.addActionRequest(new ActionRequest("add-soy-comment Template"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection actual = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertFalse("Projection includes all properties", actual.includesAll());
+    assertTrue(actual.includes("changeNumber"));
+    assertTrue(actual.includes("formatChangeUrl"));
+    assertFalse(actual.includes("subject"));
+  }
+
+  public void testPropertyProjectionMissingSoyTemplate() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addActionRequest(new ActionRequest("add-soy-comment Missing"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1));
+
+    RuleBase ruleBase = createRuleBase();
+    PropertyProjection actual = ruleBase.getPropertyProjection(TEST_PROJECT);
+
+    assertTrue("Projection does not include all properties", actual.includesAll());
+    assertLogMessageContains("Cannot read properties of template");
+  }
+
+  public void testMayMatch() {
+    Rule rule1 = new Rule("rule1");
+    rule1.addCondition(new Condition("event-type", "change-merged"));
+    rule1.addCondition(new Condition("status", "MERGED"));
+    Rule rule2 = new Rule("rule2");
+    rule2.addCondition(new Condition("event-type", "ref-updated"));
+    rule2.addCondition(new Condition("ref", "refs/heads/master"));
+
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of(rule1, rule2));
+
+    RuleBase ruleBase = createRuleBase();
+
+    assertTrue(ruleBase.mayMatch(knownProperties("change-merged", null)));
+    assertTrue(ruleBase.mayMatch(knownProperties("ref-updated", "refs/heads/master")));
+    assertFalse(ruleBase.mayMatch(knownProperties("ref-updated", "refs/heads/dev")));
+    assertFalse(ruleBase.mayMatch(knownProperties("comment-added", null)));
+  }
+
+  public void testMayMatchWithoutRules() {
+    when(rulesProjectCache.get(TEST_PROJECT)).thenReturn(ImmutableList.of());
+
+    RuleBase ruleBase = createRuleBase();
+
+    assertFalse(ruleBase.mayMatch(knownProperties("change-merged", null)));
+  }
+
+  private Map<String, String> knownProperties(String eventType, String ref) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put(PROJECT_KEY, TEST_PROJECT);
+    properties.put("event-type", eventType);
+    if (ref != null) {
+      properties.put("ref", ref);
+    }
+    return properties;
+  }
+
   private RuleBase createRuleBase() {
     return injector.getInstance(RuleBase.class);
   }
@@ -235,6 +407,16 @@ public class RuleBaseTest extends LoggingMockingTestCase {
       rulesProjectCache = mock(ItsRulesProjectCache.class);
       bind(ItsRulesProjectCache.class).toInstance(rulesProjectCache);
 
+      PropertyProjectionCache propertyProjectionCache =
+          new PropertyProjectionCache(CacheBuilder.newBuilder().build());
+      bind(PropertyProjectionCache.class).toInstance(propertyProjectionCache);
+      bind(SoyTemplateCache.class)
+          .toInstance(
+              new SoyTemplateCache(
+                  itsPath, CacheBuilder.newBuilder().build(), propertyProjectionCache));
+
+      DynamicMap.mapOf(binder(), CustomAction.class);
+
       bind(String.class)
           .annotatedWith(GlobalRulesFileName.class)
           .toInstance(RuleBaseKind.GLOBAL.fileName);
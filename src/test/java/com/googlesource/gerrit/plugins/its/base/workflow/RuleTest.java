@@ -109,6 +109,23 @@ public class RuleTest extends LoggingMockingTestCase {
     assertEquals("Matched actionRequests do not match", expected, actual);
   }
 
+  public void testMayMatchIgnoresUnknownProperties() {
+    Rule rule = createRule("testRule");
+    rule.addCondition(new Condition("event-type", "ref-updated"));
+    rule.addCondition(new Condition("status", "MERGED"));
+
+    assertTrue(rule.mayMatch(ImmutableMap.of("event-type", "ref-updated")));
+    assertFalse(rule.mayMatch(ImmutableMap.of("event-type", "change-merged")));
+  }
+
+  public void testMayMatchNegatedCondition() {
+    Rule rule = createRule("testRule");
+    rule.addCondition(new Condition("ref", "!,refs/meta/config"));
+
+    assertTrue(rule.mayMatch(ImmutableMap.of("ref", "refs/heads/master")));
+    assertFalse(rule.mayMatch(ImmutableMap.of("ref", "refs/meta/config")));
+  }
+
   private Rule createRule(String name) {
     Rule.Factory factory = injector.getInstance(Rule.Factory.class);
     return factory.create(name);
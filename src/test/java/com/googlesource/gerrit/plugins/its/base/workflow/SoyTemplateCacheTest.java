@@ -0,0 +1,148 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow;
+
+import static com.google.gerrit.testing.GerritJUnit.assertThrows;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.inject.ProvisionException;
+import com.google.template.soy.jbcsrc.api.SoySauce;
+import com.googlesource.gerrit.plugins.its.base.testutil.LoggingMockingTestCase;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.Level;
+
+public class SoyTemplateCacheTest extends LoggingMockingTestCase {
+  private Path itsPath;
+  private PropertyProjectionCache projections;
+  private SoyTemplateCache templates;
+
+  public void testTemplateGetsCompiledOnce() throws Exception {
+    injectTemplate("plain", "bar");
+
+    SoySauce compiled = templates.get("plain");
+    assertSame(compiled, templates.get("plain"));
+    assertEquals("bar", render(compiled, "plain"));
+
+    assertLogMessageContains("Compiled template");
+  }
+
+  public void testModifiedTemplateGetsCompiledAgain() throws Exception {
+    Path templatePath = injectTemplate("plain", "bar");
+    SoySauce compiled = templates.get("plain");
+
+    injectTemplate("plain", "baz");
+    bumpModifiedTime(templatePath);
+    SoySauce recompiled = templates.get("plain");
+
+    assertNotSame(compiled, recompiled);
+    assertEquals("baz", render(recompiled, "plain"));
+    assertLogMessageContains("Compiled template", 2);
+  }
+
+  public void testKeys() throws Exception {
+    injectTemplate("keys", "{@param subject: string}{@param? status: string}{$subject} {$status}");
+
+    assertEquals(ImmutableSet.of("subject", "status"), templates.getKeys("keys"));
+  }
+
+  public void testChangedKeysEvictProjections() throws Exception {
+    Path templatePath = injectTemplate("keys", "{@param subject: string}{$subject}");
+    templates.get("keys");
+    projections.get("testProject", () -> PropertyProjection.of(ImmutableSet.of("subject")));
+
+    injectTemplate("keys", "{@param subject: string}{@param status: string}{$subject} {$status}");
+    bumpModifiedTime(templatePath);
+    templates.get("keys");
+
+    assertTrue(projections.get("testProject", () -> PropertyProjection.ALL).includesAll());
+  }
+
+  public void testUnchangedKeysKeepProjections() throws Exception {
+    Path templatePath = injectTemplate("keys", "{@param subject: string}{$subject}");
+    templates.get("keys");
+    projections.get("testProject", () -> PropertyProjection.of(ImmutableSet.of("subject")));
+
+    injectTemplate("keys", "{@param subject: string}Subject: {$subject}");
+    bumpModifiedTime(templatePath);
+    templates.get("keys");
+
+    assertFalse(projections.get("testProject", () -> PropertyProjection.ALL).includesAll());
+  }
+
+  public void testMissingTemplate() {
+    assertThrows(ProvisionException.class, () -> templates.get("missing"));
+  }
+
+  public void testStartCompilesAllTemplates() throws Exception {
+    injectTemplate("plain", "bar");
+    injectTemplate("broken", "{if}");
+
+    templates.start();
+
+    assertLogMessageContains("Compiled template");
+    assertLogMessageContains("Failed to compile template", Level.ERROR);
+    assertEquals("bar", render(templates.get("plain"), "plain"));
+  }
+
+  public void testStartWithoutTemplates() {
+    templates.start();
+  }
+
+  private Path injectTemplate(String name, String content) throws Exception {
+    Path templatePath = AddSoyComment.getTemplateDir(itsPath).resolve(name + ".soy");
+    Files.createDirectories(templatePath.getParent());
+    String template =
+        "{namespace etc.its.templates}{template " + name + "}" + content + "{/template}";
+    Files.write(templatePath, template.getBytes(UTF_8));
+    return templatePath;
+  }
+
+  private static void bumpModifiedTime(Path templatePath) throws Exception {
+    Files.setLastModifiedTime(
+        templatePath,
+        FileTime.fromMillis(
+            Files.getLastModifiedTime(templatePath).toMillis() + TimeUnit.MINUTES.toMillis(1)));
+  }
+
+  private static String render(SoySauce compiled, String name) {
+    return compiled
+        .renderTemplate("etc.its.templates." + name)
+        .setData(ImmutableMap.of())
+        .renderText()
+        .get();
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    itsPath = Files.createTempDirectory("its-base").resolve("its");
+    projections = new PropertyProjectionCache(CacheBuilder.newBuilder().build());
+    templates = new SoyTemplateCache(itsPath, CacheBuilder.newBuilder().build(), projections);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    MoreFiles.deleteRecursively(itsPath.getParent(), RecursiveDeleteOption.ALLOW_INSECURE);
+    super.tearDown();
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+public class BetweenRevisionsCommitCollectorTest extends TestCase {
+  private static final Project.NameKey TEST_PROJECT = Project.nameKey("testProject");
+  private static final String ZERO = ObjectId.zeroId().name();
+
+  private TestRepository<InMemoryRepository> testRepo;
+  private BetweenRevisionsCommitCollector collector;
+
+  public void testFastForward() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    RevCommit third = testRepo.commit().parent(second).create();
+
+    assertEquals(
+        Arrays.asList(third.name(), second.name()),
+        collect("refs/heads/master", first.name(), third.name()));
+  }
+
+  public void testNonFastForward() throws Exception {
+    RevCommit base = testRepo.commit().create();
+    RevCommit old = testRepo.commit().parent(base).create();
+    RevCommit rewritten = testRepo.commit().parent(base).create();
+
+    assertEquals(
+        Arrays.asList(rewritten.name()),
+        collect("refs/heads/master", old.name(), rewritten.name()));
+  }
+
+  public void testMerge() throws Exception {
+    RevCommit base = testRepo.commit().create();
+    RevCommit side = testRepo.commit().parent(base).create();
+    RevCommit merge = testRepo.commit().parent(base).parent(side).create();
+
+    assertEquals(
+        Arrays.asList(merge.name(), side.name()),
+        collect("refs/heads/master", base.name(), merge.name()));
+  }
+
+  public void testNewBranchLeavesOutOtherBranches() throws Exception {
+    RevCommit base = testRepo.commit().create();
+    RevCommit feature = testRepo.commit().parent(base).create();
+    testRepo.update("refs/heads/master", base);
+    testRepo.update("refs/heads/feature", feature);
+
+    assertEquals(
+        Arrays.asList(feature.name()), collect("refs/heads/feature", ZERO, feature.name()));
+  }
+
+  public void testDeletedRef() throws Exception {
+    RevCommit commit = testRepo.commit().create();
+
+    assertEquals(Collections.emptyList(), collect("refs/heads/master", commit.name(), ZERO));
+  }
+
+  private List<String> collect(String ref, String revisionOld, String revision) throws Exception {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("project", TEST_PROJECT.get());
+    properties.put("ref", ref);
+    properties.put("revisionOld", revisionOld);
+    properties.put("revision", revision);
+    return collector.collect(properties);
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    InMemoryRepository repo = new InMemoryRepository(new DfsRepositoryDescription("testProject"));
+    testRepo = new TestRepository<>(repo);
+
+    GitRepositoryManager repoManager = mock(GitRepositoryManager.class);
+    when(repoManager.openRepository(TEST_PROJECT))
+        .thenAnswer(
+            invocation -> {
+              repo.incrementOpen();
+              return repo;
+            });
+    collector = new BetweenRevisionsCommitCollector(repoManager);
+  }
+}
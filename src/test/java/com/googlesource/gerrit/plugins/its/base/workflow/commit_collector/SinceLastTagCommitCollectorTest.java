@@ -0,0 +1,118 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import junit.framework.TestCase;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+public class SinceLastTagCommitCollectorTest extends TestCase {
+  private static final Project.NameKey TEST_PROJECT = Project.nameKey("testProject");
+
+  private TestRepository<InMemoryRepository> testRepo;
+  private SinceLastTagCommitCollector collector;
+
+  public void testCollectSinceAnnotatedTag() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    RevCommit third = testRepo.commit().parent(second).create();
+    testRepo.update("refs/tags/v1", testRepo.tag("v1", first));
+
+    assertEquals(Arrays.asList(third.name(), second.name()), collect(third));
+  }
+
+  public void testCollectSinceLightweightTag() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    RevCommit third = testRepo.commit().parent(second).create();
+    testRepo.update("refs/tags/v1", first);
+
+    assertEquals(Arrays.asList(third.name(), second.name()), collect(third));
+  }
+
+  public void testCollectIncludesTaggedStart() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    testRepo.update("refs/tags/v1", first);
+    testRepo.update("refs/tags/v2", second);
+
+    assertEquals(Arrays.asList(second.name()), collect(second));
+  }
+
+  public void testCollectWithoutTags() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+
+    assertEquals(Arrays.asList(second.name(), first.name()), collect(second));
+  }
+
+  public void testIterate() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    RevCommit third = testRepo.commit().parent(second).create();
+    testRepo.update("refs/tags/v1", first);
+
+    try (CommitIterator commits =
+        collector.iterate(
+            ImmutableMap.of("project", TEST_PROJECT.get(), "revision", third.name()))) {
+      assertTrue(commits.hasNext());
+      assertEquals(third.name(), commits.next());
+      assertEquals(second.name(), commits.next());
+      assertFalse(commits.hasNext());
+      assertFalse(commits.hasNext());
+      try {
+        commits.next();
+        fail("No exception thrown");
+      } catch (NoSuchElementException e) {
+        // Expected, as the walk stopped at the tag.
+      }
+    }
+  }
+
+  private List<String> collect(RevCommit revision) throws Exception {
+    return collector.collect(
+        ImmutableMap.of("project", TEST_PROJECT.get(), "revision", revision.name()));
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    InMemoryRepository repo = new InMemoryRepository(new DfsRepositoryDescription("testProject"));
+    testRepo = new TestRepository<>(repo);
+
+    GitRepositoryManager repoManager = mock(GitRepositoryManager.class);
+    when(repoManager.openRepository(TEST_PROJECT))
+        .thenAnswer(
+            invocation -> {
+              repo.incrementOpen();
+              return repo;
+            });
+    collector =
+        new SinceLastTagCommitCollector(
+            repoManager, new TaggedCommitIndex(CacheBuilder.newBuilder().build()));
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.its.base.workflow.commit_collector;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.gerrit.entities.Project;
+import java.util.Set;
+import junit.framework.TestCase;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+public class TaggedCommitIndexTest extends TestCase {
+  private static final Project.NameKey TEST_PROJECT = Project.nameKey("testProject");
+
+  private TestRepository<InMemoryRepository> testRepo;
+  private TaggedCommitIndex index;
+
+  public void testAnnotatedAndLightweightTags() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    RevCommit third = testRepo.commit().parent(second).create();
+    testRepo.update("refs/tags/v1", testRepo.tag("v1", first));
+    testRepo.update("refs/tags/v2", second);
+
+    Set<ObjectId> taggedCommits = index.getTaggedCommits(TEST_PROJECT, testRepo.getRepository());
+
+    assertTrue(taggedCommits.contains(first));
+    assertTrue(taggedCommits.contains(second));
+    assertFalse(taggedCommits.contains(third));
+  }
+
+  public void testTagOfTag() throws Exception {
+    RevCommit commit = testRepo.commit().create();
+    testRepo.update("refs/tags/v1", testRepo.tag("v1", testRepo.tag("v1-rc", commit)));
+
+    Set<ObjectId> taggedCommits = index.getTaggedCommits(TEST_PROJECT, testRepo.getRepository());
+
+    assertTrue(taggedCommits.contains(commit));
+  }
+
+  public void testIndexIsReusedWhileTagsAreUnchanged() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    testRepo.update("refs/tags/v1", first);
+    testRepo.update("refs/heads/master", second);
+
+    Set<ObjectId> taggedCommits = index.getTaggedCommits(TEST_PROJECT, testRepo.getRepository());
+    assertSame(taggedCommits, index.getTaggedCommits(TEST_PROJECT, testRepo.getRepository()));
+
+    testRepo.update("refs/tags/v2", second);
+    Set<ObjectId> updatedTaggedCommits =
+        index.getTaggedCommits(TEST_PROJECT, testRepo.getRepository());
+
+    assertNotSame(taggedCommits, updatedTaggedCommits);
+    assertTrue(updatedTaggedCommits.contains(second));
+  }
+
+  public void testIndexWeighsByTaggedCommits() throws Exception {
+    RevCommit first = testRepo.commit().create();
+    RevCommit second = testRepo.commit().parent(first).create();
+    TaggedCommitIndex.TaggedCommitsWeigher weigher = new TaggedCommitIndex.TaggedCommitsWeigher();
+
+    assertEquals(
+        1,
+        weigher.weigh(
+            TEST_PROJECT,
+            new TaggedCommitIndex.TaggedCommits(HashCode.fromInt(0), ImmutableSet.of())));
+    assertEquals(
+        3,
+        weigher.weigh(
+            TEST_PROJECT,
+            new TaggedCommitIndex.TaggedCommits(
+                HashCode.fromInt(0), ImmutableSet.of(first, second))));
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    testRepo =
+        new TestRepository<>(new InMemoryRepository(new DfsRepositoryDescription("testProject")));
+    index = new TaggedCommitIndex(CacheBuilder.newBuilder().build());
+  }
+}